@@ -0,0 +1,99 @@
+package net.experimentalworks;
+
+import java.io.Serializable;
+import java.util.Optional;
+
+import org.json.JSONObject;
+
+/**
+ * Immutable data model representing the current store price of a single Steam application.
+ *
+ * <p>Produced by batched price lookups, which only return the price overview section of the store
+ * details. A successful lookup without a price usually means the app is free to play or not
+ * currently purchasable.
+ */
+public class AppPrice implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final int appId;
+  private final boolean success;
+  // Nullable rather than Optional, which is not Serializable
+  private final StoreDetails.PriceOverview priceOverview;
+  private final String error;
+  private final FetchFailure failure;
+
+  public AppPrice(
+      int appId,
+      boolean success,
+      Optional<StoreDetails.PriceOverview> priceOverview,
+      Optional<String> error) {
+    this(appId, success, priceOverview, error, null);
+  }
+
+  private AppPrice(
+      int appId,
+      boolean success,
+      Optional<StoreDetails.PriceOverview> priceOverview,
+      Optional<String> error,
+      FetchFailure failure) {
+    this.appId = appId;
+    this.success = success;
+    this.priceOverview = priceOverview.orElse(null);
+    this.error = error.orElse(null);
+    this.failure = failure;
+  }
+
+  /**
+   * Creates the price of an app that could not be looked up.
+   *
+   * @param appId the app ID that failed
+   * @param failure why the lookup failed
+   * @param message a description of the failure
+   * @return an unsuccessful AppPrice
+   */
+  public static AppPrice failed(int appId, FetchFailure failure, String message) {
+    return new AppPrice(appId, false, Optional.empty(), Optional.of(message), failure);
+  }
+
+  public int getAppId() {
+    return appId;
+  }
+
+  public boolean isSuccess() {
+    return success;
+  }
+
+  public Optional<StoreDetails.PriceOverview> getPriceOverview() {
+    return Optional.ofNullable(priceOverview);
+  }
+
+  public Optional<String> getError() {
+    return Optional.ofNullable(error);
+  }
+
+  public Optional<FetchFailure> getFailure() {
+    return Optional.ofNullable(failure);
+  }
+
+  /** Converts this AppPrice to a JSONObject for MCP response. */
+  public JSONObject toJson() {
+    JSONObject json = new JSONObject();
+    json.put("app_id", appId);
+    json.put("success", success);
+    if (priceOverview != null) {
+      json.put("price_overview", priceOverview.toJson());
+    }
+    if (error != null) {
+      json.put("error", error);
+    }
+    if (failure != null) {
+      json.put("failure", failure.getKey());
+    }
+    return json;
+  }
+
+  @Override
+  public String toString() {
+    return "AppPrice{appId=" + appId + ", success=" + success + "}";
+  }
+}
@@ -12,6 +12,18 @@ import org.json.JSONObject;
 public class AppSearchResult implements Serializable {
   private static final long serialVersionUID = 1L;
 
+  /** Writes a search result with the same fields as {@link #toJson()}. */
+  public static final JsonSerializer<AppSearchResult> SERIALIZER =
+      (json, result) ->
+          json.beginObject()
+              .name("app_id")
+              .value(result.appId)
+              .name("name")
+              .value(result.name)
+              .name("score")
+              .value(result.score)
+              .endObject();
+
   private final int appId;
   private final String name;
   private final double score;
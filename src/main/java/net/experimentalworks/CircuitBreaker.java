@@ -0,0 +1,263 @@
+package net.experimentalworks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Circuit breaker for one upstream API.
+ *
+ * <p>While closed, the outcomes of the most recent calls are kept in a rolling window. Once the
+ * window holds enough calls and the share of failures reaches the threshold, the breaker opens and
+ * rejects calls, so callers fail fast or fall back to cached data instead of sending requests that
+ * are bound to fail. After the open duration a limited number of probe calls are let through
+ * (half-open); if they all succeed the breaker closes again, and any failure reopens it.
+ *
+ * <p>Only failures that say something about the upstream's health should be recorded as such:
+ * transport errors, timeouts, throttling and server errors.
+ */
+public class CircuitBreaker {
+  /** Number of recent calls the failure rate is computed over. */
+  static final int DEFAULT_WINDOW_SIZE = 20;
+
+  /** Calls needed in the window before the breaker may open. */
+  static final int DEFAULT_MIN_CALLS = 10;
+
+  /** Share of failed calls at which the breaker opens. */
+  static final double DEFAULT_FAILURE_RATE = 0.5;
+
+  /** How long an open breaker rejects calls before probing. */
+  static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+  /** Number of probe calls let through while half-open. */
+  static final int DEFAULT_HALF_OPEN_PROBES = 3;
+
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+  /** States of a circuit breaker. */
+  public enum State {
+    /** Calls pass and their outcomes are tracked. */
+    CLOSED,
+    /** Calls are rejected. */
+    OPEN,
+    /** A limited number of probe calls pass to test recovery. */
+    HALF_OPEN
+  }
+
+  private final String name;
+  private final int minCalls;
+  private final double failureRate;
+  private final Duration openDuration;
+  private final int halfOpenProbes;
+  private final Clock clock;
+
+  // Rolling window of outcomes, true for failures
+  private final boolean[] window;
+  private int next;
+  private int calls;
+  private int failures;
+
+  private State state = State.CLOSED;
+  private Instant openedAt;
+  private int probesStarted;
+  private int probesSucceeded;
+  private long rejected;
+  private long timesOpened;
+
+  /**
+   * Creates a breaker with default thresholds.
+   *
+   * @param name the upstream's name, used in monitoring output
+   */
+  public CircuitBreaker(String name) {
+    this(
+        name,
+        DEFAULT_WINDOW_SIZE,
+        DEFAULT_MIN_CALLS,
+        DEFAULT_FAILURE_RATE,
+        DEFAULT_OPEN_DURATION,
+        DEFAULT_HALF_OPEN_PROBES,
+        Clock.systemUTC());
+  }
+
+  /**
+   * Creates a breaker with explicit thresholds (primarily for testing).
+   *
+   * @param name the upstream's name, used in monitoring output
+   * @param windowSize number of recent calls the failure rate is computed over
+   * @param minCalls calls needed in the window before the breaker may open
+   * @param failureRate share of failed calls at which the breaker opens
+   * @param openDuration how long an open breaker rejects calls before probing
+   * @param halfOpenProbes number of probe calls let through while half-open
+   * @param clock clock used to time the open state
+   */
+  public CircuitBreaker(
+      String name,
+      int windowSize,
+      int minCalls,
+      double failureRate,
+      Duration openDuration,
+      int halfOpenProbes,
+      Clock clock) {
+    this.name = name;
+    this.window = new boolean[windowSize];
+    this.minCalls = minCalls;
+    this.failureRate = failureRate;
+    this.openDuration = openDuration;
+    this.halfOpenProbes = halfOpenProbes;
+    this.clock = clock;
+  }
+
+  /**
+   * Asks whether a call may be sent. Every permitted call must be followed by {@link
+   * #recordSuccess()}, {@link #recordFailure()} or {@link #release()}.
+   *
+   * @return false if the call must not be sent
+   */
+  public synchronized boolean tryAcquire() {
+    if (state == State.OPEN) {
+      if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+        rejected++;
+        return false;
+      }
+      state = State.HALF_OPEN;
+      probesStarted = 0;
+      probesSucceeded = 0;
+    }
+    if (state == State.HALF_OPEN) {
+      if (probesStarted >= halfOpenProbes) {
+        rejected++;
+        return false;
+      }
+      probesStarted++;
+    }
+    return true;
+  }
+
+  /** Records a call that succeeded. */
+  public synchronized void recordSuccess() {
+    if (state == State.HALF_OPEN) {
+      if (++probesSucceeded >= halfOpenProbes) {
+        close();
+      }
+    } else if (state == State.CLOSED) {
+      record(false);
+    }
+  }
+
+  /** Records a call that failed because of the upstream. */
+  public synchronized void recordFailure() {
+    if (state == State.HALF_OPEN) {
+      open();
+    } else if (state == State.CLOSED) {
+      record(true);
+      if (calls >= minCalls && failures >= failureRate * calls) {
+        open();
+      }
+    }
+  }
+
+  /**
+   * Ends a call whose outcome says nothing about the upstream, such as one cancelled by its
+   * caller. While half-open this frees the call's probe slot for another probe.
+   */
+  public synchronized void release() {
+    if (state == State.HALF_OPEN && probesStarted > probesSucceeded) {
+      probesStarted--;
+    }
+  }
+
+  /**
+   * Records the outcome of a call sent without {@link #tryAcquire()}, such as a background
+   * refresh. The outcome only counts while the breaker is closed, so such calls can never stand in
+   * for the probes of a half-open breaker.
+   *
+   * @param failure whether the call failed because of the upstream
+   */
+  public synchronized void recordUnprobed(boolean failure) {
+    if (state != State.CLOSED) {
+      return;
+    }
+    if (failure) {
+      recordFailure();
+    } else {
+      recordSuccess();
+    }
+  }
+
+  /**
+   * Records the outcome of an HTTP call by its status code.
+   *
+   * @param status the response status
+   */
+  public void recordStatus(int status) {
+    if (isUpstreamFailure(status)) {
+      recordFailure();
+    } else {
+      recordSuccess();
+    }
+  }
+
+  /**
+   * Whether a response status means the upstream is throttling or failing, as opposed to a
+   * problem with the request itself.
+   *
+   * @param status the response status
+   * @return true for 429 and 5xx statuses
+   */
+  static boolean isUpstreamFailure(int status) {
+    return status == HTTP_TOO_MANY_REQUESTS || status >= 500;
+  }
+
+  /**
+   * Whether calls are currently being rejected. Unlike {@link #tryAcquire()}, this does not start
+   * probing once the open duration has passed.
+   */
+  public synchronized boolean isOpen() {
+    return state == State.OPEN && clock.instant().isBefore(openedAt.plus(openDuration));
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  /** Returns the number of calls rejected while open or half-open. */
+  public synchronized long getRejected() {
+    return rejected;
+  }
+
+  private void record(boolean failure) {
+    if (calls == window.length) {
+      failures -= window[next] ? 1 : 0;
+    } else {
+      calls++;
+    }
+    window[next] = failure;
+    failures += failure ? 1 : 0;
+    next = (next + 1) % window.length;
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = clock.instant();
+    timesOpened++;
+  }
+
+  private void close() {
+    state = State.CLOSED;
+    next = 0;
+    calls = 0;
+    failures = 0;
+  }
+
+  /**
+   * Gets breaker state for debugging/monitoring.
+   *
+   * @return string with the state, recent failure rate and rejected calls
+   */
+  public synchronized String getInfo() {
+    return String.format(
+        "%s circuit: %s, %d of %d recent calls failed, opened %d times, rejected %d",
+        name, state, failures, calls, timesOpened, rejected);
+  }
+}
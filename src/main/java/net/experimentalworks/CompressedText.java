@@ -0,0 +1,199 @@
+package net.experimentalworks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable text held deflate-compressed in memory.
+ *
+ * <p>Store descriptions, legal notices and system requirements are long HTML fragments that are
+ * rarely read, so they are compressed when a StoreDetails is built and only inflated when a getter
+ * or {@code toJson} needs them. Compression uses a preset dictionary of markup and phrases that
+ * recur in store pages, which pays off even for short requirement lists. Texts too short to
+ * benefit are kept as plain UTF-8.
+ *
+ * <p>Compression and decompression timings are accumulated in shared counters, see {@link
+ * #getInfo()}.
+ */
+public final class CompressedText implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  /** Texts shorter than this many UTF-8 bytes are stored uncompressed. */
+  static final int MIN_COMPRESSED_LENGTH = 128;
+
+  private static final byte[] DICTIONARY =
+      String.join(
+              "",
+              "<strong>Minimum:</strong><br><ul class=\"bb_ul\"><li>Requires a 64-bit processor",
+              " and operating system<br></li><li><strong>OS:</strong> Windows 10<br></li><li>",
+              "<strong>Processor:</strong> Intel Core i5<br></li><li><strong>Memory:</strong>",
+              " 8 GB RAM<br></li><li><strong>Graphics:</strong> NVIDIA GeForce GTX<br></li><li>",
+              "<strong>DirectX:</strong> Version 11<br></li><li><strong>Network:</strong>",
+              " Broadband Internet connection<br></li><li><strong>Storage:</strong>",
+              " GB available space<br></li><li><strong>Sound Card:</strong> DirectX compatible",
+              "<br></li><li><strong>Additional Notes:</strong></li></ul>",
+              "<strong>Recommended:</strong><br>",
+              "<h2 class=\"bb_tag\"><p class=\"bb_paragraph\"><span class=\"bb_img_ctn\">",
+              "<img class=\"bb_img\" src=\"https://shared.akamai.steamstatic.com/",
+              "store_item_assets/steam/apps/",
+              "/extras/",
+              ".gif?t=\" /></span></p><br><i>",
+              "</i></p><p class=\"bb_paragraph\">",
+              " the game and the world of the player with your friends in a new story ",
+              "©  Valve Corporation. All rights reserved. All other trademarks are ",
+              "property of their respective owners.")
+          .getBytes(StandardCharsets.UTF_8);
+
+  private static final LongAdder compressions = new LongAdder();
+  private static final LongAdder compressNanos = new LongAdder();
+  private static final LongAdder decompressions = new LongAdder();
+  private static final LongAdder decompressNanos = new LongAdder();
+  private static final LongAdder originalBytes = new LongAdder();
+  private static final LongAdder storedBytes = new LongAdder();
+
+  private final byte[] data;
+  // UTF-8 length of the text, or -1 if data holds the plain UTF-8 bytes
+  private final int length;
+
+  private CompressedText(byte[] data, int length) {
+    this.data = data;
+    this.length = length;
+  }
+
+  /**
+   * Compresses a text.
+   *
+   * @param text the text to store
+   * @return the compressed text
+   */
+  public static CompressedText of(String text) {
+    byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+    originalBytes.add(utf8.length);
+    if (utf8.length < MIN_COMPRESSED_LENGTH) {
+      storedBytes.add(utf8.length);
+      return new CompressedText(utf8, -1);
+    }
+
+    long start = System.nanoTime();
+    try {
+      byte[] compressed = deflate(utf8);
+      if (compressed.length >= utf8.length) {
+        storedBytes.add(utf8.length);
+        return new CompressedText(utf8, -1);
+      }
+      storedBytes.add(compressed.length);
+      return new CompressedText(compressed, utf8.length);
+    } finally {
+      compressions.increment();
+      compressNanos.add(System.nanoTime() - start);
+    }
+  }
+
+  /** Returns whether the text is actually held compressed. */
+  public boolean isCompressed() {
+    return length >= 0;
+  }
+
+  /** Returns the number of bytes held in memory for this text. */
+  public int getStoredSize() {
+    return data.length;
+  }
+
+  /**
+   * Inflates the text.
+   *
+   * @return the original text
+   * @throws IllegalStateException if the compressed data is corrupt
+   */
+  public String decompress() {
+    if (!isCompressed()) {
+      return new String(data, StandardCharsets.UTF_8);
+    }
+
+    long start = System.nanoTime();
+    try {
+      return new String(inflate(data, length), StandardCharsets.UTF_8);
+    } finally {
+      decompressions.increment();
+      decompressNanos.add(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Deflates bytes with the preset dictionary, without touching the statistics.
+   *
+   * @param input the bytes to compress
+   * @return raw deflate data
+   */
+  static byte[] deflate(byte[] input) {
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+    try {
+      deflater.setDictionary(DICTIONARY);
+      deflater.setInput(input);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 3 + 16);
+      byte[] chunk = new byte[4096];
+      while (!deflater.finished()) {
+        out.write(chunk, 0, deflater.deflate(chunk));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Inflates data produced by {@link #deflate(byte[])}.
+   *
+   * @param data raw deflate data
+   * @param length the number of bytes the data inflates to
+   * @return the original bytes
+   * @throws IllegalStateException if the data is corrupt or truncated
+   */
+  static byte[] inflate(byte[] data, int length) {
+    Inflater inflater = new Inflater(true);
+    try {
+      // Raw deflate streams carry no dictionary ID, so the dictionary is set up front
+      inflater.setDictionary(DICTIONARY);
+      inflater.setInput(data);
+      byte[] output = new byte[length];
+      int n = 0;
+      while (n < length) {
+        int read = inflater.inflate(output, n, length - n);
+        if (read == 0 && (inflater.finished() || inflater.needsInput())) {
+          throw new IllegalStateException("Compressed data is truncated");
+        }
+        n += read;
+      }
+      return output;
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Compressed data is corrupt", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Gets compression statistics for debugging/monitoring.
+   *
+   * @return string with stored sizes and average compress and decompress times
+   */
+  static String getInfo() {
+    long compressed = compressions.sum();
+    long decompressed = decompressions.sum();
+    return String.format(
+        "Compressed text: %d of %d bytes stored, compressed %d (avg %.1f µs), "
+            + "decompressed %d (avg %.1f µs)",
+        storedBytes.sum(),
+        originalBytes.sum(),
+        compressed,
+        compressed == 0 ? 0.0 : compressNanos.sum() / 1_000.0 / compressed,
+        decompressed,
+        decompressed == 0 ? 0.0 : decompressNanos.sum() / 1_000.0 / decompressed);
+  }
+}
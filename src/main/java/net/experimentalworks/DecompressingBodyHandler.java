@@ -0,0 +1,330 @@
+package net.experimentalworks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Body handler that decodes gzip or deflate encoded responses into a UTF-8 string.
+ *
+ * <p>{@link HttpClient} does not decompress responses on its own, so requests that advertise
+ * {@link #ACCEPT_ENCODING} must be read through this handler. Compressed chunks are inflated as
+ * they arrive instead of buffering the whole compressed body first. Wire and decoded byte counts
+ * as well as the negotiated protocol version are recorded in the supplied {@link TransferStats}.
+ *
+ * <p>Responses without a body (such as 304 revalidations, which CDNs often send with the
+ * Content-Encoding of the cached representation) decode to an empty string.
+ */
+public class DecompressingBodyHandler implements HttpResponse.BodyHandler<String> {
+  /** Value for the Accept-Encoding request header matching the encodings this handler decodes. */
+  public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+  private static final int HTTP_NO_CONTENT = 204;
+  private static final int HTTP_NOT_MODIFIED = 304;
+
+  private final TransferStats stats;
+
+  public DecompressingBodyHandler(TransferStats stats) {
+    this.stats = stats;
+  }
+
+  @Override
+  public HttpResponse.BodySubscriber<String> apply(HttpResponse.ResponseInfo responseInfo) {
+    String encoding =
+        responseInfo
+            .headers()
+            .firstValue("Content-Encoding")
+            .map(value -> value.trim().toLowerCase(Locale.ROOT))
+            .orElse("identity");
+    int status = responseInfo.statusCode();
+    if (status == HTTP_NO_CONTENT || status == HTTP_NOT_MODIFIED) {
+      // Bodiless statuses may still carry the encoding header of the representation
+      encoding = "identity";
+    }
+
+    Decoder decoder =
+        switch (encoding) {
+          case "gzip", "x-gzip" -> new InflatingDecoder(true);
+          case "deflate" -> new InflatingDecoder(false);
+          default -> new IdentityDecoder();
+        };
+
+    return new DecodingSubscriber(decoder, responseInfo.version(), stats);
+  }
+
+  /** Incremental decoder for a single response body. */
+  private interface Decoder {
+    void decode(ByteBuffer input, ByteArrayOutputStream output) throws Exception;
+
+    void finish() throws Exception;
+
+    boolean isCompressed();
+
+    void close();
+  }
+
+  private static final class IdentityDecoder implements Decoder {
+    @Override
+    public void decode(ByteBuffer input, ByteArrayOutputStream output) {
+      if (input.hasArray()) {
+        output.write(input.array(), input.arrayOffset() + input.position(), input.remaining());
+        input.position(input.limit());
+      } else {
+        byte[] bytes = new byte[input.remaining()];
+        input.get(bytes);
+        output.write(bytes, 0, bytes.length);
+      }
+    }
+
+    @Override
+    public void finish() {}
+
+    @Override
+    public boolean isCompressed() {
+      return false;
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  /**
+   * Streaming decoder for gzip (RFC 1952) and deflate (RFC 1950, or raw RFC 1951 as sent by some
+   * servers) bodies.
+   */
+  private static final class InflatingDecoder implements Decoder {
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    private final boolean gzip;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final CRC32 crc = new CRC32();
+    private final byte[] chunk = new byte[8192];
+
+    private Inflater inflater;
+    private long inflatedSize;
+
+    InflatingDecoder(boolean gzip) {
+      this.gzip = gzip;
+    }
+
+    @Override
+    public void decode(ByteBuffer input, ByteArrayOutputStream output) throws Exception {
+      if (inflater == null) {
+        // Buffer until the gzip header or zlib preamble is complete
+        copy(input, pending);
+        byte[] head = pending.toByteArray();
+        int start = gzip ? gzipHeaderLength(head) : deflateStart(head);
+        if (start < 0) {
+          return;
+        }
+        pending.reset();
+        ByteBuffer rest = ByteBuffer.wrap(head, start, head.length - start);
+        inflate(rest, output);
+        return;
+      }
+      inflate(input, output);
+    }
+
+    private int deflateStart(byte[] head) {
+      if (head.length < 2) {
+        return -1;
+      }
+      int cmf = head[0] & 0xff;
+      int flg = head[1] & 0xff;
+      boolean zlibWrapped = (cmf & 0x0f) == 8 && ((cmf << 8) | flg) % 31 == 0;
+      inflater = new Inflater(!zlibWrapped);
+      return 0;
+    }
+
+    private int gzipHeaderLength(byte[] head) throws ZipException {
+      if (head.length < 10) {
+        return -1;
+      }
+      if (((head[1] & 0xff) << 8 | (head[0] & 0xff)) != GZIP_MAGIC || head[2] != 8) {
+        throw new ZipException("Not in gzip format");
+      }
+      int flags = head[3] & 0xff;
+      int pos = 10;
+      if ((flags & FEXTRA) != 0) {
+        if (head.length < pos + 2) {
+          return -1;
+        }
+        pos += 2 + ((head[pos] & 0xff) | (head[pos + 1] & 0xff) << 8);
+      }
+      for (int flag : new int[] {FNAME, FCOMMENT}) {
+        if ((flags & flag) != 0) {
+          while (pos < head.length && head[pos] != 0) {
+            pos++;
+          }
+          if (pos >= head.length) {
+            return -1;
+          }
+          pos++;
+        }
+      }
+      if ((flags & FHCRC) != 0) {
+        pos += 2;
+      }
+      if (head.length < pos) {
+        return -1;
+      }
+      inflater = new Inflater(true);
+      return pos;
+    }
+
+    private void inflate(ByteBuffer input, ByteArrayOutputStream output)
+        throws DataFormatException, ZipException {
+      if (inflater.finished()) {
+        // Only the gzip trailer follows the compressed data
+        copy(input, pending);
+        return;
+      }
+      inflater.setInput(input);
+      while (!inflater.finished() && !inflater.needsInput()) {
+        int n = inflater.inflate(chunk);
+        if (n == 0 && inflater.needsDictionary()) {
+          throw new ZipException("Deflate stream requires a preset dictionary");
+        }
+        output.write(chunk, 0, n);
+        crc.update(chunk, 0, n);
+        inflatedSize += n;
+      }
+      if (inflater.finished()) {
+        copy(input, pending);
+      }
+    }
+
+    @Override
+    public void finish() throws Exception {
+      if (inflater == null && pending.size() == 0) {
+        // No bytes arrived: an empty body despite the Content-Encoding header
+        return;
+      }
+      if (inflater == null || !inflater.finished()) {
+        throw new EOFException("Unexpected end of compressed response body");
+      }
+      if (gzip) {
+        byte[] trailer = pending.toByteArray();
+        if (trailer.length < GZIP_TRAILER_SIZE) {
+          throw new EOFException("Unexpected end of gzip trailer");
+        }
+        if (readInt(trailer, 0) != crc.getValue()
+            || readInt(trailer, 4) != (inflatedSize & 0xffffffffL)) {
+          throw new ZipException("Corrupt gzip trailer");
+        }
+      }
+    }
+
+    private static long readInt(byte[] b, int off) {
+      return (b[off] & 0xffL)
+          | (b[off + 1] & 0xffL) << 8
+          | (b[off + 2] & 0xffL) << 16
+          | (b[off + 3] & 0xffL) << 24;
+    }
+
+    @Override
+    public boolean isCompressed() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+      if (inflater != null) {
+        inflater.end();
+      }
+    }
+
+    private static void copy(ByteBuffer input, ByteArrayOutputStream target) {
+      byte[] bytes = new byte[input.remaining()];
+      input.get(bytes);
+      target.write(bytes, 0, bytes.length);
+    }
+  }
+
+  private static final class DecodingSubscriber implements HttpResponse.BodySubscriber<String> {
+    private final CompletableFuture<String> result = new CompletableFuture<>();
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private final Decoder decoder;
+    private final HttpClient.Version version;
+    private final TransferStats stats;
+
+    private Flow.Subscription subscription;
+    private long wireBytes;
+
+    DecodingSubscriber(Decoder decoder, HttpClient.Version version, TransferStats stats) {
+      this.decoder = decoder;
+      this.version = version;
+      this.stats = stats;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+      if (result.isDone()) {
+        return;
+      }
+      try {
+        for (ByteBuffer item : items) {
+          wireBytes += item.remaining();
+          decoder.decode(item, output);
+        }
+      } catch (Exception e) {
+        subscription.cancel();
+        fail(e);
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      if (result.isDone()) {
+        return;
+      }
+      try {
+        decoder.finish();
+        stats.recordResponse(version, decoder.isCompressed(), wireBytes, output.size());
+        result.complete(output.toString(StandardCharsets.UTF_8));
+      } catch (Exception e) {
+        fail(e);
+      } finally {
+        decoder.close();
+      }
+    }
+
+    private void fail(Throwable throwable) {
+      decoder.close();
+      result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public CompletionStage<String> getBody() {
+      return result;
+    }
+  }
+}
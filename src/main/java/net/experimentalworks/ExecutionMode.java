@@ -0,0 +1,57 @@
+package net.experimentalworks;
+
+import java.util.concurrent.Executors;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/** Where tool handlers that block, such as a search waiting for the app list, are run. */
+public enum ExecutionMode {
+  /**
+   * Reactor's shared bounded elastic pool. Its platform threads are capped at ten per CPU core, and
+   * further work waits in a queue.
+   */
+  BOUNDED_ELASTIC("bounded-elastic"),
+  /**
+   * A new virtual thread per task. Blocked tasks unmount from their carrier thread, so the number
+   * of concurrently waiting calls is not limited by a thread pool.
+   */
+  VIRTUAL_THREADS("virtual-threads");
+
+  private final String argument;
+
+  ExecutionMode(String argument) {
+    this.argument = argument;
+  }
+
+  /**
+   * Resolves the value of the EXECUTION_MODE setting.
+   *
+   * @param argument bounded-elastic or virtual-threads
+   * @return the execution mode
+   * @throws IllegalArgumentException if the argument names no execution mode
+   */
+  public static ExecutionMode fromArgument(String argument) {
+    for (ExecutionMode mode : values()) {
+      if (mode.argument.equals(argument)) {
+        return mode;
+      }
+    }
+    throw new IllegalArgumentException(
+        "EXECUTION_MODE must be bounded-elastic or virtual-threads, got: " + argument);
+  }
+
+  /**
+   * Returns a scheduler for blocking work in this mode.
+   *
+   * @return the shared bounded elastic scheduler, or a new scheduler on virtual threads
+   */
+  public Scheduler newScheduler() {
+    return switch (this) {
+      case BOUNDED_ELASTIC -> Schedulers.boundedElastic();
+      case VIRTUAL_THREADS ->
+          Schedulers.fromExecutorService(
+              Executors.newVirtualThreadPerTaskExecutor(), "virtual-threads");
+    };
+  }
+}
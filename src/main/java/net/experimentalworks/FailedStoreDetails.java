@@ -0,0 +1,89 @@
+package net.experimentalworks;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Optional;
+import java.util.Set;
+
+import org.json.JSONObject;
+
+/**
+ * Store details of an app that could not be fetched. Only the app ID and the failure are known;
+ * the name carries a readable message and JSON output adds {@code failure} and {@code error}.
+ */
+public final class FailedStoreDetails extends StoreDetails {
+  private static final long serialVersionUID = 1L;
+
+  private final FetchFailure failure;
+  private final String message;
+
+  /**
+   * Creates failed store details.
+   *
+   * @param appId the app ID that failed
+   * @param failure why the app failed
+   * @param message a description of the failure
+   */
+  public FailedStoreDetails(int appId, FetchFailure failure, String message) {
+    super(
+        appId,
+        "error",
+        "Failed to fetch details: " + message,
+        0,
+        false,
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        new StoreDetails.Platforms(false, false, false),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        new StoreDetails.ReleaseDate(false, "Unknown"),
+        Optional.empty(),
+        Optional.empty(),
+        false);
+    this.failure = failure;
+    this.message = message;
+  }
+
+  public FetchFailure getFailure() {
+    return failure;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  @Override
+  JSONObject toJson(Set<StoreDetailsSection> sections) {
+    return super.toJson(sections).put("failure", failure.getKey()).put("error", message);
+  }
+
+  /** Serializes only what the constructor needs, like the other store details classes. */
+  @Serial
+  private Object writeReplace() {
+    return new Serialized(getAppId(), failure, message);
+  }
+
+  private record Serialized(int appId, FetchFailure failure, String message)
+      implements Serializable {
+    @Serial
+    private Object readResolve() {
+      return new FailedStoreDetails(appId, failure, message);
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package net.experimentalworks;
+
+/** Why store data for an app could not be returned. */
+public enum FetchFailure {
+  /**
+   * The store answered, but has no data for the app in the requested region (success=false). This
+   * answer is cached for a while; every other failure is retried on the next request.
+   */
+  UNAVAILABLE("unavailable"),
+  /** The app ID is not in the Steam app list, so no request was sent. */
+  NOT_FOUND("not_found"),
+  /** The request failed or the store answered with an error. */
+  HTTP_ERROR("http_error"),
+  /** The response could not be parsed. */
+  PARSE_ERROR("parse_error"),
+  /** The call's deadline passed before a response arrived; the request was cancelled. */
+  TIMED_OUT("timed_out"),
+  /** The upstream has been failing and its circuit breaker is open, so no request was sent. */
+  CIRCUIT_OPEN("circuit_open");
+
+  private final String key;
+
+  FetchFailure(String key) {
+    this.key = key;
+  }
+
+  /** Returns the value reported in the failure field of a response. */
+  public String getKey() {
+    return key;
+  }
+}
@@ -7,23 +7,40 @@ public class Game implements Serializable {
 
   private static final long serialVersionUID = 1L;
 
-  private long appId;
-  private String name;
-  private float playtimeForever;
-  private Optional<Float> playtime2weeks;
+  /** Writes a game with the field names of the bean properties; absent values are omitted. */
+  public static final JsonSerializer<Game> SERIALIZER =
+      (json, game) -> {
+        json.beginObject()
+            .name("appId")
+            .value(game.appId)
+            .name("name")
+            .value(game.name)
+            .name("playtimeForever")
+            .value(game.playtimeForever);
+        if (!Float.isNaN(game.playtime2weeks)) {
+          json.name("playtime2weeks").value(game.playtime2weeks);
+        }
+        json.endObject();
+      };
+
+  private final long appId;
+  private final String name;
+  private final float playtimeForever;
+  // NaN when the two-week playtime is unknown
+  private final float playtime2weeks;
 
   public Game(long appId, String name, float playtimeForever) {
     this.appId = appId;
     this.name = name;
     this.playtimeForever = playtimeForever;
-    this.playtime2weeks = Optional.empty();
+    this.playtime2weeks = Float.NaN;
   }
 
   public Game(long appId, String name, float playtimeForever, float playtime2weeks) {
     this.appId = appId;
     this.name = name;
     this.playtimeForever = playtimeForever;
-    this.playtime2weeks = Optional.of(playtime2weeks);
+    this.playtime2weeks = playtime2weeks;
   }
 
   public long getAppId() {
@@ -39,6 +56,6 @@ public class Game implements Serializable {
   }
 
   public Optional<Float> getPlaytime2weeks() {
-    return playtime2weeks;
+    return Float.isNaN(playtime2weeks) ? Optional.empty() : Optional.of(playtime2weeks);
   }
 }
@@ -0,0 +1,160 @@
+package net.experimentalworks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.json.JSONException;
+import org.json.JSONTokener;
+
+/**
+ * Locates the members of a JSON object inside UTF-8 bytes without building a DOM.
+ *
+ * <p>Member values are skipped rather than parsed: strings are scanned for their closing quote and
+ * nested objects and arrays only have their brackets counted. Indexing a large appdetails payload
+ * therefore costs a single pass over the bytes and no allocation per nested value.
+ */
+final class JsonSections {
+
+  /**
+   * A member of a scanned object.
+   *
+   * @param key the member name
+   * @param start offset of the first byte of the raw value
+   * @param end offset just past the last byte of the raw value
+   */
+  record Member(String key, int start, int end) {
+    int length() {
+      return end - start;
+    }
+  }
+
+  private JsonSections() {}
+
+  /**
+   * Lists the members of the object spanning {@code [start, end)}.
+   *
+   * @throws JSONException if the bytes are not a well-formed JSON object
+   */
+  static List<Member> members(byte[] json, int start, int end) {
+    List<Member> members = new ArrayList<>();
+    int i = skipWhitespace(json, start, end);
+    expect(json, i, end, '{');
+    i = skipWhitespace(json, i + 1, end);
+    if (i < end && json[i] == '}') {
+      return members;
+    }
+    while (true) {
+      expect(json, i, end, '"');
+      int keyEnd = skipString(json, i, end);
+      String key = decodeString(json, i, keyEnd);
+      i = skipWhitespace(json, keyEnd, end);
+      expect(json, i, end, ':');
+      int valueStart = skipWhitespace(json, i + 1, end);
+      int valueEnd = skipValue(json, valueStart, end);
+      members.add(new Member(key, valueStart, valueEnd));
+      i = skipWhitespace(json, valueEnd, end);
+      if (i < end && json[i] == ',') {
+        i = skipWhitespace(json, i + 1, end);
+        continue;
+      }
+      expect(json, i, end, '}');
+      return members;
+    }
+  }
+
+  /** Finds a member of the object spanning {@code [start, end)} by name. */
+  static Optional<Member> find(byte[] json, int start, int end, String key) {
+    return members(json, start, end).stream().filter(m -> m.key().equals(key)).findFirst();
+  }
+
+  /** Returns the raw JSON text of a member value. */
+  static String text(byte[] json, Member member) {
+    return new String(json, member.start(), member.length(), StandardCharsets.UTF_8);
+  }
+
+  private static int skipValue(byte[] json, int i, int end) {
+    if (i >= end) {
+      throw new JSONException("Missing value at offset " + i);
+    }
+    return switch (json[i]) {
+      case '"' -> skipString(json, i, end);
+      case '{', '[' -> skipNested(json, i, end);
+      default -> skipLiteral(json, i, end);
+    };
+  }
+
+  private static int skipString(byte[] json, int i, int end) {
+    for (int pos = i + 1; pos < end; pos++) {
+      if (json[pos] == '\\') {
+        pos++;
+      } else if (json[pos] == '"') {
+        return pos + 1;
+      }
+    }
+    throw new JSONException("Unterminated string at offset " + i);
+  }
+
+  private static int skipNested(byte[] json, int i, int end) {
+    int depth = 0;
+    int pos = i;
+    while (pos < end) {
+      byte b = json[pos];
+      if (b == '"') {
+        pos = skipString(json, pos, end);
+        continue;
+      }
+      if (b == '{' || b == '[') {
+        depth++;
+      } else if (b == '}' || b == ']') {
+        depth--;
+        if (depth == 0) {
+          return pos + 1;
+        }
+      }
+      pos++;
+    }
+    throw new JSONException("Unterminated object or array at offset " + i);
+  }
+
+  private static int skipLiteral(byte[] json, int i, int end) {
+    int pos = i;
+    while (pos < end && !isDelimiter(json[pos])) {
+      pos++;
+    }
+    if (pos == i) {
+      throw new JSONException("Unexpected character '" + (char) json[i] + "' at offset " + i);
+    }
+    return pos;
+  }
+
+  private static int skipWhitespace(byte[] json, int i, int end) {
+    while (i < end && isWhitespace(json[i])) {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isDelimiter(byte b) {
+    return b == ',' || b == '}' || b == ']' || isWhitespace(b);
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+  }
+
+  private static void expect(byte[] json, int i, int end, char expected) {
+    if (i >= end || json[i] != expected) {
+      throw new JSONException("Expected '" + expected + "' at offset " + i);
+    }
+  }
+
+  private static String decodeString(byte[] json, int start, int end) {
+    String raw = new String(json, start, end - start, StandardCharsets.UTF_8);
+    if (raw.indexOf('\\') < 0) {
+      return raw.substring(1, raw.length() - 1);
+    }
+    return (String) new JSONTokener(raw).nextValue();
+  }
+}
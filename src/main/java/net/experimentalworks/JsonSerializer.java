@@ -0,0 +1,36 @@
+package net.experimentalworks;
+
+/**
+ * Writes a model object to a {@link JsonWriter}.
+ *
+ * <p>Models expose their serializer as a constant that writes each field explicitly, so responses
+ * are produced without org.json inspecting bean getters through reflection.
+ *
+ * @param <T> the model type
+ */
+@FunctionalInterface
+public interface JsonSerializer<T> {
+
+  /**
+   * Writes one value.
+   *
+   * @param json the writer to append to
+   * @param value the value to write
+   */
+  void write(JsonWriter json, T value);
+
+  /**
+   * Writes values as a JSON array.
+   *
+   * @param json the writer to append to
+   * @param values the values to write
+   * @return the writer
+   */
+  default JsonWriter writeArray(JsonWriter json, Iterable<? extends T> values) {
+    json.beginArray();
+    for (T value : values) {
+      write(json, value);
+    }
+    return json.endArray();
+  }
+}
@@ -0,0 +1,252 @@
+package net.experimentalworks;
+
+import java.util.Arrays;
+
+import org.json.JSONObject;
+import org.json.JSONString;
+
+/**
+ * Streaming JSON writer for tool responses.
+ *
+ * <p>Values are appended to a single character buffer as they are written, so a response is built
+ * without an intermediate JSONObject tree and copied only once, when {@link #finish()} turns it
+ * into the text of a TextContent. Strings are escaped in one pass that copies unescaped runs in
+ * bulk.
+ *
+ * <p>Each thread has a {@link #reusable()} writer whose buffer is kept between responses, up to
+ * {@link #MAX_RETAINED_CAPACITY} characters. Writers are not thread-safe.
+ */
+public final class JsonWriter {
+  /** Buffers that grew beyond this many characters are released after a response. */
+  static final int MAX_RETAINED_CAPACITY = 1 << 20;
+
+  private static final int INITIAL_CAPACITY = 8 << 10;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private static final ThreadLocal<JsonWriter> REUSABLE = ThreadLocal.withInitial(JsonWriter::new);
+
+  private StringBuilder out = new StringBuilder(INITIAL_CAPACITY);
+  // Per open container: whether a value has been written to it yet
+  private boolean[] hasValues = new boolean[16];
+  private int depth;
+  private boolean afterName;
+
+  /** Creates a writer with its own buffer. */
+  public JsonWriter() {}
+
+  /**
+   * Returns the calling thread's writer, emptied of any unfinished output.
+   *
+   * @return the reusable writer of this thread
+   */
+  public static JsonWriter reusable() {
+    JsonWriter writer = REUSABLE.get();
+    writer.reset();
+    return writer;
+  }
+
+  public JsonWriter beginObject() {
+    return open('{');
+  }
+
+  public JsonWriter endObject() {
+    return close('}');
+  }
+
+  public JsonWriter beginArray() {
+    return open('[');
+  }
+
+  public JsonWriter endArray() {
+    return close(']');
+  }
+
+  /**
+   * Writes the name of the next member of the current object.
+   *
+   * @param name the member name
+   * @return this writer
+   */
+  public JsonWriter name(String name) {
+    if (afterName || depth == 0) {
+      throw new IllegalStateException("Member name outside of an object: " + name);
+    }
+    separate();
+    writeString(name);
+    out.append(':');
+    afterName = true;
+    return this;
+  }
+
+  /** Writes a string value, or null. */
+  public JsonWriter value(String value) {
+    if (value == null) {
+      return nullValue();
+    }
+    beforeValue();
+    writeString(value);
+    return this;
+  }
+
+  /**
+   * Writes part of a string as a string value, without copying the part out first.
+   *
+   * @param value the string holding the value
+   * @param start index of the first character
+   * @param end index after the last character
+   * @return this writer
+   */
+  public JsonWriter value(String value, int start, int end) {
+    beforeValue();
+    writeString(value, start, end);
+    return this;
+  }
+
+  public JsonWriter value(long value) {
+    beforeValue();
+    out.append(value);
+    return this;
+  }
+
+  /**
+   * Writes a number the way org.json does, so integral floating point values lose their fraction.
+   *
+   * @param value the number, or null
+   * @return this writer
+   * @throws org.json.JSONException if the number is not finite
+   */
+  public JsonWriter value(Number value) {
+    if (value == null) {
+      return nullValue();
+    }
+    beforeValue();
+    out.append(JSONObject.numberToString(value));
+    return this;
+  }
+
+  public JsonWriter value(boolean value) {
+    beforeValue();
+    out.append(value);
+    return this;
+  }
+
+  /** Writes a value that serializes itself, such as a memoized {@link RawJson} fragment. */
+  public JsonWriter value(JSONString value) {
+    return rawValue(value.toJSONString());
+  }
+
+  /** Writes an object that is still built as an org.json tree. */
+  public JsonWriter value(JSONObject value) {
+    return rawValue(value.toString());
+  }
+
+  public JsonWriter nullValue() {
+    return rawValue("null");
+  }
+
+  /**
+   * Writes pre-serialized JSON as is.
+   *
+   * @param json well-formed JSON text
+   * @return this writer
+   */
+  public JsonWriter rawValue(String json) {
+    beforeValue();
+    out.append(json);
+    return this;
+  }
+
+  /**
+   * Returns the written JSON and empties the writer for the next response.
+   *
+   * @return the JSON text
+   * @throws IllegalStateException if an object or array is still open
+   */
+  public String finish() {
+    if (depth != 0 || afterName) {
+      throw new IllegalStateException("Unterminated JSON: " + depth + " open containers");
+    }
+    String json = out.toString();
+    reset();
+    return json;
+  }
+
+  private void reset() {
+    if (out.capacity() > MAX_RETAINED_CAPACITY) {
+      out = new StringBuilder(INITIAL_CAPACITY);
+    } else {
+      out.setLength(0);
+    }
+    depth = 0;
+    afterName = false;
+  }
+
+  private JsonWriter open(char bracket) {
+    beforeValue();
+    out.append(bracket);
+    if (depth == hasValues.length) {
+      hasValues = Arrays.copyOf(hasValues, depth * 2);
+    }
+    hasValues[depth++] = false;
+    return this;
+  }
+
+  private JsonWriter close(char bracket) {
+    if (depth == 0 || afterName) {
+      throw new IllegalStateException("Nothing to close with " + bracket);
+    }
+    depth--;
+    out.append(bracket);
+    return this;
+  }
+
+  private void beforeValue() {
+    if (afterName) {
+      afterName = false;
+    } else {
+      separate();
+    }
+  }
+
+  private void separate() {
+    if (depth > 0) {
+      if (hasValues[depth - 1]) {
+        out.append(',');
+      }
+      hasValues[depth - 1] = true;
+    }
+  }
+
+  private void writeString(String value) {
+    writeString(value, 0, value.length());
+  }
+
+  private void writeString(String value, int start, int end) {
+    out.append('"');
+    int run = start;
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      if (c >= 0x20 && c != '"' && c != '\\') {
+        continue;
+      }
+      out.append(value, run, i);
+      run = i + 1;
+      switch (c) {
+        case '"' -> out.append("\\\"");
+        case '\\' -> out.append("\\\\");
+        case '\n' -> out.append("\\n");
+        case '\r' -> out.append("\\r");
+        case '\t' -> out.append("\\t");
+        case '\b' -> out.append("\\b");
+        case '\f' -> out.append("\\f");
+        default ->
+            out.append("\\u")
+                .append(HEX[c >> 12])
+                .append(HEX[(c >> 8) & 0xf])
+                .append(HEX[(c >> 4) & 0xf])
+                .append(HEX[c & 0xf]);
+      }
+    }
+    out.append(value, run, end);
+    out.append('"');
+  }
+}
@@ -0,0 +1,85 @@
+package net.experimentalworks;
+
+import java.util.List;
+
+/**
+ * Immutable set of the app IDs in a snapshot of the Steam app list.
+ *
+ * <p>App IDs are small, dense integers, so the set is a bitset indexed by app ID: about 500 KiB for
+ * the whole catalog, and a lookup is a single array access. IDs above the largest one in the
+ * snapshot are treated as possibly valid, since they may belong to apps released after the
+ * snapshot was taken.
+ */
+public final class KnownAppIds {
+  /** Snapshot of an app list that has not been loaded yet; every app ID might exist. */
+  public static final KnownAppIds NONE = new KnownAppIds(new long[0], -1, 0);
+
+  private final long[] bits;
+  private final int maxAppId;
+  private final int count;
+
+  private KnownAppIds(long[] bits, int maxAppId, int count) {
+    this.bits = bits;
+    this.maxAppId = maxAppId;
+    this.count = count;
+  }
+
+  /**
+   * Builds the set from an app list.
+   *
+   * @param apps the apps of the catalog snapshot
+   * @return the set of their app IDs
+   */
+  public static KnownAppIds of(List<AppInfo> apps) {
+    int maxAppId = -1;
+    for (AppInfo app : apps) {
+      maxAppId = Math.max(maxAppId, app.appId());
+    }
+    long[] bits = new long[(maxAppId >> 6) + 1];
+    int count = 0;
+    for (AppInfo app : apps) {
+      int appId = app.appId();
+      if (appId < 0) {
+        continue;
+      }
+      long mask = 1L << appId;
+      if ((bits[appId >> 6] & mask) == 0) {
+        bits[appId >> 6] |= mask;
+        count++;
+      }
+    }
+    return new KnownAppIds(bits, maxAppId, count);
+  }
+
+  /**
+   * Checks whether an app ID can be valid.
+   *
+   * @param appId the Steam app ID
+   * @return true if the ID is in the snapshot or newer than it; false if the store is known not to
+   *     have the app
+   */
+  public boolean mightExist(int appId) {
+    if (appId > maxAppId) {
+      return true;
+    }
+    return appId >= 0 && (bits[appId >> 6] & (1L << appId)) != 0;
+  }
+
+  /** Returns the number of app IDs in the snapshot. */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Gets set statistics for debugging/monitoring.
+   *
+   * @return string with the number of IDs, the largest ID and the memory used
+   */
+  public String getInfo() {
+    if (maxAppId < 0) {
+      return "Known app IDs: not loaded";
+    }
+    return String.format(
+        "Known app IDs: %d up to %d, %d KiB", count, maxAppId, (long) bits.length * 8 / 1024);
+  }
+}
@@ -0,0 +1,57 @@
+package net.experimentalworks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Latencies of the most recent requests, from which percentiles are computed on demand.
+ *
+ * <p>Samples are kept in a fixed-size ring, so percentiles follow changes in store latency
+ * within a few hundred requests. Thread-safe.
+ */
+final class LatencyTracker {
+  /** Number of recent samples kept. */
+  static final int CAPACITY = 256;
+
+  /** Percentiles are only reported once this many samples were recorded. */
+  static final int MIN_SAMPLES = 20;
+
+  private final long[] samples = new long[CAPACITY];
+  private int next;
+  private int count;
+
+  /**
+   * Records the latency of a completed request.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  synchronized void record(long nanos) {
+    samples[next] = nanos;
+    next = (next + 1) % CAPACITY;
+    count = Math.min(count + 1, CAPACITY);
+  }
+
+  /**
+   * Computes a percentile of the recent latencies.
+   *
+   * @param percentile the percentile between 0 and 1, e.g. 0.95
+   * @return the latency, or empty if fewer than {@link #MIN_SAMPLES} were recorded
+   */
+  Optional<Duration> percentile(double percentile) {
+    long[] sorted;
+    synchronized (this) {
+      if (count < MIN_SAMPLES) {
+        return Optional.empty();
+      }
+      sorted = Arrays.copyOf(samples, count);
+    }
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return Optional.of(Duration.ofNanos(sorted[Math.max(0, Math.min(index, sorted.length - 1))]));
+  }
+
+  synchronized int size() {
+    return count;
+  }
+}
@@ -0,0 +1,318 @@
+package net.experimentalworks;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * StoreDetails backed by the raw UTF-8 bytes of an appdetails data object.
+ *
+ * <p>Construction only indexes where each top-level section starts and ends. A section is parsed
+ * the first time one of its getters is called and the result is kept for later calls. {@link
+ * #toJson()} copies sections that were never materialized straight from the raw bytes, so large
+ * HTML descriptions or screenshot lists are neither unescaped into Java objects nor escaped again
+ * on the way out.
+ *
+ * <p>A section whose raw JSON cannot be parsed is reported as absent rather than failing the whole
+ * response.
+ */
+public class LazyStoreDetails extends StoreDetails {
+  private static final long serialVersionUID = 2L;
+
+  private static final StoreDetailsSection[] SECTIONS = StoreDetailsSection.all();
+
+  private final byte[] raw;
+  // Start and end offset per section, -1 if the section is absent
+  private final int[] spans;
+  private final AtomicReferenceArray<Object> materialized;
+
+  /**
+   * Indexes the sections of a data object.
+   *
+   * @param appId the Steam app ID the data belongs to
+   * @param data UTF-8 bytes of the data object of a successful appdetails response
+   * @throws JSONException if the data is not a well-formed JSON object
+   */
+  public LazyStoreDetails(int appId, byte[] data) {
+    super(appId, true);
+    this.raw = data;
+    this.spans = new int[SECTIONS.length * 2];
+    this.materialized = new AtomicReferenceArray<>(SECTIONS.length);
+    Arrays.fill(spans, -1);
+    for (JsonSections.Member member : JsonSections.members(data, 0, data.length)) {
+      StoreDetailsSection section = StoreDetailsSection.forKey(member.key());
+      if (section != null) {
+        spans[section.ordinal() * 2] = member.start();
+        spans[section.ordinal() * 2 + 1] = member.end();
+      }
+    }
+  }
+
+  /**
+   * Extracts the data object of an appdetails response without parsing its sections.
+   *
+   * @param appId the requested Steam app ID
+   * @param responseBody the JSON response body
+   * @return lazily materialized details, or empty if the store reported success=false
+   * @throws JSONException if the response is malformed or does not contain the app
+   */
+  public static Optional<LazyStoreDetails> fromResponse(int appId, String responseBody) {
+    byte[] body = responseBody.getBytes(StandardCharsets.UTF_8);
+    JsonSections.Member app =
+        JsonSections.find(body, 0, body.length, String.valueOf(appId))
+            .orElseThrow(() -> new JSONException("JSONObject[\"" + appId + "\"] not found."));
+
+    boolean success =
+        JsonSections.find(body, app.start(), app.end(), "success")
+            .map(member -> JsonSections.text(body, member).equals("true"))
+            .orElse(false);
+    if (!success) {
+      return Optional.empty();
+    }
+
+    JsonSections.Member data =
+        JsonSections.find(body, app.start(), app.end(), "data")
+            .orElseThrow(() -> new JSONException("JSONObject[\"data\"] not found."));
+    return Optional.of(
+        new LazyStoreDetails(appId, Arrays.copyOfRange(body, data.start(), data.end())));
+  }
+
+  /** Serializes only the raw bytes; materialized sections are parsed again after reading. */
+  @Serial
+  private Object writeReplace() {
+    return new Serialized(getAppId(), raw);
+  }
+
+  private record Serialized(int appId, byte[] raw) implements Serializable {
+    @Serial
+    private Object readResolve() {
+      return new LazyStoreDetails(appId, raw);
+    }
+  }
+
+  /** Returns the number of raw bytes retained by this instance. */
+  public int getRawSize() {
+    return raw.length;
+  }
+
+  /** Returns whether the given section has been parsed already (primarily for testing). */
+  boolean isMaterialized(StoreDetailsSection section) {
+    return materialized.get(section.ordinal()) != null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T section(StoreDetailsSection section) {
+    Object value = materialized.get(section.ordinal());
+    if (value == null) {
+      value = materialize(section);
+      // Parsing is idempotent, so a racing thread may overwrite this with an equal value
+      materialized.set(section.ordinal(), value);
+    }
+    return (T) value;
+  }
+
+  private Object materialize(StoreDetailsSection section) {
+    JSONObject single = new JSONObject();
+    int start = spans[section.ordinal() * 2];
+    if (start >= 0) {
+      try {
+        single.put(section.key(), new JSONTokener(rawText(section)).nextValue());
+        return section.parse(single);
+      } catch (JSONException e) {
+        single = new JSONObject();
+      }
+    }
+    return section.parse(single);
+  }
+
+  private String rawText(StoreDetailsSection section) {
+    int start = spans[section.ordinal() * 2];
+    int end = spans[section.ordinal() * 2 + 1];
+    return new String(raw, start, end - start, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public String getType() {
+    return section(StoreDetailsSection.TYPE);
+  }
+
+  @Override
+  public String getName() {
+    return section(StoreDetailsSection.NAME);
+  }
+
+  @Override
+  public int getRequiredAge() {
+    return this.<Integer>section(StoreDetailsSection.REQUIRED_AGE);
+  }
+
+  @Override
+  public boolean isFree() {
+    return this.<Boolean>section(StoreDetailsSection.IS_FREE);
+  }
+
+  @Override
+  public Optional<String> getControllerSupport() {
+    return section(StoreDetailsSection.CONTROLLER_SUPPORT);
+  }
+
+  @Override
+  public Optional<List<Integer>> getDlc() {
+    return section(StoreDetailsSection.DLC);
+  }
+
+  @Override
+  public Optional<String> getDetailedDescription() {
+    return section(StoreDetailsSection.DETAILED_DESCRIPTION);
+  }
+
+  @Override
+  public Optional<String> getAboutTheGame() {
+    return section(StoreDetailsSection.ABOUT_THE_GAME);
+  }
+
+  @Override
+  public Optional<String> getShortDescription() {
+    return section(StoreDetailsSection.SHORT_DESCRIPTION);
+  }
+
+  @Override
+  public Optional<PriceOverview> getPriceOverview() {
+    return section(StoreDetailsSection.PRICE_OVERVIEW);
+  }
+
+  @Override
+  public Optional<String> getHeaderImage() {
+    return section(StoreDetailsSection.HEADER_IMAGE);
+  }
+
+  @Override
+  public Optional<List<Screenshot>> getScreenshots() {
+    return section(StoreDetailsSection.SCREENSHOTS);
+  }
+
+  @Override
+  public Optional<List<Movie>> getMovies() {
+    return section(StoreDetailsSection.MOVIES);
+  }
+
+  @Override
+  public Optional<List<Category>> getCategories() {
+    return section(StoreDetailsSection.CATEGORIES);
+  }
+
+  @Override
+  public Optional<List<Genre>> getGenres() {
+    return section(StoreDetailsSection.GENRES);
+  }
+
+  @Override
+  public Optional<List<String>> getDevelopers() {
+    return section(StoreDetailsSection.DEVELOPERS);
+  }
+
+  @Override
+  public Optional<List<String>> getPublishers() {
+    return section(StoreDetailsSection.PUBLISHERS);
+  }
+
+  @Override
+  public Optional<String> getSupportedLanguages() {
+    return section(StoreDetailsSection.SUPPORTED_LANGUAGES);
+  }
+
+  @Override
+  public Platforms getPlatforms() {
+    return section(StoreDetailsSection.PLATFORMS);
+  }
+
+  @Override
+  public Optional<Requirements> getPcRequirements() {
+    return section(StoreDetailsSection.PC_REQUIREMENTS);
+  }
+
+  @Override
+  public Optional<Requirements> getMacRequirements() {
+    return section(StoreDetailsSection.MAC_REQUIREMENTS);
+  }
+
+  @Override
+  public Optional<Requirements> getLinuxRequirements() {
+    return section(StoreDetailsSection.LINUX_REQUIREMENTS);
+  }
+
+  @Override
+  public Optional<Metacritic> getMetacritic() {
+    return section(StoreDetailsSection.METACRITIC);
+  }
+
+  @Override
+  public Optional<Recommendations> getRecommendations() {
+    return section(StoreDetailsSection.RECOMMENDATIONS);
+  }
+
+  @Override
+  public Optional<Achievements> getAchievements() {
+    return section(StoreDetailsSection.ACHIEVEMENTS);
+  }
+
+  @Override
+  public ReleaseDate getReleaseDate() {
+    return section(StoreDetailsSection.RELEASE_DATE);
+  }
+
+  @Override
+  public Optional<String> getWebsite() {
+    return section(StoreDetailsSection.WEBSITE);
+  }
+
+  @Override
+  public Optional<String> getLegalNotice() {
+    return section(StoreDetailsSection.LEGAL_NOTICE);
+  }
+
+  /**
+   * Converts these details to a JSONObject. Sections that were not materialized yet are copied
+   * from the raw bytes without being parsed.
+   */
+  @Override
+  JSONObject toJson(Set<StoreDetailsSection> sections) {
+    JSONObject json = new JSONObject();
+    json.put("app_id", getAppId());
+    json.put("success", isSuccess());
+    for (StoreDetailsSection section : SECTIONS) {
+      if (!sections.contains(section)) {
+        continue;
+      }
+      if (section.isSpliceable() && !isMaterialized(section) && isSpliceable(section)) {
+        json.put(section.key(), new RawJson(rawText(section)));
+      } else {
+        section.write(this, json);
+      }
+    }
+    return json;
+  }
+
+  /**
+   * Only structured, non-empty values are copied verbatim. Absent, null and empty values go
+   * through the section writer, which omits them or writes the default just like eager details.
+   */
+  private boolean isSpliceable(StoreDetailsSection section) {
+    int start = spans[section.ordinal() * 2];
+    if (start < 0) {
+      return false;
+    }
+    int length = spans[section.ordinal() * 2 + 1] - start;
+    byte first = raw[start];
+    return (first == '"' || first == '[' || first == '{') && length > 2;
+  }
+}
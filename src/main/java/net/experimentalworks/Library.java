@@ -0,0 +1,396 @@
+package net.experimentalworks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Immutable, column-oriented list of games in a Steam library.
+ *
+ * <p>Instead of one object per game, app IDs and playtimes are held in parallel {@code int} arrays
+ * and all names share a single string arena addressed by offsets, so a library of thousands of
+ * games takes a handful of objects. Handlers and analytics read the columns by index; {@link
+ * #writeArray(JsonWriter)} streams the library as JSON without materializing any {@link Game}.
+ */
+public final class Library {
+  /** Playtime column value of games without a known two-week playtime. */
+  static final int NO_PLAYTIME = -1;
+
+  private static final Library EMPTY = new Builder(0).build();
+
+  /** Orders a library can be sorted in. */
+  public enum SortKey {
+    /** Most played first. */
+    PLAYTIME("playtime"),
+    /** Alphabetically, ignoring case. */
+    NAME("name"),
+    /** Ascending app ID. */
+    APP_ID("appId");
+
+    private final String argument;
+
+    SortKey(String argument) {
+      this.argument = argument;
+    }
+
+    /**
+     * Resolves the value of a sortBy argument.
+     *
+     * @param argument playtime, name or appId
+     * @return the sort key
+     * @throws IllegalArgumentException if the argument names no sort key
+     */
+    public static SortKey fromArgument(String argument) {
+      for (SortKey key : values()) {
+        if (key.argument.equals(argument)) {
+          return key;
+        }
+      }
+      throw new IllegalArgumentException(
+          "sortBy must be one of playtime, name or appId, got: " + argument);
+    }
+  }
+
+  /**
+   * The games of a library that match a query, restricted to one page.
+   *
+   * @param indices library indices of the games on the page, in result order
+   * @param total number of matching games across all pages
+   */
+  public record Page(int[] indices, int total) {}
+
+  private final int size;
+  private final int[] appIds;
+  private final int[] playtimeForever;
+  private final int[] playtime2weeks;
+  private final String names;
+  // Start offset of each name in names, followed by the arena length
+  private final int[] nameOffsets;
+  // Sorted index per SortKey, computed on first use
+  private final AtomicReferenceArray<int[]> orders =
+      new AtomicReferenceArray<>(SortKey.values().length);
+
+  private Library(Builder builder) {
+    this.size = builder.size;
+    this.appIds = Arrays.copyOf(builder.appIds, size);
+    this.playtimeForever = Arrays.copyOf(builder.playtimeForever, size);
+    this.playtime2weeks = Arrays.copyOf(builder.playtime2weeks, size);
+    this.names = builder.names.toString();
+    this.nameOffsets = Arrays.copyOf(builder.nameOffsets, size + 1);
+    nameOffsets[size] = names.length();
+  }
+
+  public static Library empty() {
+    return EMPTY;
+  }
+
+  /** Returns the number of games. */
+  public int size() {
+    return size;
+  }
+
+  public int getAppId(int index) {
+    return appIds[checkIndex(index)];
+  }
+
+  public String getName(int index) {
+    checkIndex(index);
+    return names.substring(nameOffsets[index], nameOffsets[index + 1]);
+  }
+
+  /** Returns the total playtime of a game in minutes. */
+  public int getPlaytimeForever(int index) {
+    return playtimeForever[checkIndex(index)];
+  }
+
+  public boolean hasPlaytime2weeks(int index) {
+    return playtime2weeks[checkIndex(index)] != NO_PLAYTIME;
+  }
+
+  /**
+   * Returns the playtime of a game in the last two weeks in minutes.
+   *
+   * @param index the game index
+   * @return the playtime, or {@link #NO_PLAYTIME} if unknown
+   */
+  public int getPlaytime2weeks(int index) {
+    return playtime2weeks[checkIndex(index)];
+  }
+
+  /** Returns the summed playtime of all games in minutes. */
+  public long getTotalPlaytime() {
+    long total = 0;
+    for (int i = 0; i < size; i++) {
+      total += playtimeForever[i];
+    }
+    return total;
+  }
+
+  /**
+   * Computes a 64-bit FNV-1a hash over the app ID and playtime columns, used to detect whether a
+   * refreshed library differs from a cached one. Names are not included.
+   *
+   * @return the hash value
+   */
+  public long contentHash() {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < size; i++) {
+      hash = (hash ^ appIds[i]) * 0x100000001b3L;
+      hash = (hash ^ playtimeForever[i]) * 0x100000001b3L;
+      hash = (hash ^ playtime2weeks[i]) * 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  /**
+   * Selects a page of games.
+   *
+   * <p>Sorting uses an index that is computed once per library and sort key, so the cost of a query
+   * beyond the first is a scan of the index plus writing the page.
+   *
+   * @param sortBy the order of the results, or null for library order
+   * @param minPlaytime minimum total playtime in minutes
+   * @param nameContains text the name must contain, ignoring case, or null for any name
+   * @param offset number of matching games to skip
+   * @param limit maximum number of games on the page
+   * @return the page
+   */
+  public Page select(SortKey sortBy, int minPlaytime, String nameContains, int offset, int limit) {
+    int[] order = sortBy == null ? null : sortedBy(sortBy);
+    int[] page = new int[Math.max(0, Math.min(limit, size - offset))];
+    int total = 0;
+    int filled = 0;
+    for (int i = 0; i < size; i++) {
+      int index = order == null ? i : order[i];
+      if (playtimeForever[index] < minPlaytime
+          || (nameContains != null && !nameContains(index, nameContains))) {
+        continue;
+      }
+      if (total >= offset && filled < page.length) {
+        page[filled++] = index;
+      }
+      total++;
+    }
+    return new Page(filled == page.length ? page : Arrays.copyOf(page, filled), total);
+  }
+
+  /**
+   * Writes the games of a page as a JSON array.
+   *
+   * @param json the writer to append to
+   * @param page a page selected from this library
+   * @return the writer
+   */
+  public JsonWriter writeArray(JsonWriter json, Page page) {
+    json.beginArray();
+    for (int index : page.indices()) {
+      write(json, index);
+    }
+    return json.endArray();
+  }
+
+  private boolean nameContains(int index, String text) {
+    int start = nameOffsets[index];
+    int last = nameOffsets[index + 1] - text.length();
+    for (int i = start; i <= last; i++) {
+      if (names.regionMatches(true, i, text, 0, text.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int[] sortedBy(SortKey key) {
+    int[] order = orders.get(key.ordinal());
+    if (order == null) {
+      // Concurrent first queries may both sort; either result is the same
+      order = sort(key);
+      orders.set(key.ordinal(), order);
+    }
+    return order;
+  }
+
+  private int[] sort(SortKey key) {
+    // App ID order is the tiebreak of the other keys, so they stably re-sort it
+    int[] byAppId = sortByAppId();
+    return switch (key) {
+      case APP_ID -> byAppId;
+      case PLAYTIME ->
+          stableSort(byAppId, (a, b) -> Integer.compare(playtimeForever[b], playtimeForever[a]));
+      case NAME -> {
+        String[] sortNames = new String[size];
+        Arrays.setAll(sortNames, this::getName);
+        yield stableSort(
+            byAppId, (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(sortNames[a], sortNames[b]));
+      }
+    };
+  }
+
+  /** Sorts indexes by app ID, packing each ID above its index so a primitive sort suffices. */
+  private int[] sortByAppId() {
+    long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = (long) appIds[i] << 32 | i;
+    }
+    Arrays.sort(keys);
+    int[] order = new int[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = (int) keys[i];
+    }
+    return order;
+  }
+
+  /**
+   * Merge sorts a copy of an index order, keeping the existing order of indexes that compare equal.
+   *
+   * @param order the indexes to sort
+   * @param comparator compares two indexes
+   * @return the sorted copy
+   */
+  private static int[] stableSort(int[] order, IntBinaryOperator comparator) {
+    int[] from = order.clone();
+    int[] to = new int[from.length];
+    for (int width = 1; width < from.length; width *= 2) {
+      for (int low = 0; low < from.length; low += 2 * width) {
+        int mid = Math.min(low + width, from.length);
+        int high = Math.min(low + 2 * width, from.length);
+        int left = low;
+        int right = mid;
+        for (int k = low; k < high; k++) {
+          if (right == high
+              || (left < mid && comparator.applyAsInt(from[left], from[right]) <= 0)) {
+            to[k] = from[left++];
+          } else {
+            to[k] = from[right++];
+          }
+        }
+      }
+      int[] sorted = to;
+      to = from;
+      from = sorted;
+    }
+    return from;
+  }
+
+  /**
+   * Materializes one game.
+   *
+   * @param index the game index
+   * @return the game
+   */
+  public Game get(int index) {
+    int appId = getAppId(index);
+    String name = getName(index);
+    return hasPlaytime2weeks(index)
+        ? new Game(appId, name, playtimeForever[index], playtime2weeks[index])
+        : new Game(appId, name, playtimeForever[index]);
+  }
+
+  /** Materializes all games, for callers that still work on {@link Game} objects. */
+  public List<Game> toGames() {
+    List<Game> games = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      games.add(get(i));
+    }
+    return games;
+  }
+
+  /**
+   * Writes one game with the same fields as {@link Game#SERIALIZER}.
+   *
+   * @param json the writer to append to
+   * @param index the game index
+   * @return the writer
+   */
+  public JsonWriter write(JsonWriter json, int index) {
+    checkIndex(index);
+    json.beginObject()
+        .name("appId")
+        .value(appIds[index])
+        .name("name")
+        .value(names, nameOffsets[index], nameOffsets[index + 1])
+        .name("playtimeForever")
+        .value(playtimeForever[index]);
+    if (playtime2weeks[index] != NO_PLAYTIME) {
+      json.name("playtime2weeks").value(playtime2weeks[index]);
+    }
+    return json.endObject();
+  }
+
+  /**
+   * Writes all games as a JSON array.
+   *
+   * @param json the writer to append to
+   * @return the writer
+   */
+  public JsonWriter writeArray(JsonWriter json) {
+    json.beginArray();
+    for (int i = 0; i < size; i++) {
+      write(json, i);
+    }
+    return json.endArray();
+  }
+
+  private int checkIndex(int index) {
+    return Objects.checkIndex(index, size);
+  }
+
+  /** Collects games into a library. Not thread-safe. */
+  public static final class Builder {
+    private int size;
+    private int[] appIds;
+    private int[] playtimeForever;
+    private int[] playtime2weeks;
+    private int[] nameOffsets;
+    private final StringBuilder names;
+
+    /**
+     * Creates a builder.
+     *
+     * @param expectedSize the expected number of games, used to size the columns
+     */
+    public Builder(int expectedSize) {
+      int capacity = Math.max(expectedSize, 1);
+      this.appIds = new int[capacity];
+      this.playtimeForever = new int[capacity];
+      this.playtime2weeks = new int[capacity];
+      this.nameOffsets = new int[capacity + 1];
+      this.names = new StringBuilder(capacity * 16);
+    }
+
+    /**
+     * Adds a game.
+     *
+     * @param appId the Steam app ID
+     * @param name the game name; null is stored as an empty name
+     * @param playtimeForever total playtime in minutes
+     * @param playtime2weeks playtime in the last two weeks in minutes, or {@link #NO_PLAYTIME}
+     * @return this builder
+     */
+    public Builder add(int appId, String name, int playtimeForever, int playtime2weeks) {
+      if (size == appIds.length) {
+        int capacity = size * 2;
+        appIds = Arrays.copyOf(appIds, capacity);
+        this.playtimeForever = Arrays.copyOf(this.playtimeForever, capacity);
+        this.playtime2weeks = Arrays.copyOf(this.playtime2weeks, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity + 1);
+      }
+      appIds[size] = appId;
+      this.playtimeForever[size] = playtimeForever;
+      this.playtime2weeks[size] = playtime2weeks;
+      nameOffsets[size] = names.length();
+      if (name != null) {
+        names.append(name);
+      }
+      size++;
+      return this;
+    }
+
+    public Library build() {
+      return new Library(this);
+    }
+  }
+}
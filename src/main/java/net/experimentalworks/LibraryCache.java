@@ -0,0 +1,149 @@
+package net.experimentalworks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Per-user cache of owned and recently played games.
+ *
+ * <p>Libraries are served from memory until their TTL elapses and then fetched again. Every fetch
+ * is compared with the previous one by a hash over the (app ID, playtime) columns: an unchanged
+ * library keeps its previous {@link Library} instance together with any sorted indexes built on it.
+ * The version consumers pass back to find out whether anything changed is derived from that hash
+ * rather than counted, so a version handed out before a restart still means the same games.
+ *
+ * <p>While the Web API's circuit breaker is open, expired libraries are served as they are instead
+ * of failing.
+ */
+public class LibraryCache {
+  static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+  /** Which list of a user's games is cached. */
+  public enum Kind {
+    OWNED,
+    RECENT
+  }
+
+  /**
+   * A cached library.
+   *
+   * @param library the games
+   * @param version positive number derived from the content hash, see {@link #versionOf(long)}
+   * @param contentHash hash of the app IDs and playtimes
+   * @param fetchedAt when the library was last fetched or confirmed unchanged
+   */
+  public record Snapshot(Library library, long version, long contentHash, Instant fetchedAt) {
+
+    /** Returns whether the library changed after the given version was served. */
+    public boolean changedSince(long version) {
+      return this.version != version;
+    }
+  }
+
+  private record Key(String steamId, Kind kind) {}
+
+  /**
+   * Derives a library version from its content hash.
+   *
+   * <p>The version only has the top 52 bits of the hash, so it stays exact in JSON clients that
+   * read numbers as doubles, and is never 0, which the tools use for "no version".
+   *
+   * @param contentHash the hash of the library's app IDs and playtimes
+   * @return the version
+   */
+  static long versionOf(long contentHash) {
+    return (contentHash >>> 12) + 1;
+  }
+
+  private final SteamGames steamGames;
+  private final Duration ttl;
+  private final Clock clock;
+  private final Map<Key, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder refreshes = new LongAdder();
+  private final LongAdder changes = new LongAdder();
+  private final LongAdder staleServed = new LongAdder();
+
+  public LibraryCache(SteamGames steamGames, Duration ttl) {
+    this(steamGames, ttl, Clock.systemUTC());
+  }
+
+  /**
+   * Creates a cache with an explicit clock (primarily for testing).
+   *
+   * @param steamGames the Web API client the libraries are fetched with
+   * @param ttl how long a library is served before it is fetched again
+   * @param clock clock used to expire libraries
+   */
+  public LibraryCache(SteamGames steamGames, Duration ttl, Clock clock) {
+    this.steamGames = steamGames;
+    this.ttl = ttl;
+    this.clock = clock;
+  }
+
+  /**
+   * Gets a user's library, fetching it if it is not cached or has expired.
+   *
+   * @param steamId the Steam user ID
+   * @param kind owned or recently played games
+   * @return Mono emitting the current snapshot, or failing with a SteamApiException if the library
+   *     had to be fetched and the API call failed; an expired snapshot while the Web API's circuit
+   *     is open
+   */
+  public Mono<Snapshot> get(String steamId, Kind kind) {
+    Key key = new Key(steamId, kind);
+    Snapshot cached = snapshots.get(key);
+    if (cached != null && clock.instant().isBefore(cached.fetchedAt().plus(ttl))) {
+      hits.increment();
+      return Mono.just(cached);
+    }
+    if (cached != null && steamGames.getCircuitBreaker().isOpen()) {
+      staleServed.increment();
+      return Mono.just(cached);
+    }
+
+    // Concurrent refreshes of one user are rare and harmless, so fetches are not deduplicated
+    refreshes.increment();
+    Mono<Library> fetch =
+        kind == Kind.OWNED
+            ? steamGames.fetchLibrary(steamId)
+            : steamGames.fetchRecentLibrary(steamId);
+    return fetch.map(library -> update(key, library));
+  }
+
+  private Snapshot update(Key key, Library library) {
+    Instant now = clock.instant();
+    long hash = library.contentHash();
+    return snapshots.compute(
+        key,
+        (k, previous) -> {
+          if (previous != null && previous.contentHash() == hash) {
+            return new Snapshot(previous.library(), previous.version(), hash, now);
+          }
+          if (previous != null) {
+            changes.increment();
+          }
+          return new Snapshot(library, versionOf(hash), hash, now);
+        });
+  }
+
+  /**
+   * Gets cache statistics for debugging/monitoring.
+   *
+   * @return string with the number of cached libraries, stale libraries served while the Web API
+   *     was failing, hits, refreshes and detected changes
+   */
+  public String getCacheInfo() {
+    return String.format(
+        "Library cache: %d libraries, ttl: %s, served stale: %d, hits: %d, refreshes: %d, "
+            + "changed: %d",
+        snapshots.size(), ttl, staleServed.sum(), hits.sum(), refreshes.sum(), changes.sum());
+  }
+}
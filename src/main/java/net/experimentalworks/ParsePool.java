@@ -0,0 +1,129 @@
+package net.experimentalworks;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded executor for parsing store responses off the HttpClient's threads.
+ *
+ * <p>Response bodies arrive on the HttpClient's executor, which also completes the network I/O of
+ * every other request in flight. Parsing a 100-app batch there would delay those completions, so
+ * parsing is handed to a pool with one thread per CPU core and a bounded queue. When the queue is
+ * full the submitting thread parses the response itself, which slows down accepting further
+ * responses instead of letting the queue grow without bound.
+ *
+ * <p>Idle threads exit after a while, so an unused pool holds no threads.
+ */
+public class ParsePool implements Executor {
+  /** Maximum number of responses waiting to be parsed before callers parse themselves. */
+  static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+  private static final long KEEP_ALIVE_SECONDS = 30;
+
+  private final ThreadPoolExecutor executor;
+  private final int queueCapacity;
+  private final LongAdder tasks = new LongAdder();
+  private final LongAdder parseNanos = new LongAdder();
+  private final LongAdder callerRuns = new LongAdder();
+  private final LongAccumulator peakQueueDepth = new LongAccumulator(Math::max, 0);
+
+  /** Creates a pool with one thread per available processor. */
+  public ParsePool() {
+    this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+  }
+
+  /**
+   * Creates a pool.
+   *
+   * @param threads the number of parser threads
+   * @param queueCapacity the number of tasks that may wait for a thread
+   */
+  public ParsePool(int threads, int queueCapacity) {
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.queueCapacity = queueCapacity;
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            task -> {
+              Thread thread = new Thread(task, "store-parse-" + threadNumber.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            (task, pool) -> {
+              callerRuns.increment();
+              if (!pool.isShutdown()) {
+                task.run();
+              }
+            });
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    executor.execute(
+        () -> {
+          tasks.increment();
+          long start = System.nanoTime();
+          try {
+            task.run();
+          } finally {
+            parseNanos.add(System.nanoTime() - start);
+          }
+        });
+    peakQueueDepth.accumulate(executor.getQueue().size());
+  }
+
+  /** Returns the number of tasks currently waiting for a parser thread. */
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  /** Returns the largest number of waiting tasks seen so far. */
+  public long getPeakQueueDepth() {
+    return peakQueueDepth.get();
+  }
+
+  /** Returns the number of tasks started, including those run by the caller. */
+  public long getTasks() {
+    return tasks.sum();
+  }
+
+  /** Returns the number of tasks the caller had to run because the queue was full. */
+  public long getCallerRuns() {
+    return callerRuns.sum();
+  }
+
+  /** Returns the summed run time of all tasks in nanoseconds. */
+  public long getParseNanos() {
+    return parseNanos.sum();
+  }
+
+  /**
+   * Gets pool statistics for debugging/monitoring.
+   *
+   * @return string with threads, queue depth and average parse time
+   */
+  public String getInfo() {
+    long parsed = tasks.sum();
+    return String.format(
+        "Parse pool: %d of %d threads, queue %d (peak %d of %d), parsed %d (avg %.1f µs), "
+            + "ran on caller %d",
+        executor.getPoolSize(),
+        executor.getMaximumPoolSize(),
+        getQueueDepth(),
+        getPeakQueueDepth(),
+        queueCapacity,
+        parsed,
+        parsed == 0 ? 0.0 : parseNanos.sum() / 1_000.0 / parsed,
+        callerRuns.sum());
+  }
+}
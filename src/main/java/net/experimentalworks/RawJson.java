@@ -0,0 +1,15 @@
+package net.experimentalworks;
+
+import org.json.JSONString;
+
+/**
+ * Raw JSON text that is written to the output as is.
+ *
+ * @param json well-formed JSON text
+ */
+record RawJson(String json) implements JSONString {
+  @Override
+  public String toJSONString() {
+    return json;
+  }
+}
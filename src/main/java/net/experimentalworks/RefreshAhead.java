@@ -0,0 +1,131 @@
+package net.experimentalworks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Decides which cached store details are refreshed in the background before they expire.
+ *
+ * <p>Cache hits are counted per entry. An entry read at least {@link #HOT_ACCESSES} times is hot;
+ * once a hot entry enters the last {@link #REFRESH_WINDOW} of its lifetime, the next hit starts a
+ * background refresh, so callers keep being served from the cache instead of waiting for the
+ * store when the entry would have expired. Every refresh has to be granted by the rate budget, and
+ * at most one refresh per entry is in flight.
+ *
+ * <p>The lifetime is measured from the first hit on an entry, which for hot entries closely
+ * follows the time it was stored.
+ */
+public class RefreshAhead {
+  /** Hits on an entry after which it is refreshed ahead of expiry. */
+  static final int HOT_ACCESSES = 4;
+
+  /** Fraction of an entry's lifetime before expiry in which it is refreshed. */
+  static final double REFRESH_WINDOW = 0.2;
+
+  /** Number of entries whose hits are tracked; the least recently hit are forgotten. */
+  static final int MAX_TRACKED = 1_000;
+
+  private static final class Tracker {
+    final Instant expiresAt;
+    final Instant firstHit;
+    int hits;
+    boolean refreshing;
+
+    Tracker(Instant expiresAt, Instant firstHit) {
+      this.expiresAt = expiresAt;
+      this.firstHit = firstHit;
+    }
+  }
+
+  private final Clock clock;
+  private final Map<StoreDetailsCache.Key, Tracker> trackers =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<StoreDetailsCache.Key, Tracker> eldest) {
+          return size() > MAX_TRACKED;
+        }
+      };
+  private long started;
+  private long skippedByBudget;
+  private long completed;
+  private long failed;
+
+  public RefreshAhead() {
+    this(Clock.systemUTC());
+  }
+
+  /**
+   * Creates a tracker with an explicit clock (primarily for testing).
+   *
+   * @param clock clock used to find entries near expiry
+   */
+  public RefreshAhead(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Records a cache hit and decides whether the entry should be refreshed now.
+   *
+   * @param key the cache key
+   * @param entry the fresh entry that was served
+   * @param budget grants the refresh request; only asked once the entry is due
+   * @return true if the caller must start a refresh and report it with {@link #finished}
+   */
+  public synchronized boolean onHit(
+      StoreDetailsCache.Key key, StoreDetailsCache.Entry entry, BooleanSupplier budget) {
+    Instant now = clock.instant();
+    Tracker tracker = trackers.get(key);
+    if (tracker == null || !tracker.expiresAt.equals(entry.expiresAt())) {
+      tracker = new Tracker(entry.expiresAt(), now);
+      trackers.put(key, tracker);
+    }
+    tracker.hits++;
+    if (tracker.refreshing || tracker.hits < HOT_ACCESSES) {
+      return false;
+    }
+    Duration lifetime = Duration.between(tracker.firstHit, tracker.expiresAt);
+    Instant due = tracker.expiresAt.minusNanos((long) (lifetime.toNanos() * REFRESH_WINDOW));
+    if (now.isBefore(due)) {
+      return false;
+    }
+    if (!budget.getAsBoolean()) {
+      skippedByBudget++;
+      return false;
+    }
+    tracker.refreshing = true;
+    started++;
+    return true;
+  }
+
+  /**
+   * Reports the end of a refresh started by {@link #onHit}.
+   *
+   * @param key the cache key
+   * @param success whether the entry was renewed or replaced
+   */
+  public synchronized void finished(StoreDetailsCache.Key key, boolean success) {
+    // A successful refresh gives the entry a new expiry, which starts a new tracker on its next hit
+    trackers.remove(key);
+    if (success) {
+      completed++;
+    } else {
+      failed++;
+    }
+  }
+
+  /**
+   * Gets refresh statistics for debugging/monitoring.
+   *
+   * @return string with tracked entries and refresh counts
+   */
+  public synchronized String getInfo() {
+    return String.format(
+        "Refresh-ahead: %d entries tracked, started %d, refreshed %d, failed %d, "
+            + "skipped by budget %d",
+        trackers.size(), started, completed, failed, skippedByBudget);
+  }
+}
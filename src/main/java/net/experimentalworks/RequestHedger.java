@@ -0,0 +1,201 @@
+package net.experimentalworks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Sends store requests, optionally hedging the slow ones.
+ *
+ * <p>The latency of every successful request is tracked. With hedging enabled, a request that has
+ * not been answered within the tracked {@link #DEFAULT_PERCENTILE} latency is sent a second time,
+ * and whichever response arrives first is used; the other request is cancelled. Hedges are only
+ * sent when the shared {@link StoreRateBudget} grants them, so they cannot push the client over
+ * the store's rate limit.
+ */
+public class RequestHedger {
+  /** Latency percentile after which a request is hedged. */
+  static final double DEFAULT_PERCENTILE = 0.95;
+
+  private final StoreRateBudget budget;
+  private final boolean enabled;
+  private final double percentile;
+  private final LatencyTracker latencies = new LatencyTracker();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder hedges = new LongAdder();
+  private final LongAdder hedgeWins = new LongAdder();
+  private final LongAdder denied = new LongAdder();
+
+  /**
+   * Creates a hedger that hedges at the {@link #DEFAULT_PERCENTILE} latency.
+   *
+   * @param budget the rate budget shared by all store requests
+   * @param enabled whether slow requests are hedged; if false, requests are only counted and timed
+   */
+  public RequestHedger(StoreRateBudget budget, boolean enabled) {
+    this(budget, enabled, DEFAULT_PERCENTILE);
+  }
+
+  /**
+   * Creates a hedger.
+   *
+   * @param budget the rate budget shared by all store requests
+   * @param enabled whether slow requests are hedged
+   * @param percentile the latency percentile after which a request is hedged, e.g. 0.95
+   */
+  public RequestHedger(StoreRateBudget budget, boolean enabled, double percentile) {
+    this.budget = budget;
+    this.enabled = enabled;
+    this.percentile = percentile;
+  }
+
+  /**
+   * Sends a request, and a hedge of it if it is slow.
+   *
+   * @param attempt sends the request once; called a second time for the hedge
+   * @return future completed by the first successful attempt, or with the last failure if all
+   *     attempts fail; cancelling it cancels the attempts
+   */
+  public <T> CompletableFuture<T> send(Supplier<CompletableFuture<T>> attempt) {
+    requests.increment();
+    budget.recordRequest();
+    Optional<Duration> threshold = enabled ? latencies.percentile(percentile) : Optional.empty();
+    if (threshold.isEmpty()) {
+      long start = System.nanoTime();
+      CompletableFuture<T> future = attempt.get();
+      // Return the attempt itself rather than a dependent stage, so cancelling it stops the request
+      future.whenComplete(
+          (response, error) -> {
+            if (error == null) {
+              latencies.record(System.nanoTime() - start);
+            }
+          });
+      return future;
+    }
+
+    CompletableFuture<T> result = new CompletableFuture<>();
+    // Attempts that may still succeed; a hedge is only sent while the primary is pending
+    AtomicInteger pending = new AtomicInteger(1);
+    List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+    AtomicBoolean answered = new AtomicBoolean();
+    start(attempt, result, pending, attempts, answered, false);
+    CompletableFuture.delayedExecutor(threshold.get().toNanos(), TimeUnit.NANOSECONDS)
+        .execute(
+            () -> {
+              if (result.isDone()) {
+                return;
+              }
+              if (!budget.tryAcquireHedge()) {
+                denied.increment();
+                return;
+              }
+              if (pending.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+                return;
+              }
+              hedges.increment();
+              start(attempt, result, pending, attempts, answered, true);
+            });
+    // Cancelling a completed future has no effect, so this only stops the loser
+    result.whenComplete((response, error) -> attempts.forEach(a -> a.cancel(true)));
+    return result;
+  }
+
+  /**
+   * Sends a request that is never hedged, counting it against the rate budget. Used for requests
+   * whose latency differs from single-app requests, such as price batches.
+   *
+   * @param attempt sends the request
+   * @return the response future
+   */
+  public <T> CompletableFuture<T> sendUnhedged(Supplier<CompletableFuture<T>> attempt) {
+    budget.recordRequest();
+    return attempt.get();
+  }
+
+  private <T> void start(
+      Supplier<CompletableFuture<T>> attempt,
+      CompletableFuture<T> result,
+      AtomicInteger pending,
+      List<CompletableFuture<T>> attempts,
+      AtomicBoolean answered,
+      boolean hedge) {
+    long start = System.nanoTime();
+    CompletableFuture<T> future = attempt.get();
+    attempts.add(future);
+    future.whenComplete(
+        (response, error) -> {
+          if (error == null) {
+            latencies.record(System.nanoTime() - start);
+            // Count the win before completing, so callers woken by the result see it
+            if (answered.compareAndSet(false, true)) {
+              if (hedge) {
+                hedgeWins.increment();
+              }
+              result.complete(response);
+            }
+          } else if (pending.decrementAndGet() == 0) {
+            result.completeExceptionally(error);
+          }
+        });
+    if (result.isDone()) {
+      future.cancel(true);
+    }
+  }
+
+  /** Returns the rate budget shared by all store requests. */
+  public StoreRateBudget getBudget() {
+    return budget;
+  }
+
+  /** Returns the number of hedgeable requests sent, not counting hedges. */
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  /** Returns the number of hedges sent. */
+  public long getHedges() {
+    return hedges.sum();
+  }
+
+  /** Returns the number of requests answered first by their hedge. */
+  public long getHedgeWins() {
+    return hedgeWins.sum();
+  }
+
+  /** Returns the number of hedges not sent because the rate budget was exhausted. */
+  public long getDenied() {
+    return denied.sum();
+  }
+
+  /**
+   * Gets hedging statistics for debugging/monitoring.
+   *
+   * @return string with the hedge threshold, hedge rate and hedge wins
+   */
+  public String getInfo() {
+    long sent = requests.sum();
+    long hedged = hedges.sum();
+    return String.format(
+        "Hedging: %s, p%.0f %s, requests %d, hedged %d (%.1f%%), hedge wins %d, "
+            + "denied by budget %d; %s",
+        enabled ? "on" : "off",
+        percentile * 100,
+        latencies
+            .percentile(percentile)
+            .map(d -> String.format("%.1f ms", d.toNanos() / 1_000_000.0))
+            .orElse("n/a"),
+        sent,
+        hedged,
+        sent == 0 ? 0.0 : hedged * 100.0 / sent,
+        hedgeWins.sum(),
+        denied.sum(),
+        budget.getInfo());
+  }
+}
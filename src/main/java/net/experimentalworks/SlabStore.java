@@ -0,0 +1,227 @@
+package net.experimentalworks;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Off-heap key-value store for encoded entries, backed by direct memory slabs.
+ *
+ * <p>Memory is reserved in slabs of {@link #SLAB_SIZE} bytes outside the Java heap, so stored
+ * entries add nothing to garbage collection work. Each slab is cut into equally sized chunks of a
+ * power-of-two size class, and an entry occupies one chunk of the smallest class it fits. Once the
+ * capacity is used up, the least recently used entries of the needed size class are evicted to
+ * make room. A size class that has no slab yet takes one over from the others: the slab holding
+ * the least recently used entry is emptied and cut into chunks of the new class, so the store
+ * follows a changing mix of entry sizes instead of keeping the classes of its first entries.
+ *
+ * <p>Not thread-safe; callers synchronize access.
+ *
+ * @param <K> the key type
+ */
+public class SlabStore<K> {
+  /** Size of a single slab of direct memory. Entries larger than this are not stored. */
+  static final int SLAB_SIZE = 1 << 20;
+
+  private static final int MIN_CHUNK_SHIFT = 8;
+  private static final int SIZE_CLASSES =
+      Integer.numberOfTrailingZeros(SLAB_SIZE) - MIN_CHUNK_SHIFT + 1;
+
+  private record Location(int slab, int offset, int sizeClass, int length) {}
+
+  private final long capacity;
+  private final List<ByteBuffer> slabs = new ArrayList<>();
+  private final List<Integer> slabClasses = new ArrayList<>();
+  private final int[] slabsPerClass = new int[SIZE_CLASSES];
+  private final List<List<Location>> freeChunks = new ArrayList<>();
+  private final LinkedHashMap<K, Location> index = new LinkedHashMap<>(16, 0.75f, true);
+  private long usedBytes;
+  private long evictions;
+  private long reassignedSlabs;
+
+  /**
+   * Creates an empty store.
+   *
+   * @param capacity maximum number of bytes of direct memory to reserve, rounded down to whole
+   *     slabs
+   */
+  public SlabStore(long capacity) {
+    this.capacity = capacity;
+    for (int i = 0; i < SIZE_CLASSES; i++) {
+      freeChunks.add(new ArrayList<>());
+    }
+  }
+
+  /**
+   * Stores a value, replacing any previous value of the key.
+   *
+   * @param key the key
+   * @param value the encoded value
+   * @return false if the value is too large or no room could be made for it
+   */
+  public boolean put(K key, byte[] value) {
+    Location previous = index.remove(key);
+    if (previous != null) {
+      release(previous);
+    }
+    if (value.length > SLAB_SIZE) {
+      return false;
+    }
+    int sizeClass = sizeClass(value.length);
+    Location chunk = allocate(sizeClass);
+    if (chunk == null) {
+      return false;
+    }
+    Location location = new Location(chunk.slab(), chunk.offset(), sizeClass, value.length);
+    slabs.get(location.slab()).put(location.offset(), value);
+    index.put(key, location);
+    usedBytes += value.length;
+    return true;
+  }
+
+  /**
+   * Reads a value, marking it as recently used.
+   *
+   * @param key the key
+   * @return a copy of the stored value
+   */
+  public Optional<byte[]> get(K key) {
+    Location location = index.get(key);
+    return location == null ? Optional.empty() : Optional.of(read(location));
+  }
+
+  /**
+   * Removes a value.
+   *
+   * @param key the key
+   * @return a copy of the removed value
+   */
+  public Optional<byte[]> remove(K key) {
+    Location location = index.remove(key);
+    if (location == null) {
+      return Optional.empty();
+    }
+    byte[] value = read(location);
+    release(location);
+    return Optional.of(value);
+  }
+
+  private byte[] read(Location location) {
+    byte[] value = new byte[location.length()];
+    slabs.get(location.slab()).get(location.offset(), value);
+    return value;
+  }
+
+  private void release(Location location) {
+    usedBytes -= location.length();
+    freeChunks.get(location.sizeClass()).add(location);
+  }
+
+  private Location allocate(int sizeClass) {
+    List<Location> free = freeChunks.get(sizeClass);
+    if (free.isEmpty() && (long) (slabs.size() + 1) * SLAB_SIZE <= capacity) {
+      slabs.add(ByteBuffer.allocateDirect(SLAB_SIZE));
+      slabClasses.add(sizeClass);
+      carve(slabs.size() - 1, sizeClass);
+    } else if (free.isEmpty() && slabsPerClass[sizeClass] == 0 && !slabs.isEmpty()) {
+      reassignSlab(sizeClass);
+    } else if (free.isEmpty()) {
+      evictLeastRecentlyUsed(sizeClass);
+    }
+    return free.isEmpty() ? null : free.remove(free.size() - 1);
+  }
+
+  /** Cuts a slab into free chunks of a size class. */
+  private void carve(int slab, int sizeClass) {
+    slabsPerClass[sizeClass]++;
+    int chunkSize = chunkSize(sizeClass);
+    List<Location> free = freeChunks.get(sizeClass);
+    // Hand out chunks from the start of the slab first
+    for (int offset = SLAB_SIZE - chunkSize; offset >= 0; offset -= chunkSize) {
+      free.add(new Location(slab, offset, sizeClass, 0));
+    }
+  }
+
+  /**
+   * Empties the slab holding the least recently used entry and cuts it for a size class that has
+   * no slab. Without this, a class first seen after the capacity was used up could never store
+   * anything.
+   */
+  private void reassignSlab(int sizeClass) {
+    int slab = index.isEmpty() ? 0 : index.values().iterator().next().slab();
+    Iterator<Location> it = index.values().iterator();
+    while (it.hasNext()) {
+      Location location = it.next();
+      if (location.slab() == slab) {
+        it.remove();
+        usedBytes -= location.length();
+        evictions++;
+      }
+    }
+    int previousClass = slabClasses.get(slab);
+    freeChunks.get(previousClass).removeIf(location -> location.slab() == slab);
+    slabsPerClass[previousClass]--;
+    slabClasses.set(slab, sizeClass);
+    carve(slab, sizeClass);
+    reassignedSlabs++;
+  }
+
+  private void evictLeastRecentlyUsed(int sizeClass) {
+    Iterator<Map.Entry<K, Location>> it = index.entrySet().iterator();
+    while (it.hasNext()) {
+      Location location = it.next().getValue();
+      if (location.sizeClass() == sizeClass) {
+        it.remove();
+        release(location);
+        evictions++;
+        return;
+      }
+    }
+  }
+
+  private static int sizeClass(int length) {
+    int sizeClass = 0;
+    while (chunkSize(sizeClass) < length) {
+      sizeClass++;
+    }
+    return sizeClass;
+  }
+
+  private static int chunkSize(int sizeClass) {
+    return 1 << (MIN_CHUNK_SHIFT + sizeClass);
+  }
+
+  /** Returns the number of stored entries. */
+  public int size() {
+    return index.size();
+  }
+
+  /** Returns the number of bytes occupied by stored values. */
+  public long getUsedBytes() {
+    return usedBytes;
+  }
+
+  /** Returns the number of bytes of direct memory reserved so far. */
+  public long getReservedBytes() {
+    return (long) slabs.size() * SLAB_SIZE;
+  }
+
+  /** Returns the maximum number of bytes of direct memory the store may reserve. */
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /** Returns the number of entries evicted to make room for new ones. */
+  public long getEvictions() {
+    return evictions;
+  }
+
+  /** Returns how often a slab was emptied and handed to another size class. */
+  public long getReassignedSlabs() {
+    return reassignedSlabs;
+  }
+}
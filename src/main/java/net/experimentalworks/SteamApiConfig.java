@@ -1,5 +1,7 @@
 package net.experimentalworks;
 
+import java.time.Duration;
+
 /**
  * Configuration class for Steam API settings. Loads and validates configuration from environment
  * variables.
@@ -9,12 +11,17 @@ public class SteamApiConfig {
   private final String steamApiKey;
   private final String steamId;
   private final String toolPrefix;
+  private final boolean lazyStoreDetails;
+  private final Duration libraryCacheTtl;
+  private final ExecutionMode executionMode;
+  private final boolean storeHedging;
 
   /**
    * Creates a new SteamApiConfig by loading values from environment variables.
    *
    * @throws IllegalStateException if required environment variables are missing
-   * @throws IllegalArgumentException if Steam ID format is invalid
+   * @throws IllegalArgumentException if Steam ID format, a numeric setting or the execution mode is
+   *     invalid
    */
   public SteamApiConfig() {
     this.steamApiKey = getRequiredEnv("STEAM_API_KEY");
@@ -22,6 +29,14 @@ public class SteamApiConfig {
     validateSteamId(id);
     this.steamId = id;
     this.toolPrefix = getEnvOrDefault("TOOL_PREFIX", "");
+    this.lazyStoreDetails = Boolean.parseBoolean(getEnvOrDefault("STORE_LAZY_DETAILS", "true"));
+    this.libraryCacheTtl =
+        Duration.ofSeconds(
+            getNonNegativeEnvOrDefault(
+                "LIBRARY_CACHE_TTL_SECONDS", LibraryCache.DEFAULT_TTL.toSeconds()));
+    this.executionMode =
+        ExecutionMode.fromArgument(getEnvOrDefault("EXECUTION_MODE", "bounded-elastic"));
+    this.storeHedging = Boolean.parseBoolean(getEnvOrDefault("STORE_HEDGING", "false"));
   }
 
   /**
@@ -43,6 +58,10 @@ public class SteamApiConfig {
     this.steamApiKey = steamApiKey;
     this.steamId = steamId;
     this.toolPrefix = toolPrefix != null ? toolPrefix : "";
+    this.lazyStoreDetails = true;
+    this.libraryCacheTtl = LibraryCache.DEFAULT_TTL;
+    this.executionMode = ExecutionMode.BOUNDED_ELASTIC;
+    this.storeHedging = false;
   }
 
   private static String getRequiredEnv(String key) {
@@ -62,6 +81,23 @@ public class SteamApiConfig {
     return value != null ? value : defaultValue;
   }
 
+  private static long getNonNegativeEnvOrDefault(String key, long defaultValue) {
+    String value = System.getenv(key);
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    try {
+      long parsed = Long.parseLong(value.trim());
+      if (parsed >= 0) {
+        return parsed;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below
+    }
+    throw new IllegalArgumentException(
+        String.format("Environment variable '%s' must be a non-negative integer: %s", key, value));
+  }
+
   private static void validateSteamId(String steamId) {
     // Steam accepts both SteamID64 (numeric) and custom vanity URLs (alphanumeric)
     // Just ensure it's not unreasonably long (Steam custom URLs are max 32 chars)
@@ -82,4 +118,24 @@ public class SteamApiConfig {
   public String getToolPrefix() {
     return toolPrefix;
   }
+
+  /** Whether store details are kept as raw JSON and only parsed section by section on access. */
+  public boolean isLazyStoreDetails() {
+    return lazyStoreDetails;
+  }
+
+  /** How long owned and recent game lists are served from memory before they are fetched again. */
+  public Duration getLibraryCacheTtl() {
+    return libraryCacheTtl;
+  }
+
+  /** Where tool handlers that block are run. */
+  public ExecutionMode getExecutionMode() {
+    return executionMode;
+  }
+
+  /** Whether slow store detail requests are sent a second time within the rate budget. */
+  public boolean isStoreHedging() {
+    return storeHedging;
+  }
 }
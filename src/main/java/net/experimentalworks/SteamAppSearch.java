@@ -10,11 +10,14 @@ import org.apache.commons.text.similarity.LevenshteinDistance;
 
 import com.lukaspradel.steamapi.core.exception.SteamApiException;
 
+import reactor.core.publisher.Mono;
+
 /**
  * Service for searching Steam applications by name using fuzzy matching.
  *
  * <p>Caches the complete Steam app list in memory and provides fast fuzzy search capabilities using
- * Levenshtein distance for similarity scoring.
+ * Levenshtein distance for similarity scoring. Every load also builds the {@link KnownAppIds} of
+ * the list, which lets the store client reject invented app IDs without a request.
  */
 public class SteamAppSearch {
   private static final Duration CACHE_TTL = Duration.ofDays(1);
@@ -25,6 +28,7 @@ public class SteamAppSearch {
 
   private volatile List<AppInfo> cachedAppList;
   private volatile Instant lastFetch;
+  private volatile KnownAppIds knownAppIds = KnownAppIds.NONE;
 
   public SteamAppSearch(SteamGames steamGames) {
     this.steamGames = steamGames;
@@ -67,6 +71,28 @@ public class SteamAppSearch {
     return results;
   }
 
+  /**
+   * Loads the app list if it is not loaded yet, without blocking.
+   *
+   * @return Mono completing once the list is loaded, or failing with a SteamApiException
+   */
+  public Mono<Void> preload() {
+    return Mono.defer(
+        () ->
+            cachedAppList != null
+                ? Mono.empty()
+                : steamGames.fetchAppList().doOnNext(this::update).then());
+  }
+
+  /**
+   * Gets the app IDs of the last loaded app list.
+   *
+   * @return the known app IDs, or {@link KnownAppIds#NONE} before the list is loaded
+   */
+  public KnownAppIds getKnownAppIds() {
+    return knownAppIds;
+  }
+
   /**
    * Calculates similarity score between query and app name.
    *
@@ -135,7 +161,11 @@ public class SteamAppSearch {
    * @throws SteamApiException if the Steam API call fails
    */
   private void refreshCache() throws SteamApiException {
-    List<AppInfo> apps = steamGames.getAppList();
+    update(steamGames.getAppList());
+  }
+
+  private void update(List<AppInfo> apps) {
+    this.knownAppIds = KnownAppIds.of(apps);
     this.cachedAppList = apps;
     this.lastFetch = Instant.now();
   }
@@ -150,7 +180,7 @@ public class SteamAppSearch {
       return "Cache not loaded";
     }
     return String.format(
-        "Cache loaded: %d apps, last fetch: %s, expired: %s",
-        cachedAppList.size(), lastFetch, isCacheExpired());
+        "Cache loaded: %d apps, last fetch: %s, expired: %s; %s",
+        cachedAppList.size(), lastFetch, isCacheExpired(), knownAppIds.getInfo());
   }
 }
@@ -1,78 +1,122 @@
 package net.experimentalworks;
 
+import java.net.http.HttpClient;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import com.lukaspradel.steamapi.core.exception.SteamApiException;
-import com.lukaspradel.steamapi.data.json.applist.GetAppList;
-import com.lukaspradel.steamapi.data.json.ownedgames.GetOwnedGames;
-import com.lukaspradel.steamapi.data.json.recentlyplayedgames.GetRecentlyPlayedGames;
-import com.lukaspradel.steamapi.webapi.client.SteamWebApiClient;
-import com.lukaspradel.steamapi.webapi.request.GetAppListRequest;
-import com.lukaspradel.steamapi.webapi.request.GetOwnedGamesRequest;
-import com.lukaspradel.steamapi.webapi.request.GetRecentlyPlayedGamesRequest;
-import com.lukaspradel.steamapi.webapi.request.builders.SteamWebApiRequestFactory;
 
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+/**
+ * Access to the Steam Web API endpoints for a user's games and the app list.
+ *
+ * <p>Calls go through a non-blocking {@link SteamWebApiAsyncClient}. The {@code fetch} methods
+ * return its Monos directly; the {@code get} methods wait for them, for callers that run on a
+ * thread that may block.
+ */
 public class SteamGames {
 
-  private final SteamWebApiClient client;
+  private final SteamWebApiAsyncClient client;
 
   public SteamGames(String apiKey) {
+    this(apiKey, SteamStoreClient.newHttpClient());
+  }
+
+  /**
+   * Creates a client that sends its requests with a shared HttpClient.
+   *
+   * @param apiKey the Steam Web API key
+   * @param httpClient the HttpClient, typically shared with {@link SteamStoreClient}
+   */
+  public SteamGames(String apiKey, HttpClient httpClient) {
     if (apiKey == null || apiKey.isBlank()) {
       throw new IllegalArgumentException("API key cannot be null or blank");
     }
-    this.client = new SteamWebApiClient.SteamWebApiClientBuilder(apiKey).build();
+    this.client = new SteamWebApiAsyncClient(apiKey, httpClient);
   }
 
-  public GetOwnedGames getOwnedGames(String steamId) throws SteamApiException {
-    GetOwnedGamesRequest request =
-        SteamWebApiRequestFactory.createGetOwnedGamesRequest(steamId, true, true, List.of());
-    return client.processRequest(request);
+  /**
+   * Fetches all games owned by a user into a columnar library.
+   *
+   * @param steamId the Steam user ID
+   * @return Mono emitting the library, without two-week playtimes, or failing with a
+   *     SteamApiException
+   */
+  public Mono<Library> fetchLibrary(String steamId) {
+    return client.getOwnedGames(steamId);
   }
 
-  public GetRecentlyPlayedGames getRecentlyPlayedGames(String steamId) throws SteamApiException {
-    GetRecentlyPlayedGamesRequest request =
-        SteamWebApiRequestFactory.createGetRecentlyPlayedGamesRequest(steamId);
+  /**
+   * Fetches the games a user played in the last two weeks into a columnar library.
+   *
+   * @param steamId the Steam user ID
+   * @return Mono emitting the library, with two-week playtimes, or failing with a
+   *     SteamApiException
+   */
+  public Mono<Library> fetchRecentLibrary(String steamId) {
+    return client.getRecentlyPlayedGames(steamId);
+  }
 
-    return client.processRequest(request);
+  /**
+   * Fetches the complete list of all Steam applications.
+   *
+   * @return Mono emitting app IDs and names, or failing with a SteamApiException
+   */
+  public Mono<List<AppInfo>> fetchAppList() {
+    return client.getAppList();
   }
 
-  public List<Game> getGames(String steamId) throws SteamApiException {
-    GetOwnedGames ownedGames = getOwnedGames(steamId);
+  /**
+   * Gets the circuit breaker guarding the Web API.
+   *
+   * @return the breaker with its state
+   */
+  public CircuitBreaker getCircuitBreaker() {
+    return client.getCircuitBreaker();
+  }
 
-    if (ownedGames == null
-        || ownedGames.getResponse() == null
-        || ownedGames.getResponse().getGames() == null) {
-      return List.of();
-    }
+  /**
+   * Gets transfer statistics of the Web API responses.
+   *
+   * @return counters for received responses, protocol versions and bytes saved by compression
+   */
+  public TransferStats getTransferStats() {
+    return client.getTransferStats();
+  }
 
-    return ownedGames.getResponse().getGames().stream()
-        .map(game -> new Game(game.getAppid(), game.getName(), game.getPlaytimeForever()))
-        .collect(Collectors.toList());
+  public List<Game> getGames(String steamId) throws SteamApiException {
+    return getLibrary(steamId).toGames();
   }
 
   public List<Game> getRecentGames(String steamId) throws SteamApiException {
-    GetRecentlyPlayedGames recentGames = getRecentlyPlayedGames(steamId);
+    return getRecentLibrary(steamId).toGames();
+  }
 
-    if (recentGames == null
-        || recentGames.getResponse() == null
-        || recentGames.getResponse().getGames() == null) {
-      return List.of();
-    }
+  /**
+   * Fetches all games owned by a user, waiting for the response.
+   *
+   * @param steamId the Steam user ID
+   * @return the library, without two-week playtimes
+   * @throws SteamApiException if the API call fails
+   */
+  public Library getLibrary(String steamId) throws SteamApiException {
+    return await(fetchLibrary(steamId));
+  }
 
-    return recentGames.getResponse().getGames().stream()
-        .map(
-            game ->
-                new Game(
-                    game.getAppid(),
-                    game.getName(),
-                    game.getPlaytimeForever(),
-                    game.getPlaytime2weeks()))
-        .collect(Collectors.toList());
+  /**
+   * Fetches the games a user played in the last two weeks, waiting for the response.
+   *
+   * @param steamId the Steam user ID
+   * @return the library, with two-week playtimes
+   * @throws SteamApiException if the API call fails
+   */
+  public Library getRecentLibrary(String steamId) throws SteamApiException {
+    return await(fetchRecentLibrary(steamId));
   }
 
   /**
-   * Fetches the complete list of all Steam applications.
+   * Fetches the complete list of all Steam applications, waiting for the response.
    *
    * <p>This method retrieves all public Steam apps from the Steam Web API. The list includes games,
    * DLC, software, videos, and other Steam applications. This endpoint does not require a Steam ID
@@ -82,16 +126,18 @@ public class SteamGames {
    * @throws SteamApiException if the API call fails
    */
   public List<AppInfo> getAppList() throws SteamApiException {
-    GetAppListRequest request = SteamWebApiRequestFactory.createGetAppListRequest();
-    GetAppList appList = client.processRequest(request);
+    return await(fetchAppList());
+  }
 
-    if (appList == null || appList.getApplist() == null || appList.getApplist().getApps() == null) {
-      return List.of();
+  private static <T> T await(Mono<T> result) throws SteamApiException {
+    try {
+      return result.block();
+    } catch (RuntimeException e) {
+      // block() wraps checked exceptions; hand the SteamApiException back to the caller
+      if (Exceptions.unwrap(e) instanceof SteamApiException apiException) {
+        throw apiException;
+      }
+      throw e;
     }
-
-    return appList.getApplist().getApps().stream()
-        .filter(app -> app.getAppid() != null && app.getName() != null)
-        .map(app -> new AppInfo(app.getAppid().intValue(), app.getName()))
-        .collect(Collectors.toList());
   }
 }
@@ -1,11 +1,13 @@
 package net.experimentalworks;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
-import org.json.JSONArray;
 import org.json.JSONObject;
 
 import com.lukaspradel.steamapi.core.exception.SteamApiException;
@@ -19,21 +21,35 @@ import io.modelcontextprotocol.spec.McpSchema.TextContent;
 import io.modelcontextprotocol.spec.McpSchema.Tool;
 import io.modelcontextprotocol.spec.ServerMcpTransport;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import reactor.core.scheduler.Scheduler;
 
 public class SteamGamesServer {
 
   private final McpAsyncServer server;
   private final SteamGames steamGames;
+  private final LibraryCache libraryCache;
   private final SteamStoreClient steamStoreClient;
   private final SteamAppSearch steamAppSearch;
   private final SteamApiConfig config;
+  // Runs handlers that block, see ExecutionMode
+  private final Scheduler blockingScheduler;
 
   public SteamGamesServer(ServerMcpTransport transport, SteamApiConfig config) {
     this.config = config;
-    this.steamGames = new SteamGames(config.getSteamApiKey());
-    this.steamStoreClient = new SteamStoreClient();
+    // One HttpClient, and so one connection pool, for the Web API and the Store API
+    HttpClient httpClient = SteamStoreClient.newHttpClient();
+    this.steamGames = new SteamGames(config.getSteamApiKey(), httpClient);
+    this.libraryCache = new LibraryCache(this.steamGames, config.getLibraryCacheTtl());
     this.steamAppSearch = new SteamAppSearch(this.steamGames);
+    this.steamStoreClient =
+        new SteamStoreClient(
+            httpClient,
+            new StoreDetailsCache(config.isLazyStoreDetails()),
+            config.isLazyStoreDetails(),
+            new ParsePool(),
+            new RequestHedger(new StoreRateBudget(), config.isStoreHedging()),
+            steamAppSearch::getKnownAppIds);
+    this.blockingScheduler = config.getExecutionMode().newScheduler();
 
     String version = getClass().getPackage().getImplementationVersion();
     if (version == null) {
@@ -52,6 +68,10 @@ public class SteamGamesServer {
         .then(server.addTool(createGetRecentGamesTool()))
         .then(server.addTool(createGetStoreDetailsTool()))
         .then(server.addTool(createSearchAppsTool()))
+        .then(server.addTool(createGetPricesTool()))
+        // Load the app list up front so invented app IDs are rejected from the first call; if it
+        // fails, search-apps loads it on first use
+        .then(steamAppSearch.preload().onErrorComplete())
         .then(Mono.never());
   }
 
@@ -60,7 +80,33 @@ public class SteamGamesServer {
         """
             {
               "type": "object",
-              "properties": {}
+              "properties": {
+                "sortBy": {
+                  "type": "string",
+                  "enum": ["playtime", "name", "appId"],
+                  "description": "Optional sort order: 'playtime' (most played first), 'name' or 'appId'. Defaults to library order."
+                },
+                "minPlaytime": {
+                  "type": "integer",
+                  "description": "Optional minimum total playtime in minutes"
+                },
+                "nameContains": {
+                  "type": "string",
+                  "description": "Optional text the game name must contain (case-insensitive)"
+                },
+                "offset": {
+                  "type": "integer",
+                  "description": "Number of matching games to skip (default: 0)"
+                },
+                "limit": {
+                  "type": "integer",
+                  "description": "Maximum number of games to return (default: all)"
+                },
+                "sinceVersion": {
+                  "type": "integer",
+                  "description": "Optional library version from an earlier response; if nothing changed since, no games are returned"
+                }
+              }
             }
             """;
 
@@ -71,7 +117,9 @@ public class SteamGamesServer {
             Get a comprehensive list of all games owned by the specified Steam user, including their total playtime in minutes.
             This includes all games in their Steam library, both installed and uninstalled, free and purchased. For each game,
             returns details like the game name, AppID, total playtime, and whether they've played it recently. The data comes
-            directly from Steam's official API using the provided Steam ID.
+            directly from Steam's official API using the provided Steam ID. Large libraries can be
+            filtered, sorted and paged on the server; total_games is the number of matching games.
+            Libraries are cached briefly; pass the returned version as sinceVersion to check for changes.
             NOTE: playtime is sent in minutes.
             """,
             schema);
@@ -80,19 +128,52 @@ public class SteamGamesServer {
   }
 
   private Mono<CallToolResult> handleGetGames(Map<String, Object> args) {
-    return Mono.fromCallable(
+    return Mono.defer(
             () -> {
-              List<Game> games = steamGames.getGames(config.getSteamId());
-
-              var json =
-                  new JSONObject()
-                      .put("owner", config.getSteamId())
-                      .put("description", "Played games by the given steam id")
-                      .put("all_games", new JSONArray(games));
-
-              return new CallToolResult(List.of(new TextContent(json.toString())), false);
+              Library.SortKey sortBy =
+                  args.get("sortBy") != null
+                      ? Library.SortKey.fromArgument((String) args.get("sortBy"))
+                      : null;
+              int minPlaytime = intArgument(args, "minPlaytime", 0);
+              String nameContains = (String) args.get("nameContains");
+              int offset = intArgument(args, "offset", 0);
+              int limit = intArgument(args, "limit", Integer.MAX_VALUE);
+              if (offset < 0 || limit < 0) {
+                throw new IllegalArgumentException("offset and limit cannot be negative");
+              }
+              long sinceVersion = longArgument(args, "sinceVersion", 0);
+
+              return libraryCache
+                  .get(config.getSteamId(), LibraryCache.Kind.OWNED)
+                  .map(
+                      snapshot -> {
+                        if (sinceVersion > 0 && !snapshot.changedSince(sinceVersion)) {
+                          return unchangedResult(snapshot);
+                        }
+                        Library games = snapshot.library();
+                        Library.Page page =
+                            games.select(sortBy, minPlaytime, nameContains, offset, limit);
+
+                        JsonWriter json =
+                            JsonWriter.reusable()
+                                .beginObject()
+                                .name("owner")
+                                .value(config.getSteamId())
+                                .name("description")
+                                .value("Played games by the given steam id")
+                                .name("version")
+                                .value(snapshot.version())
+                                .name("total_games")
+                                .value(page.total())
+                                .name("offset")
+                                .value(offset)
+                                .name("all_games");
+                        games.writeArray(json, page).endObject();
+
+                        return new CallToolResult(
+                            List.of(new TextContent(json.finish())), false);
+                      });
             })
-        .subscribeOn(Schedulers.boundedElastic())
         .onErrorResume(
             SteamApiException.class,
             e ->
@@ -105,6 +186,15 @@ public class SteamGamesServer {
                                     .put("message", e.getMessage())
                                     .toString())),
                         true)))
+        .onErrorResume(
+            IllegalArgumentException.class,
+            e ->
+                Mono.just(
+                    new CallToolResult(
+                        List.of(
+                            new TextContent(
+                                new JSONObject().put("error", e.getMessage()).toString())),
+                        true)))
         .onErrorResume(
             Exception.class,
             e ->
@@ -124,7 +214,12 @@ public class SteamGamesServer {
         """
             {
               "type": "object",
-              "properties": {}
+              "properties": {
+                "sinceVersion": {
+                  "type": "integer",
+                  "description": "Optional version from an earlier response; if nothing changed since, no games are returned"
+                }
+              }
             }
             """;
 
@@ -145,19 +240,34 @@ public class SteamGamesServer {
   }
 
   private Mono<CallToolResult> handleGetRecentGames(Map<String, Object> args) {
-    return Mono.fromCallable(
+    return Mono.defer(
             () -> {
-              List<Game> games = steamGames.getRecentGames(config.getSteamId());
-
-              var json =
-                  new JSONObject()
-                      .put("owner", config.getSteamId())
-                      .put("description", "Recently played games by the given steam id")
-                      .put("recent_games", new JSONArray(games));
-
-              return new CallToolResult(List.of(new TextContent(json.toString())), false);
+              long sinceVersion = longArgument(args, "sinceVersion", 0);
+
+              return libraryCache
+                  .get(config.getSteamId(), LibraryCache.Kind.RECENT)
+                  .map(
+                      snapshot -> {
+                        if (sinceVersion > 0 && !snapshot.changedSince(sinceVersion)) {
+                          return unchangedResult(snapshot);
+                        }
+
+                        JsonWriter json =
+                            JsonWriter.reusable()
+                                .beginObject()
+                                .name("owner")
+                                .value(config.getSteamId())
+                                .name("description")
+                                .value("Recently played games by the given steam id")
+                                .name("version")
+                                .value(snapshot.version())
+                                .name("recent_games");
+                        snapshot.library().writeArray(json).endObject();
+
+                        return new CallToolResult(
+                            List.of(new TextContent(json.finish())), false);
+                      });
             })
-        .subscribeOn(Schedulers.boundedElastic())
         .onErrorResume(
             SteamApiException.class,
             e ->
@@ -170,6 +280,15 @@ public class SteamGamesServer {
                                     .put("message", e.getMessage())
                                     .toString())),
                         true)))
+        .onErrorResume(
+            IllegalArgumentException.class,
+            e ->
+                Mono.just(
+                    new CallToolResult(
+                        List.of(
+                            new TextContent(
+                                new JSONObject().put("error", e.getMessage()).toString())),
+                        true)))
         .onErrorResume(
             Exception.class,
             e ->
@@ -204,6 +323,17 @@ public class SteamGamesServer {
                 "language": {
                   "type": "string",
                   "description": "Optional language code for localized descriptions (e.g., 'en', 'es', 'fr', 'de')"
+                },
+                "fields": {
+                  "type": "array",
+                  "items": {
+                    "type": "string"
+                  },
+                  "description": "Optional store fields to return (e.g., ['name', 'price_overview', 'genres']). app_id and success are always included. Defaults to all fields."
+                },
+                "timeoutMs": {
+                  "type": "integer",
+                  "description": "Optional deadline for the whole call in milliseconds (default: 30000). Apps not answered in time are returned with failure 'timed_out'."
                 }
               },
               "required": ["appIds"]
@@ -220,7 +350,8 @@ public class SteamGamesServer {
             developer/publisher information, release dates, and more. Optionally specify country code for
             region-specific pricing and language code for localized content. The API does not require
             authentication but is rate-limited to 200 requests per 5 minutes. Returns complete store
-            details for all requested app IDs.
+            details for all requested app IDs. Apps that fail carry success=false and a failure reason;
+            apps not answered before the deadline are marked 'timed_out' while the rest are returned.
             """,
             schema);
 
@@ -229,38 +360,21 @@ public class SteamGamesServer {
 
   private Mono<CallToolResult> handleGetStoreDetails(Map<String, Object> args) {
     try {
-      // Parse appIds array
-      @SuppressWarnings("unchecked")
-      List<Object> appIdsRaw = (List<Object>) args.get("appIds");
-      if (appIdsRaw == null || appIdsRaw.isEmpty()) {
+      // Parse appIds array and field projection
+      List<Integer> appIds;
+      Set<StoreDetailsSection> fields;
+      Duration timeout;
+      try {
+        appIds = parseAppIds(args);
+        fields = parseFields(args);
+        timeout = parseTimeout(args);
+      } catch (IllegalArgumentException e) {
         return Mono.just(
             new CallToolResult(
-                List.of(
-                    new TextContent(
-                        new JSONObject()
-                            .put("error", "appIds parameter is required and cannot be empty")
-                            .toString())),
+                List.of(new TextContent(new JSONObject().put("error", e.getMessage()).toString())),
                 true));
       }
 
-      List<Integer> appIds = new ArrayList<>();
-      for (Object obj : appIdsRaw) {
-        if (obj instanceof Integer) {
-          appIds.add((Integer) obj);
-        } else if (obj instanceof Number) {
-          appIds.add(((Number) obj).intValue());
-        } else {
-          return Mono.just(
-              new CallToolResult(
-                  List.of(
-                      new TextContent(
-                          new JSONObject()
-                              .put("error", "appIds must be an array of integers")
-                              .toString())),
-                  true));
-        }
-      }
-
       // Parse optional parameters
       Optional<String> countryCode =
           args.containsKey("countryCode")
@@ -274,24 +388,28 @@ public class SteamGamesServer {
 
       // Fetch store details
       return steamStoreClient
-          .getStoreDetails(appIds, countryCode, language)
+          .getStoreDetails(appIds, countryCode, language, timeout)
           .map(
               storeDetailsList -> {
-                JSONArray resultsArray = new JSONArray();
+                JsonWriter json =
+                    JsonWriter.reusable()
+                        .beginObject()
+                        .name("description")
+                        .value("Steam Store details for requested applications")
+                        .name("total_apps")
+                        .value(storeDetailsList.size())
+                        .name("store_details")
+                        .beginArray();
                 for (StoreDetails details : storeDetailsList) {
-                  resultsArray.put(details.toJson());
+                  json.value(steamStoreClient.toJson(details, countryCode, language, fields));
                 }
+                json.endArray();
 
-                JSONObject response =
-                    new JSONObject()
-                        .put("description", "Steam Store details for requested applications")
-                        .put("total_apps", storeDetailsList.size())
-                        .put("store_details", resultsArray);
-
-                countryCode.ifPresent(cc -> response.put("country_code", cc));
-                language.ifPresent(lang -> response.put("language", lang));
+                countryCode.ifPresent(cc -> json.name("country_code").value(cc));
+                language.ifPresent(lang -> json.name("language").value(lang));
 
-                return new CallToolResult(List.of(new TextContent(response.toString())), false);
+                return new CallToolResult(
+                    List.of(new TextContent(json.endObject().finish())), false);
               })
           .onErrorResume(
               Exception.class,
@@ -329,6 +447,272 @@ public class SteamGamesServer {
     }
   }
 
+  /**
+   * Builds the response for a library that did not change since the version the client passed.
+   *
+   * @param snapshot the cached library
+   * @return a result carrying the version but no games
+   */
+  private CallToolResult unchangedResult(LibraryCache.Snapshot snapshot) {
+    JsonWriter json =
+        JsonWriter.reusable()
+            .beginObject()
+            .name("owner")
+            .value(config.getSteamId())
+            .name("version")
+            .value(snapshot.version())
+            .name("changed")
+            .value(false)
+            .endObject();
+    return new CallToolResult(List.of(new TextContent(json.finish())), false);
+  }
+
+  /**
+   * Builds the searchApps response.
+   *
+   * @param query the searched name
+   * @param results the matches, best first
+   * @return the response JSON
+   */
+  static String searchResponse(String query, List<AppSearchResult> results) {
+    JsonWriter json =
+        JsonWriter.reusable()
+            .beginObject()
+            .name("query")
+            .value(query)
+            .name("total_results")
+            .value(results.size())
+            .name("results");
+    return AppSearchResult.SERIALIZER.writeArray(json, results).endObject().finish();
+  }
+
+  /**
+   * Parses an optional integer argument.
+   *
+   * @param args the tool arguments
+   * @param key the argument name
+   * @param defaultValue the value if the argument is absent
+   * @return the argument value
+   * @throws IllegalArgumentException if the argument is not a number
+   */
+  private static int intArgument(Map<String, Object> args, String key, int defaultValue) {
+    Object value = args.get(key);
+    if (value == null) {
+      return defaultValue;
+    }
+    if (!(value instanceof Number)) {
+      throw new IllegalArgumentException(key + " must be an integer");
+    }
+    return ((Number) value).intValue();
+  }
+
+  /**
+   * Parses an optional integer argument that may exceed the int range.
+   *
+   * @param args the tool arguments
+   * @param key the argument name
+   * @param defaultValue the value if the argument is absent
+   * @return the argument value
+   * @throws IllegalArgumentException if the argument is not a number
+   */
+  private static long longArgument(Map<String, Object> args, String key, long defaultValue) {
+    Object value = args.get(key);
+    if (value == null) {
+      return defaultValue;
+    }
+    if (!(value instanceof Number)) {
+      throw new IllegalArgumentException(key + " must be an integer");
+    }
+    return ((Number) value).longValue();
+  }
+
+  /**
+   * Parses the optional timeoutMs argument shared by the store tools.
+   *
+   * @param args the tool arguments
+   * @return the deadline of the call, measured from now
+   * @throws IllegalArgumentException if timeoutMs is not a positive integer
+   */
+  private static Duration parseTimeout(Map<String, Object> args) {
+    int timeoutMs =
+        intArgument(args, "timeoutMs", (int) SteamStoreClient.DEFAULT_TIMEOUT.toMillis());
+    if (timeoutMs <= 0) {
+      throw new IllegalArgumentException("timeoutMs must be positive");
+    }
+    return Duration.ofMillis(timeoutMs);
+  }
+
+  /**
+   * Parses the appIds argument shared by the store tools.
+   *
+   * @param args the tool arguments
+   * @return list of app IDs
+   * @throws IllegalArgumentException if appIds is missing, empty or contains non-numbers
+   */
+  private static List<Integer> parseAppIds(Map<String, Object> args) {
+    @SuppressWarnings("unchecked")
+    List<Object> appIdsRaw = (List<Object>) args.get("appIds");
+    if (appIdsRaw == null || appIdsRaw.isEmpty()) {
+      throw new IllegalArgumentException("appIds parameter is required and cannot be empty");
+    }
+
+    List<Integer> appIds = new ArrayList<>();
+    for (Object obj : appIdsRaw) {
+      if (obj instanceof Integer) {
+        appIds.add((Integer) obj);
+      } else if (obj instanceof Number) {
+        appIds.add(((Number) obj).intValue());
+      } else {
+        throw new IllegalArgumentException("appIds must be an array of integers");
+      }
+    }
+    return appIds;
+  }
+
+  /**
+   * Parses the optional fields argument of get-store-details.
+   *
+   * @param args the tool arguments
+   * @return the requested sections, or all sections if fields is absent
+   * @throws IllegalArgumentException if fields contains non-strings or unknown field names
+   */
+  private static Set<StoreDetailsSection> parseFields(Map<String, Object> args) {
+    @SuppressWarnings("unchecked")
+    List<Object> fieldsRaw = (List<Object>) args.get("fields");
+    if (fieldsRaw == null) {
+      return StoreDetailsSection.ALL;
+    }
+
+    List<String> keys = new ArrayList<>();
+    for (Object obj : fieldsRaw) {
+      if (!(obj instanceof String)) {
+        throw new IllegalArgumentException("fields must be an array of strings");
+      }
+      keys.add((String) obj);
+    }
+    return StoreDetailsSection.forKeys(keys);
+  }
+
+  private McpServerFeatures.AsyncToolRegistration createGetPricesTool() {
+    var schema =
+        """
+            {
+              "type": "object",
+              "properties": {
+                "appIds": {
+                  "type": "array",
+                  "items": {
+                    "type": "integer"
+                  },
+                  "description": "Array of Steam App IDs to fetch current prices for"
+                },
+                "countryCode": {
+                  "type": "string",
+                  "description": "Optional ISO 3166-1 country code for region-specific pricing (e.g., 'US', 'GB', 'DE')"
+                },
+                "timeoutMs": {
+                  "type": "integer",
+                  "description": "Optional deadline for the whole call in milliseconds (default: 30000). Apps not priced in time are returned with failure 'timed_out'."
+                }
+              },
+              "required": ["appIds"]
+            }
+            """;
+
+    var tool =
+        new Tool(
+            config.getToolPrefix() + "get-prices",
+            """
+            Retrieve current store prices for many Steam applications at once. This tool only returns
+            the price overview (currency, initial and final price, discount percentage) and batches
+            up to 100 apps into a single Steam Store API request, so pricing a whole library takes
+            only a handful of calls against the 200 requests per 5 minutes rate limit. Use
+            get-store-details instead when you need descriptions, media or other store information.
+            Apps without a price are usually free to play or not currently purchasable.
+            """,
+            schema);
+
+    return new McpServerFeatures.AsyncToolRegistration(tool, this::handleGetPrices);
+  }
+
+  private Mono<CallToolResult> handleGetPrices(Map<String, Object> args) {
+    try {
+      List<Integer> appIds;
+      Duration timeout;
+      try {
+        appIds = parseAppIds(args);
+        timeout = parseTimeout(args);
+      } catch (IllegalArgumentException e) {
+        return Mono.just(
+            new CallToolResult(
+                List.of(new TextContent(new JSONObject().put("error", e.getMessage()).toString())),
+                true));
+      }
+
+      Optional<String> countryCode =
+          args.containsKey("countryCode")
+              ? Optional.of((String) args.get("countryCode"))
+              : Optional.empty();
+
+      return steamStoreClient
+          .getPrices(appIds, countryCode, timeout)
+          .map(
+              prices -> {
+                JsonWriter json =
+                    JsonWriter.reusable()
+                        .beginObject()
+                        .name("description")
+                        .value("Steam Store prices for requested applications")
+                        .name("total_apps")
+                        .value(prices.size())
+                        .name("prices")
+                        .beginArray();
+                for (AppPrice price : prices) {
+                  json.value(price.toJson());
+                }
+                json.endArray();
+
+                countryCode.ifPresent(cc -> json.name("country_code").value(cc));
+
+                return new CallToolResult(
+                    List.of(new TextContent(json.endObject().finish())), false);
+              })
+          .onErrorResume(
+              Exception.class,
+              e ->
+                  Mono.just(
+                      new CallToolResult(
+                          List.of(
+                              new TextContent(
+                                  new JSONObject()
+                                      .put("error", "Failed to fetch prices")
+                                      .put("message", e.getMessage())
+                                      .toString())),
+                          true)));
+
+    } catch (ClassCastException e) {
+      return Mono.just(
+          new CallToolResult(
+              List.of(
+                  new TextContent(
+                      new JSONObject()
+                          .put("error", "Invalid parameter types")
+                          .put("message", e.getMessage())
+                          .toString())),
+              true));
+    } catch (Exception e) {
+      return Mono.just(
+          new CallToolResult(
+              List.of(
+                  new TextContent(
+                      new JSONObject()
+                          .put("error", "Unexpected error occurred")
+                          .put("message", e.getMessage())
+                          .toString())),
+              true));
+    }
+  }
+
   private McpServerFeatures.AsyncToolRegistration createSearchAppsTool() {
     var schema =
         """
@@ -389,21 +773,10 @@ public class SteamGamesServer {
               // Perform search
               List<AppSearchResult> results = steamAppSearch.searchApps(gameName, limit);
 
-              // Build JSON response
-              JSONArray resultsArray = new JSONArray();
-              for (AppSearchResult result : results) {
-                resultsArray.put(result.toJson());
-              }
-
-              JSONObject response =
-                  new JSONObject()
-                      .put("query", gameName)
-                      .put("total_results", results.size())
-                      .put("results", resultsArray);
-
-              return new CallToolResult(List.of(new TextContent(response.toString())), false);
+              return new CallToolResult(
+                  List.of(new TextContent(searchResponse(gameName, results))), false);
             })
-        .subscribeOn(Schedulers.boundedElastic())
+        .subscribeOn(blockingScheduler)
         .onErrorResume(
             SteamApiException.class,
             e ->
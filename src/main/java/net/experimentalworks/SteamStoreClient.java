@@ -1,16 +1,27 @@
 package net.experimentalworks;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-import org.json.JSONArray;
 import org.json.JSONObject;
 
 import reactor.core.publisher.Flux;
@@ -24,20 +35,95 @@ import reactor.core.scheduler.Schedulers;
  * Steam Store API endpoint (https://store.steampowered.com/api/appdetails).
  *
  * <p>This API does not require authentication but has rate limiting (200 requests per 5 minutes).
+ *
+ * <p>Requests advertise gzip and deflate support and responses are decoded while streaming, which
+ * considerably reduces transfer size for large appdetails payloads.
+ *
+ * <p>Successfully fetched store details are cached. Expired entries are revalidated with a
+ * conditional request; when the store answers 304 Not Modified, or returns a body identical to the
+ * cached one, the entry is renewed without being parsed again. Frequently read entries are
+ * revalidated in the background shortly before they expire (see {@link RefreshAhead}), so callers
+ * asking for popular apps are answered from the cache.
+ *
+ * <p>All requests pass through an {@link UpstreamScheduler}, which sends requests callers are
+ * waiting for before background refreshes.
+ *
+ * <p>A {@link CircuitBreaker} tracks throttling and failures of the store. While it is open, no
+ * requests are sent: expired cache entries are served as they are and other apps fail fast.
+ *
+ * <p>App IDs are checked against the {@link KnownAppIds} of the last loaded Steam app list first;
+ * IDs the catalog does not contain are answered as not found without a request.
+ *
+ * <p>By default responses are turned into {@link LazyStoreDetails}, which keep the raw data object
+ * and only parse the sections that are actually read. Responses are parsed on a {@link ParsePool}
+ * rather than on the HttpClient's threads.
  */
 public class SteamStoreClient {
   private static final String STORE_API_BASE_URL = "https://store.steampowered.com/api/appdetails";
   private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
 
+  /** Deadline of a call that does not set its own. */
+  public static final Duration DEFAULT_TIMEOUT = REQUEST_TIMEOUT;
+
+  /**
+   * Maximum number of app IDs sent in a single batched price request. Keeps request URLs well
+   * below common length limits while still pricing a large library in a handful of calls.
+   */
+  static final int PRICE_BATCH_SIZE = 100;
+
+  private static final int HTTP_OK = 200;
+  private static final int HTTP_NOT_MODIFIED = 304;
+  private static final String UNAVAILABLE = "Steam API returned success=false";
+  private static final String NOT_FOUND = "Unknown app ID, not in the Steam app list";
+  private static final String CIRCUIT_OPEN = "Steam Store API is failing, request not sent";
+
   private final HttpClient httpClient;
+  private final StoreDetailsCache cache;
+  private final StoreDetailsJsonCache jsonCache = new StoreDetailsJsonCache();
+  private final boolean lazyDetails;
+  private final ParsePool parsePool;
+  private final RequestHedger hedger;
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker("Store API");
+  private final LongAdder staleServed = new LongAdder();
+  private final Supplier<KnownAppIds> knownAppIds;
+  private final LongAdder notFound = new LongAdder();
+  private final RefreshAhead refreshAhead;
+  private final UpstreamScheduler scheduler = new UpstreamScheduler();
+  private final TransferStats transferStats = new TransferStats();
+  private final DecompressingBodyHandler bodyHandler = new DecompressingBodyHandler(transferStats);
+  private final Duration storeTimeout;
 
-  /** Creates a new SteamStoreClient with a default HttpClient. */
+  /**
+   * Creates a new SteamStoreClient with a default HttpClient.
+   *
+   * <p>HTTP/2 is preferred so that parallel requests for a batch are multiplexed over a single
+   * connection to the store instead of opening one connection per app.
+   */
   public SteamStoreClient() {
-    this.httpClient =
-        HttpClient.newBuilder()
-            .connectTimeout(REQUEST_TIMEOUT)
-            .followRedirects(HttpClient.Redirect.NORMAL)
-            .build();
+    this(true);
+  }
+
+  /**
+   * Creates a new SteamStoreClient with a default HttpClient.
+   *
+   * @param lazyDetails whether store details are materialized lazily from the raw response
+   */
+  public SteamStoreClient(boolean lazyDetails) {
+    this(newHttpClient(), new StoreDetailsCache(lazyDetails), lazyDetails);
+  }
+
+  /**
+   * Creates the HttpClient the server's Steam clients share: HTTP/2 with fallback to HTTP/1.1,
+   * following redirects.
+   *
+   * @return a new HttpClient
+   */
+  static HttpClient newHttpClient() {
+    return HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(REQUEST_TIMEOUT)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .build();
   }
 
   /**
@@ -46,11 +132,213 @@ public class SteamStoreClient {
    * @param httpClient the HttpClient to use for requests
    */
   public SteamStoreClient(HttpClient httpClient) {
+    this(httpClient, new StoreDetailsCache());
+  }
+
+  /**
+   * Creates a new SteamStoreClient with a custom HttpClient and cache (primarily for testing).
+   *
+   * @param httpClient the HttpClient to use for requests
+   * @param cache the cache for fetched store details
+   */
+  public SteamStoreClient(HttpClient httpClient, StoreDetailsCache cache) {
+    this(httpClient, cache, true);
+  }
+
+  /**
+   * Creates a new SteamStoreClient with explicit settings (primarily for testing).
+   *
+   * @param httpClient the HttpClient to use for requests
+   * @param cache the cache for fetched store details, created with the same details mode
+   * @param lazyDetails whether store details are materialized lazily from the raw response
+   */
+  public SteamStoreClient(HttpClient httpClient, StoreDetailsCache cache, boolean lazyDetails) {
+    this(httpClient, cache, lazyDetails, new ParsePool());
+  }
+
+  /**
+   * Creates a new SteamStoreClient with explicit settings (primarily for testing).
+   *
+   * @param httpClient the HttpClient to use for requests
+   * @param cache the cache for fetched store details, created with the same details mode
+   * @param lazyDetails whether store details are materialized lazily from the raw response
+   * @param parsePool the executor responses are parsed on
+   */
+  public SteamStoreClient(
+      HttpClient httpClient, StoreDetailsCache cache, boolean lazyDetails, ParsePool parsePool) {
+    this(
+        httpClient,
+        cache,
+        lazyDetails,
+        parsePool,
+        new RequestHedger(new StoreRateBudget(), false));
+  }
+
+  /**
+   * Creates a new SteamStoreClient with explicit settings (primarily for testing).
+   *
+   * @param httpClient the HttpClient to use for requests
+   * @param cache the cache for fetched store details, created with the same details mode
+   * @param lazyDetails whether store details are materialized lazily from the raw response
+   * @param parsePool the executor responses are parsed on
+   * @param hedger sends requests against the rate budget, hedging slow single-app requests if
+   *     enabled
+   */
+  public SteamStoreClient(
+      HttpClient httpClient,
+      StoreDetailsCache cache,
+      boolean lazyDetails,
+      ParsePool parsePool,
+      RequestHedger hedger) {
+    this(httpClient, cache, lazyDetails, parsePool, hedger, () -> KnownAppIds.NONE);
+  }
+
+  /**
+   * Creates a new SteamStoreClient with explicit settings.
+   *
+   * @param httpClient the HttpClient to use for requests
+   * @param cache the cache for fetched store details, created with the same details mode
+   * @param lazyDetails whether store details are materialized lazily from the raw response
+   * @param parsePool the executor responses are parsed on
+   * @param hedger sends requests against the rate budget, hedging slow single-app requests if
+   *     enabled
+   * @param knownAppIds supplies the app IDs of the current catalog snapshot; other IDs up to the
+   *     snapshot's largest are answered as not found without a request
+   */
+  public SteamStoreClient(
+      HttpClient httpClient,
+      StoreDetailsCache cache,
+      boolean lazyDetails,
+      ParsePool parsePool,
+      RequestHedger hedger,
+      Supplier<KnownAppIds> knownAppIds) {
+    this(httpClient, cache, lazyDetails, parsePool, hedger, knownAppIds, DEFAULT_TIMEOUT);
+  }
+
+  /**
+   * Creates a new SteamStoreClient with explicit settings and store timeout (primarily for
+   * testing).
+   *
+   * @param httpClient the HttpClient to use for requests
+   * @param cache the cache for fetched store details, created with the same details mode
+   * @param lazyDetails whether store details are materialized lazily from the raw response
+   * @param parsePool the executor responses are parsed on
+   * @param hedger sends requests against the rate budget, hedging slow single-app requests if
+   *     enabled
+   * @param knownAppIds supplies the app IDs of the current catalog snapshot
+   * @param storeTimeout how long the store may take to answer; calls with a deadline at least this
+   *     long count as failures of the store when they run out of time
+   */
+  SteamStoreClient(
+      HttpClient httpClient,
+      StoreDetailsCache cache,
+      boolean lazyDetails,
+      ParsePool parsePool,
+      RequestHedger hedger,
+      Supplier<KnownAppIds> knownAppIds,
+      Duration storeTimeout) {
+    this.knownAppIds = knownAppIds;
+    this.storeTimeout = storeTimeout;
+    this.refreshAhead = new RefreshAhead(cache.getClock());
     this.httpClient = httpClient;
+    this.cache = cache;
+    this.lazyDetails = lazyDetails;
+    this.parsePool = parsePool;
+    this.hedger = hedger;
+  }
+
+  /**
+   * Gets store details cache statistics for debugging/monitoring.
+   *
+   * @return string with cache info
+   */
+  public String getCacheInfo() {
+    return String.join(
+        "; ",
+        cache.getCacheInfo(),
+        jsonCache.getCacheInfo(),
+        parsePool.getInfo(),
+        hedger.getInfo(),
+        refreshAhead.getInfo(),
+        scheduler.getInfo(),
+        circuitBreaker.getInfo() + ", served stale " + staleServed.sum(),
+        knownAppIds.get().getInfo() + ", rejected " + notFound.sum(),
+        StoreSymbols.getInfo(),
+        CompressedText.getInfo());
+  }
+
+  /**
+   * Serializes store details for a response, reusing the JSON of cached details served before.
+   *
+   * @param details details returned by {@link #getStoreDetails}
+   * @param countryCode the country code the details were requested with
+   * @param language the language the details were requested with
+   * @param sections the sections to include
+   * @return the JSON fragment to splice into the response
+   */
+  RawJson toJson(
+      StoreDetails details,
+      Optional<String> countryCode,
+      Optional<String> language,
+      Set<StoreDetailsSection> sections) {
+    if (details.isSuccess()) {
+      StoreDetailsCache.Key key =
+          StoreDetailsCache.Key.of(details.getAppId(), countryCode, language);
+      OptionalLong contentHash = cache.contentHashOf(key, details);
+      if (contentHash.isPresent()) {
+        return jsonCache.toJson(key, contentHash.getAsLong(), details, sections);
+      }
+    }
+    return StoreDetailsJsonCache.serialize(details, sections);
+  }
+
+  /**
+   * Gets transfer statistics for debugging/monitoring.
+   *
+   * @return counters for received responses, protocol versions and bytes saved by compression
+   */
+  public TransferStats getTransferStats() {
+    return transferStats;
+  }
+
+  /**
+   * Gets the executor responses are parsed on, for debugging/monitoring.
+   *
+   * @return the parse pool with its queue depth and parse time counters
+   */
+  public ParsePool getParsePool() {
+    return parsePool;
+  }
+
+  /**
+   * Gets the request hedger, for debugging/monitoring.
+   *
+   * @return the hedger with its hedge and win counters
+   */
+  public RequestHedger getRequestHedger() {
+    return hedger;
+  }
+
+  /**
+   * Gets the circuit breaker guarding the store, for debugging/monitoring.
+   *
+   * @return the breaker with its state
+   */
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * Gets the scheduler all store requests pass through, for debugging/monitoring.
+   *
+   * @return the scheduler with its queues
+   */
+  public UpstreamScheduler getScheduler() {
+    return scheduler;
   }
 
   /**
-   * Fetches store details for multiple Steam applications.
+   * Fetches store details for multiple Steam applications within {@link #DEFAULT_TIMEOUT}.
    *
    * @param appIds list of Steam app IDs to fetch details for
    * @param countryCode optional ISO 3166-1 country code for region-specific pricing (e.g., "US",
@@ -61,371 +349,665 @@ public class SteamStoreClient {
    */
   public Mono<List<StoreDetails>> getStoreDetails(
       List<Integer> appIds, Optional<String> countryCode, Optional<String> language) {
+    return getStoreDetails(appIds, countryCode, language, DEFAULT_TIMEOUT);
+  }
+
+  /**
+   * Fetches store details for multiple Steam applications within a deadline.
+   *
+   * <p>Every request is sent with the time left until the deadline as its timeout. Apps that have
+   * not been answered when the deadline passes are cancelled and returned as {@link
+   * FailedStoreDetails} with {@link FetchFailure#TIMED_OUT}, so the call completes with all apps
+   * answered in time.
+   *
+   * @param appIds list of Steam app IDs to fetch details for
+   * @param countryCode optional ISO 3166-1 country code for region-specific pricing
+   * @param language optional language code for localized descriptions
+   * @param timeout time from now until the deadline
+   * @return Mono emitting a list of StoreDetails objects (may include failed requests with
+   *     success=false)
+   */
+  public Mono<List<StoreDetails>> getStoreDetails(
+      List<Integer> appIds,
+      Optional<String> countryCode,
+      Optional<String> language,
+      Duration timeout) {
     if (appIds == null || appIds.isEmpty()) {
       return Mono.just(List.of());
     }
+    Deadline deadline = deadline(timeout);
 
-    // Make parallel requests for each app ID (Steam Store API doesn't support batch requests)
+    // Make parallel requests for each app ID (full appdetails responses can't be batched; only
+    // the price_overview filter accepts multiple app IDs, see getPrices)
     return Flux.fromIterable(appIds)
-        .flatMap(appId -> fetchSingleAppDetails(appId, countryCode, language))
+        .flatMap(
+            appId ->
+                withDeadline(
+                    deadline,
+                    remaining ->
+                        fetchSingleAppDetails(appId, countryCode, language, remaining, deadline),
+                    () ->
+                        createFailedStoreDetails(appId, FetchFailure.TIMED_OUT, timedOut(timeout))))
         .collectList()
         .subscribeOn(Schedulers.boundedElastic());
   }
 
+  /**
+   * The deadline of a call.
+   *
+   * @param nanos the deadline as a {@link System#nanoTime()} value
+   * @param givesStoreFullTime whether the caller allowed the store its full timeout, so running out
+   *     of time means the store hung rather than that the caller was impatient
+   */
+  private record Deadline(long nanos, boolean givesStoreFullTime) {
+    Duration remaining() {
+      return Duration.ofNanos(nanos - System.nanoTime());
+    }
+
+    boolean hasPassed() {
+      return System.nanoTime() - nanos >= 0;
+    }
+  }
+
+  private Deadline deadline(Duration timeout) {
+    return new Deadline(
+        System.nanoTime() + timeout.toNanos(), timeout.compareTo(storeTimeout) >= 0);
+  }
+
+  /**
+   * Runs a fetch with the time left until a deadline, substituting a fallback if the deadline
+   * passes first. Reactor cancels the fetch when the fallback is used, and the fetches cancel
+   * their requests in turn, so a request still waiting for a slot is never sent.
+   *
+   * @param deadline the deadline of the call
+   * @param fetch creates the fetch, given the time left to use as request timeout
+   * @param timedOut creates the result for a fetch that ran out of time
+   * @return Mono emitting the fetched or the fallback result
+   */
+  private static <T> Mono<T> withDeadline(
+      Deadline deadline, Function<Duration, Mono<T>> fetch, Supplier<T> timedOut) {
+    return Mono.defer(
+        () -> {
+          Duration remaining = deadline.remaining();
+          if (remaining.isNegative() || remaining.isZero()) {
+            return Mono.fromSupplier(timedOut);
+          }
+          return fetch.apply(remaining).timeout(remaining, Mono.fromSupplier(timedOut));
+        });
+  }
+
+  private static String timedOut(Duration timeout) {
+    return "Timed out after " + timeout.toMillis() + " ms";
+  }
+
+  private static String httpFailed(Throwable e) {
+    return "HTTP request failed: " + e.getMessage();
+  }
+
   /**
    * Fetches store details for a single Steam application.
    *
+   * <p>Fresh cache entries are returned without a request. Expired entries are revalidated with a
+   * conditional request carrying their validators, or served as they are while the circuit breaker
+   * is open.
+   *
    * @param appId the Steam app ID
    * @param countryCode optional country code for region-specific pricing
    * @param language optional language code for localized descriptions
+   * @param timeout the request timeout
+   * @param deadline the deadline of the call
    * @return Mono emitting a StoreDetails object
    */
   private Mono<StoreDetails> fetchSingleAppDetails(
-      int appId, Optional<String> countryCode, Optional<String> language) {
+      int appId,
+      Optional<String> countryCode,
+      Optional<String> language,
+      Duration timeout,
+      Deadline deadline) {
+    if (!isKnown(appId)) {
+      return Mono.just(createFailedStoreDetails(appId, FetchFailure.NOT_FOUND, NOT_FOUND));
+    }
+    StoreDetailsCache.Key key = StoreDetailsCache.Key.of(appId, countryCode, language);
+    Optional<StoreDetailsCache.Entry> fresh = cache.getFresh(key);
+    if (fresh.isPresent()) {
+      if (refreshAhead.onHit(key, fresh.get(), this::mayRefresh)) {
+        refreshInBackground(key, fresh.get(), countryCode, language);
+      }
+      return Mono.just(fresh.get().details());
+    }
+    if (cache.isUnavailable(key)) {
+      return Mono.just(createFailedStoreDetails(appId, FetchFailure.UNAVAILABLE, UNAVAILABLE));
+    }
+    Optional<StoreDetailsCache.Entry> stale = cache.get(key);
+    if (!circuitBreaker.tryAcquire()) {
+      if (stale.isPresent()) {
+        staleServed.increment();
+        return Mono.just(stale.get().details());
+      }
+      return Mono.just(createFailedStoreDetails(appId, FetchFailure.CIRCUIT_OPEN, CIRCUIT_OPEN));
+    }
+
     String url = buildUrl(appId, countryCode, language);
 
-    HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).GET().build();
+    HttpRequest request = newConditionalRequest(url, stale, timeout);
 
+    CompletableFuture<HttpResponse<String>> sent =
+        hedger.send(() -> send(UpstreamScheduler.Priority.INTERACTIVE, request));
     CompletableFuture<StoreDetails> future =
-        httpClient
-            .sendAsync(request, HttpResponse.BodyHandlers.ofString())
-            .thenApply(response -> parseStoreDetailsResponse(appId, response.body()));
+        guarded(deadline, sent)
+            .thenApplyAsync(
+                response -> handleStoreDetailsResponse(key, stale, response), parsePool);
 
     return Mono.fromCompletionStage(future)
+        // Cancelling the dependent future does not reach the request, so cancel the request itself
+        .doOnCancel(() -> sent.cancel(true))
         .onErrorResume(
             e ->
                 Mono.just(
-                    createFailedStoreDetails(appId, "HTTP request failed: " + e.getMessage())));
+                    isTimeout(e)
+                        ? createFailedStoreDetails(appId, FetchFailure.TIMED_OUT, timedOut(timeout))
+                        : createFailedStoreDetails(appId, FetchFailure.HTTP_ERROR, httpFailed(e))));
   }
 
   /**
-   * Builds the Steam Store API URL with optional parameters.
-   *
-   * @param appId the Steam app ID
-   * @param countryCode optional country code
-   * @param language optional language code
-   * @return the complete URL string
+   * Whether a background refresh may be sent now; counts it against the rate budget if so.
+   * Refreshes only run while the circuit is closed, leaving a recovering store to the probes.
    */
-  private String buildUrl(int appId, Optional<String> countryCode, Optional<String> language) {
-    StringBuilder url = new StringBuilder(STORE_API_BASE_URL);
-    url.append("?appids=").append(appId);
-
-    countryCode.ifPresent(cc -> url.append("&cc=").append(cc));
-    language.ifPresent(lang -> url.append("&l=").append(lang));
+  private boolean mayRefresh() {
+    return circuitBreaker.getState() == CircuitBreaker.State.CLOSED
+        && hedger.getBudget().tryAcquireRefresh();
+  }
 
-    return url.toString();
+  /**
+   * Revalidates a fresh cache entry without anyone waiting for the result. The request is not
+   * hedged and is not sent through the circuit breaker's probe slots; its outcome is recorded only
+   * while the circuit is closed.
+   *
+   * @param key the cache key
+   * @param entry the entry to revalidate
+   * @param countryCode optional country code for region-specific pricing
+   * @param language optional language code for localized descriptions
+   */
+  private void refreshInBackground(
+      StoreDetailsCache.Key key,
+      StoreDetailsCache.Entry entry,
+      Optional<String> countryCode,
+      Optional<String> language) {
+    HttpRequest request =
+        newConditionalRequest(
+            buildUrl(key.appId(), countryCode, language), Optional.of(entry), DEFAULT_TIMEOUT);
+    unprobed(send(UpstreamScheduler.Priority.BACKGROUND, request))
+        .thenApplyAsync(
+            response -> handleStoreDetailsResponse(key, Optional.of(entry), response), parsePool)
+        .whenComplete(
+            (details, e) -> refreshAhead.finished(key, e == null && details.isSuccess()));
   }
 
   /**
-   * Parses the JSON response from Steam Store API into a StoreDetails object.
+   * Turns a (possibly conditional) store response into StoreDetails, updating the cache.
    *
-   * @param appId the Steam app ID that was requested
-   * @param responseBody the JSON response body
-   * @return StoreDetails object with success flag indicating if the request succeeded
+   * @param key the cache key of the requested app
+   * @param stale the expired cache entry that was revalidated, if any
+   * @param response the HTTP response
+   * @return the cached details if unchanged, otherwise freshly parsed details
    */
-  private StoreDetails parseStoreDetailsResponse(int appId, String responseBody) {
-    try {
-      JSONObject root = new JSONObject(responseBody);
-      JSONObject appData = root.getJSONObject(String.valueOf(appId));
+  private StoreDetails handleStoreDetailsResponse(
+      StoreDetailsCache.Key key,
+      Optional<StoreDetailsCache.Entry> stale,
+      HttpResponse<String> response) {
+    int status = response.statusCode();
+    Optional<String> etag = header(response, "ETag");
+    Optional<String> lastModified = header(response, "Last-Modified");
+
+    if (stale.isPresent() && status == HTTP_NOT_MODIFIED) {
+      return cache.renew(key, stale.get(), etag, lastModified).details();
+    }
+    if (CircuitBreaker.isUpstreamFailure(status)) {
+      return createFailedStoreDetails(key.appId(), FetchFailure.HTTP_ERROR, "HTTP " + status);
+    }
 
-      boolean success = appData.optBoolean("success", false);
+    String body = response.body();
+    long contentHash = contentHash(body);
+    if (stale.isPresent() && stale.get().contentHash() == contentHash) {
+      // Store sent no usable validators, but the payload is identical: skip re-parsing
+      return cache.renew(key, stale.get(), etag, lastModified).details();
+    }
 
-      if (!success) {
-        return createFailedStoreDetails(appId, "Steam API returned success=false");
-      }
+    StoreDetails details = parseStoreDetailsResponse(key.appId(), body);
+    if (details.isSuccess()) {
+      cache.put(key, details, etag, lastModified, contentHash);
+    } else if (details instanceof FailedStoreDetails failed
+        && failed.getFailure() == FetchFailure.UNAVAILABLE) {
+      cache.markUnavailable(key);
+    }
+    return details;
+  }
 
-      JSONObject data = appData.getJSONObject("data");
+  /**
+   * Builds a GET request that revalidates an expired cache entry if one exists.
+   *
+   * @param url the request URL
+   * @param stale the expired cache entry, if any
+   * @param timeout the request timeout
+   * @return the HTTP request
+   */
+  private HttpRequest newConditionalRequest(
+      String url, Optional<StoreDetailsCache.Entry> stale, Duration timeout) {
+    HttpRequest.Builder builder = newRequestBuilder(url, timeout);
+    stale.flatMap(StoreDetailsCache.Entry::etag).ifPresent(v -> builder.header("If-None-Match", v));
+    stale
+        .flatMap(StoreDetailsCache.Entry::lastModified)
+        .ifPresent(v -> builder.header("If-Modified-Since", v));
+    return builder.build();
+  }
 
-      return new StoreDetails(
-          appId,
-          data.optString("type", "unknown"),
-          data.optString("name", "Unknown"),
-          data.optInt("required_age", 0),
-          data.optBoolean("is_free", false),
-          optString(data, "controller_support"),
-          optIntList(data, "dlc"),
-          optString(data, "detailed_description"),
-          optString(data, "about_the_game"),
-          optString(data, "short_description"),
-          parsePriceOverview(data),
-          optString(data, "header_image"),
-          parseScreenshots(data),
-          parseMovies(data),
-          parseCategories(data),
-          parseGenres(data),
-          parseStringList(data, "developers"),
-          parseStringList(data, "publishers"),
-          optString(data, "supported_languages"),
-          parsePlatforms(data),
-          parseRequirements(data, "pc_requirements"),
-          parseRequirements(data, "mac_requirements"),
-          parseRequirements(data, "linux_requirements"),
-          parseMetacritic(data),
-          parseRecommendations(data),
-          parseAchievements(data),
-          parseReleaseDate(data),
-          optString(data, "website"),
-          optString(data, "legal_notice"),
-          true);
+  private static Optional<String> header(HttpResponse<?> response, String name) {
+    HttpHeaders headers = response.headers();
+    return headers != null ? headers.firstValue(name) : Optional.empty();
+  }
 
-    } catch (Exception e) {
-      return createFailedStoreDetails(appId, "Failed to parse response: " + e.getMessage());
+  /**
+   * Computes a 64-bit FNV-1a hash of a response body, used to detect unchanged content when the
+   * store sends no validators.
+   *
+   * @param body the response body
+   * @return the hash value
+   */
+  static long contentHash(String body) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < body.length(); i++) {
+      hash ^= body.charAt(i);
+      hash *= 0x100000001b3L;
     }
+    return hash;
   }
 
   /**
-   * Creates a failed StoreDetails object for error cases.
+   * Fetches current prices for multiple Steam applications using batched requests.
    *
-   * @param appId the app ID that failed
-   * @param reason the error reason
-   * @return StoreDetails with success=false and minimal data
+   * <p>The appdetails endpoint accepts a comma-separated list of app IDs when the response is
+   * restricted to the price_overview section, so up to {@link #PRICE_BATCH_SIZE} apps are priced
+   * per HTTP request instead of one request per app.
+   *
+   * @param appIds list of Steam app IDs to fetch prices for
+   * @param countryCode optional ISO 3166-1 country code for region-specific pricing
+   * @return Mono emitting one AppPrice per distinct app ID, in request order (failed lookups have
+   *     success=false)
    */
-  private StoreDetails createFailedStoreDetails(int appId, String reason) {
-    return new StoreDetails(
-        appId,
-        "error",
-        "Failed to fetch details: " + reason,
-        0,
-        false,
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        new StoreDetails.Platforms(false, false, false),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        Optional.empty(),
-        new StoreDetails.ReleaseDate(false, "Unknown"),
-        Optional.empty(),
-        Optional.empty(),
-        false);
-  }
-
-  // Helper parsing methods
-
-  private Optional<String> optString(JSONObject obj, String key) {
-    if (obj.has(key) && !obj.isNull(key)) {
-      String value = obj.getString(key);
-      return value.isEmpty() ? Optional.empty() : Optional.of(value);
-    }
-    return Optional.empty();
+  public Mono<List<AppPrice>> getPrices(List<Integer> appIds, Optional<String> countryCode) {
+    return getPrices(appIds, countryCode, DEFAULT_TIMEOUT);
   }
 
-  private Optional<List<Integer>> optIntList(JSONObject obj, String key) {
-    if (obj.has(key) && !obj.isNull(key)) {
-      JSONArray arr = obj.getJSONArray(key);
-      List<Integer> list = new ArrayList<>();
-      for (int i = 0; i < arr.length(); i++) {
-        list.add(arr.getInt(i));
+  /**
+   * Fetches current prices for multiple Steam applications within a deadline. Batches that have
+   * not been answered when the deadline passes are cancelled and their apps returned with {@link
+   * FetchFailure#TIMED_OUT}.
+   *
+   * @param appIds list of Steam app IDs to fetch prices for
+   * @param countryCode optional ISO 3166-1 country code for region-specific pricing
+   * @param timeout time from now until the deadline
+   * @return Mono emitting one AppPrice per distinct app ID, in request order
+   */
+  public Mono<List<AppPrice>> getPrices(
+      List<Integer> appIds, Optional<String> countryCode, Duration timeout) {
+    if (appIds == null || appIds.isEmpty()) {
+      return Mono.just(List.of());
+    }
+    Deadline deadline = deadline(timeout);
+
+    List<Integer> distinctIds = appIds.stream().distinct().toList();
+    // Unknown apps and apps the store recently answered with success=false are not requested
+    Map<Integer, AppPrice> skipped = new HashMap<>();
+    List<Integer> requestIds = new ArrayList<>(distinctIds.size());
+    for (int appId : distinctIds) {
+      if (!isKnown(appId)) {
+        skipped.put(appId, AppPrice.failed(appId, FetchFailure.NOT_FOUND, NOT_FOUND));
+      } else if (cache.isUnavailable(priceKey(appId, countryCode))) {
+        skipped.put(appId, AppPrice.failed(appId, FetchFailure.UNAVAILABLE, UNAVAILABLE));
+      } else {
+        requestIds.add(appId);
       }
-      return list.isEmpty() ? Optional.empty() : Optional.of(list);
     }
-    return Optional.empty();
-  }
-
-  private Optional<StoreDetails.PriceOverview> parsePriceOverview(JSONObject data) {
-    if (!data.has("price_overview") || data.isNull("price_overview")) {
-      return Optional.empty();
+    List<List<Integer>> batches = new ArrayList<>();
+    for (int i = 0; i < requestIds.size(); i += PRICE_BATCH_SIZE) {
+      batches.add(requestIds.subList(i, Math.min(i + PRICE_BATCH_SIZE, requestIds.size())));
     }
 
-    JSONObject po = data.getJSONObject("price_overview");
-    return Optional.of(
-        new StoreDetails.PriceOverview(
-            po.optString("currency", "USD"),
-            po.optInt("initial", 0),
-            po.optInt("final", 0),
-            po.optInt("discount_percent", 0),
-            optString(po, "final_formatted")));
+    return Flux.fromIterable(batches)
+        .flatMapSequential(
+            batch ->
+                withDeadline(
+                    deadline,
+                    remaining -> fetchPriceBatch(batch, countryCode, remaining, deadline),
+                    () -> failedPrices(batch, FetchFailure.TIMED_OUT, timedOut(timeout))))
+        .flatMapIterable(prices -> prices)
+        .collectList()
+        .map(prices -> skipped.isEmpty() ? prices : merge(distinctIds, prices, skipped))
+        .subscribeOn(Schedulers.boundedElastic());
   }
 
-  private Optional<List<StoreDetails.Screenshot>> parseScreenshots(JSONObject data) {
-    if (!data.has("screenshots") || data.isNull("screenshots")) {
-      return Optional.empty();
-    }
-
-    JSONArray arr = data.getJSONArray("screenshots");
-    List<StoreDetails.Screenshot> screenshots = new ArrayList<>();
-    for (int i = 0; i < arr.length(); i++) {
-      JSONObject ss = arr.getJSONObject(i);
-      screenshots.add(
-          new StoreDetails.Screenshot(
-              ss.optInt("id", i),
-              ss.optString("path_thumbnail", ""),
-              ss.optString("path_full", "")));
+  /**
+   * Merges fetched prices with the answers for apps that were not requested.
+   *
+   * @param appIds all requested app IDs, in request order
+   * @param fetched the prices of the apps that were requested
+   * @param skipped the answers for the other apps, by app ID
+   * @return one AppPrice per app ID, in request order
+   */
+  private static List<AppPrice> merge(
+      List<Integer> appIds, List<AppPrice> fetched, Map<Integer, AppPrice> skipped) {
+    Map<Integer, AppPrice> byId = new HashMap<>(skipped);
+    fetched.forEach(price -> byId.put(price.getAppId(), price));
+    List<AppPrice> prices = new ArrayList<>(appIds.size());
+    for (int appId : appIds) {
+      prices.add(byId.get(appId));
     }
-    return screenshots.isEmpty() ? Optional.empty() : Optional.of(screenshots);
+    return prices;
   }
 
-  private Optional<List<StoreDetails.Movie>> parseMovies(JSONObject data) {
-    if (!data.has("movies") || data.isNull("movies")) {
-      return Optional.empty();
+  /**
+   * Checks an app ID against the catalog snapshot, counting the IDs that are rejected.
+   *
+   * @param appId the Steam app ID
+   * @return false if the app is known not to exist
+   */
+  private boolean isKnown(int appId) {
+    if (knownAppIds.get().mightExist(appId)) {
+      return true;
     }
+    notFound.increment();
+    return false;
+  }
 
-    JSONArray arr = data.getJSONArray("movies");
-    List<StoreDetails.Movie> movies = new ArrayList<>();
-    for (int i = 0; i < arr.length(); i++) {
-      JSONObject movie = arr.getJSONObject(i);
-      JSONObject webm = movie.optJSONObject("webm");
-      JSONObject mp4 = movie.optJSONObject("mp4");
-
-      if (webm != null) {
-        movies.add(
-            new StoreDetails.Movie(
-                movie.optInt("id", i),
-                movie.optString("name", ""),
-                movie.optString("thumbnail", ""),
-                new StoreDetails.Movie.Webm(webm.optString("480", ""), webm.optString("max", "")),
-                mp4 != null
-                    ? Optional.of(
-                        new StoreDetails.Movie.Mp4(
-                            mp4.optString("480", ""), mp4.optString("max", "")))
-                    : Optional.empty()));
-      }
-    }
-    return movies.isEmpty() ? Optional.empty() : Optional.of(movies);
+  private static StoreDetailsCache.Key priceKey(int appId, Optional<String> countryCode) {
+    return StoreDetailsCache.Key.of(appId, countryCode, Optional.empty());
   }
 
-  private Optional<List<StoreDetails.Category>> parseCategories(JSONObject data) {
-    if (!data.has("categories") || data.isNull("categories")) {
-      return Optional.empty();
-    }
+  /**
+   * Fetches prices for a single batch of Steam applications with one request.
+   *
+   * @param appIds the app IDs in this batch
+   * @param countryCode optional country code for region-specific pricing
+   * @param timeout the request timeout
+   * @param deadline the deadline of the call
+   * @return Mono emitting one AppPrice per app ID in the batch
+   */
+  private Mono<List<AppPrice>> fetchPriceBatch(
+      List<Integer> appIds, Optional<String> countryCode, Duration timeout, Deadline deadline) {
+    String url = buildPriceUrl(appIds, countryCode);
 
-    JSONArray arr = data.getJSONArray("categories");
-    List<StoreDetails.Category> categories = new ArrayList<>();
-    for (int i = 0; i < arr.length(); i++) {
-      JSONObject cat = arr.getJSONObject(i);
-      categories.add(
-          new StoreDetails.Category(cat.optInt("id", 0), cat.optString("description", "")));
+    HttpRequest request = newRequestBuilder(url, timeout).build();
+    if (!circuitBreaker.tryAcquire()) {
+      return Mono.just(failedPrices(appIds, FetchFailure.CIRCUIT_OPEN, CIRCUIT_OPEN));
     }
-    return categories.isEmpty() ? Optional.empty() : Optional.of(categories);
-  }
 
-  private Optional<List<StoreDetails.Genre>> parseGenres(JSONObject data) {
-    if (!data.has("genres") || data.isNull("genres")) {
-      return Optional.empty();
-    }
+    CompletableFuture<HttpResponse<String>> sent =
+        hedger.sendUnhedged(() -> send(UpstreamScheduler.Priority.INTERACTIVE, request));
+    CompletableFuture<List<AppPrice>> future =
+        guarded(deadline, sent)
+            .thenApplyAsync(
+                response -> handlePriceResponse(appIds, countryCode, response), parsePool);
 
-    JSONArray arr = data.getJSONArray("genres");
-    List<StoreDetails.Genre> genres = new ArrayList<>();
-    for (int i = 0; i < arr.length(); i++) {
-      JSONObject genre = arr.getJSONObject(i);
-      genres.add(
-          new StoreDetails.Genre(genre.optString("id", ""), genre.optString("description", "")));
-    }
-    return genres.isEmpty() ? Optional.empty() : Optional.of(genres);
+    return Mono.fromCompletionStage(future)
+        .doOnCancel(() -> sent.cancel(true))
+        .onErrorResume(
+            e ->
+                Mono.just(
+                    isTimeout(e)
+                        ? failedPrices(appIds, FetchFailure.TIMED_OUT, timedOut(timeout))
+                        : failedPrices(appIds, FetchFailure.HTTP_ERROR, httpFailed(e))));
   }
 
-  private Optional<List<String>> parseStringList(JSONObject data, String key) {
-    if (!data.has(key) || data.isNull(key)) {
-      return Optional.empty();
-    }
+  /**
+   * Starts a GET request that negotiates a compressed response.
+   *
+   * @param url the request URL
+   * @param timeout how long to wait for the response
+   * @return the request builder
+   */
+  private HttpRequest.Builder newRequestBuilder(String url, Duration timeout) {
+    return HttpRequest.newBuilder()
+        .uri(URI.create(url))
+        .timeout(timeout)
+        .header("Accept-Encoding", DecompressingBodyHandler.ACCEPT_ENCODING)
+        .GET();
+  }
 
-    JSONArray arr = data.getJSONArray(key);
-    List<String> list = new ArrayList<>();
-    for (int i = 0; i < arr.length(); i++) {
-      list.add(arr.getString(i));
-    }
-    return list.isEmpty() ? Optional.empty() : Optional.of(list);
+  /**
+   * Builds the Steam Store API URL with optional parameters.
+   *
+   * @param appId the Steam app ID
+   * @param countryCode optional country code
+   * @param language optional language code
+   * @return the complete URL string
+   */
+  private String buildUrl(int appId, Optional<String> countryCode, Optional<String> language) {
+    StringBuilder url = new StringBuilder(STORE_API_BASE_URL);
+    url.append("?appids=").append(appId);
+
+    countryCode.ifPresent(cc -> url.append("&cc=").append(cc));
+    language.ifPresent(lang -> url.append("&l=").append(lang));
+
+    return url.toString();
   }
 
-  private StoreDetails.Platforms parsePlatforms(JSONObject data) {
-    if (!data.has("platforms") || data.isNull("platforms")) {
-      return new StoreDetails.Platforms(false, false, false);
+  /**
+   * Builds the batched price URL for multiple app IDs.
+   *
+   * @param appIds the app IDs to include
+   * @param countryCode optional country code
+   * @return the complete URL string
+   */
+  private String buildPriceUrl(List<Integer> appIds, Optional<String> countryCode) {
+    StringBuilder url = new StringBuilder(STORE_API_BASE_URL);
+    url.append("?appids=");
+    for (int i = 0; i < appIds.size(); i++) {
+      if (i > 0) {
+        url.append(',');
+      }
+      url.append(appIds.get(i));
     }
+    url.append("&filters=price_overview");
+
+    countryCode.ifPresent(cc -> url.append("&cc=").append(cc));
 
-    JSONObject platforms = data.getJSONObject("platforms");
-    return new StoreDetails.Platforms(
-        platforms.optBoolean("windows", false),
-        platforms.optBoolean("mac", false),
-        platforms.optBoolean("linux", false));
+    return url.toString();
   }
 
-  private Optional<StoreDetails.Requirements> parseRequirements(JSONObject data, String key) {
-    if (!data.has(key) || data.isNull(key)) {
-      return Optional.empty();
+  /**
+   * Turns a batched price response into one AppPrice per requested app ID. Error statuses fail the
+   * whole batch with {@link FetchFailure#HTTP_ERROR}, since their bodies are not price data.
+   *
+   * @param appIds the app IDs that were requested
+   * @param countryCode the requested country code, if any
+   * @param response the HTTP response
+   * @return list of AppPrice objects in request order
+   */
+  private List<AppPrice> handlePriceResponse(
+      List<Integer> appIds, Optional<String> countryCode, HttpResponse<String> response) {
+    int status = response.statusCode();
+    if (status != HTTP_OK) {
+      return failedPrices(appIds, FetchFailure.HTTP_ERROR, "HTTP " + status);
     }
+    return parsePriceResponse(appIds, countryCode, response.body());
+  }
 
-    Object reqObj = data.get(key);
-    // Sometimes requirements is an empty array instead of an object
-    if (reqObj instanceof JSONArray) {
-      return Optional.empty();
+  /**
+   * Parses a batched price response into one AppPrice per requested app ID.
+   *
+   * <p>Free apps return an empty array instead of a data object, which is reported as a successful
+   * lookup without a price. Apps answered with success=false are remembered as unavailable.
+   *
+   * @param appIds the app IDs that were requested
+   * @param countryCode the requested country code, if any
+   * @param responseBody the JSON response body
+   * @return list of AppPrice objects in request order
+   */
+  private List<AppPrice> parsePriceResponse(
+      List<Integer> appIds, Optional<String> countryCode, String responseBody) {
+    JSONObject root;
+    try {
+      root = new JSONObject(responseBody);
+    } catch (Exception e) {
+      return failedPrices(
+          appIds, FetchFailure.PARSE_ERROR, "Failed to parse response: " + e.getMessage());
     }
 
-    JSONObject req = (JSONObject) reqObj;
-    Optional<String> minimum = optString(req, "minimum");
-    Optional<String> recommended = optString(req, "recommended");
-
-    if (minimum.isEmpty() && recommended.isEmpty()) {
-      return Optional.empty();
+    List<AppPrice> prices = new ArrayList<>(appIds.size());
+    for (int appId : appIds) {
+      JSONObject appData = root.optJSONObject(String.valueOf(appId));
+      if (appData == null) {
+        prices.add(
+            AppPrice.failed(appId, FetchFailure.UNAVAILABLE, "Missing from Steam API response"));
+      } else if (!appData.optBoolean("success", false)) {
+        cache.markUnavailable(priceKey(appId, countryCode));
+        prices.add(AppPrice.failed(appId, FetchFailure.UNAVAILABLE, UNAVAILABLE));
+      } else {
+        JSONObject data = appData.optJSONObject("data");
+        prices.add(
+            new AppPrice(
+                appId,
+                true,
+                data != null ? StoreDetailsParser.parsePriceOverview(data) : Optional.empty(),
+                Optional.empty()));
+      }
     }
+    return prices;
+  }
 
-    return Optional.of(new StoreDetails.Requirements(minimum, recommended));
+  private static List<AppPrice> failedPrices(
+      List<Integer> appIds, FetchFailure failure, String message) {
+    return appIds.stream().map(appId -> AppPrice.failed(appId, failure, message)).toList();
   }
 
-  private Optional<StoreDetails.Metacritic> parseMetacritic(JSONObject data) {
-    if (!data.has("metacritic") || data.isNull("metacritic")) {
-      return Optional.empty();
-    }
+  /**
+   * Sends a store request through the scheduler.
+   *
+   * @param priority the request's class
+   * @param request the request
+   * @return the response future
+   */
+  private CompletableFuture<HttpResponse<String>> send(
+      UpstreamScheduler.Priority priority, HttpRequest request) {
+    return scheduler.submit(priority, () -> httpClient.sendAsync(request, bodyHandler));
+  }
 
-    JSONObject mc = data.getJSONObject("metacritic");
-    return Optional.of(new StoreDetails.Metacritic(mc.optInt("score", 0), mc.optString("url", "")));
+  /**
+   * Records the outcome of a store request with the circuit breaker.
+   *
+   * @param deadline the deadline of the call the request belongs to
+   * @param response the pending response
+   * @return the same response
+   */
+  private <T extends HttpResponse<?>> CompletableFuture<T> guarded(
+      Deadline deadline, CompletableFuture<T> response) {
+    return response.whenComplete(
+        (r, e) -> {
+          if (e == null) {
+            circuitBreaker.recordStatus(r.statusCode());
+          } else if (isUpstreamFailure(deadline, e)) {
+            circuitBreaker.recordFailure();
+          } else {
+            circuitBreaker.release();
+          }
+        });
   }
 
-  private Optional<StoreDetails.Recommendations> parseRecommendations(JSONObject data) {
-    if (!data.has("recommendations") || data.isNull("recommendations")) {
-      return Optional.empty();
+  /**
+   * Records the outcome of a store request that did not ask the circuit breaker for permission.
+   * Such requests have no caller and always give the store its full timeout.
+   *
+   * @param response the pending response
+   * @return the same response
+   */
+  private <T extends HttpResponse<?>> CompletableFuture<T> unprobed(
+      CompletableFuture<T> response) {
+    Deadline deadline = deadline(storeTimeout);
+    return response.whenComplete(
+        (r, e) -> {
+          if (e == null) {
+            circuitBreaker.recordUnprobed(CircuitBreaker.isUpstreamFailure(r.statusCode()));
+          } else if (isUpstreamFailure(deadline, e)) {
+            circuitBreaker.recordUnprobed(true);
+          }
+        });
+  }
+
+  /**
+   * Whether a failed request says something about the store's health. Running out of time does
+   * only if the caller gave the store its full timeout, so impatient callers cannot open the
+   * circuit for everyone; either way, the request times out or is cancelled once the deadline
+   * passes. Requests cancelled before the deadline say nothing about the store.
+   *
+   * @param deadline the deadline of the call the request belongs to
+   * @param e the failure
+   * @return true for transport errors and for running out of a full-length deadline
+   */
+  private static boolean isUpstreamFailure(Deadline deadline, Throwable e) {
+    Throwable cause = unwrap(e);
+    if (cause instanceof HttpTimeoutException) {
+      return deadline.givesStoreFullTime();
+    }
+    if (cause instanceof CancellationException) {
+      return deadline.givesStoreFullTime() && deadline.hasPassed();
     }
+    return cause instanceof IOException;
+  }
 
-    JSONObject rec = data.getJSONObject("recommendations");
-    return Optional.of(new StoreDetails.Recommendations(rec.optInt("total", 0)));
+  private static boolean isTimeout(Throwable e) {
+    return unwrap(e) instanceof HttpTimeoutException;
   }
 
-  private Optional<StoreDetails.Achievements> parseAchievements(JSONObject data) {
-    if (!data.has("achievements") || data.isNull("achievements")) {
-      return Optional.empty();
-    }
+  private static Throwable unwrap(Throwable e) {
+    return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+  }
 
-    JSONObject ach = data.getJSONObject("achievements");
-    int total = ach.optInt("total", 0);
-
-    Optional<List<StoreDetails.Achievements.Highlighted>> highlighted = Optional.empty();
-    if (ach.has("highlighted") && !ach.isNull("highlighted")) {
-      JSONArray hlArray = ach.getJSONArray("highlighted");
-      List<StoreDetails.Achievements.Highlighted> hlList = new ArrayList<>();
-      for (int i = 0; i < hlArray.length(); i++) {
-        JSONObject hl = hlArray.getJSONObject(i);
-        hlList.add(
-            new StoreDetails.Achievements.Highlighted(
-                hl.optString("name", ""), hl.optString("path", "")));
+  /**
+   * Parses the JSON response from Steam Store API into a StoreDetails object.
+   *
+   * @param appId the Steam app ID that was requested
+   * @param responseBody the JSON response body
+   * @return StoreDetails object with success flag indicating if the request succeeded
+   */
+  private StoreDetails parseStoreDetailsResponse(int appId, String responseBody) {
+    try {
+      if (lazyDetails) {
+        Optional<LazyStoreDetails> lazy = LazyStoreDetails.fromResponse(appId, responseBody);
+        if (lazy.isEmpty()) {
+          return createFailedStoreDetails(appId, FetchFailure.UNAVAILABLE, UNAVAILABLE);
+        }
+        return lazy.get();
       }
-      if (!hlList.isEmpty()) {
-        highlighted = Optional.of(hlList);
+
+      JSONObject root = new JSONObject(responseBody);
+      JSONObject appData = root.getJSONObject(String.valueOf(appId));
+
+      boolean success = appData.optBoolean("success", false);
+
+      if (!success) {
+        return createFailedStoreDetails(appId, FetchFailure.UNAVAILABLE, UNAVAILABLE);
       }
-    }
 
-    return Optional.of(new StoreDetails.Achievements(total, highlighted));
-  }
+      JSONObject data = appData.getJSONObject("data");
+
+      return StoreDetailsParser.parse(appId, data);
 
-  private StoreDetails.ReleaseDate parseReleaseDate(JSONObject data) {
-    if (!data.has("release_date") || data.isNull("release_date")) {
-      return new StoreDetails.ReleaseDate(false, "Unknown");
+    } catch (Exception e) {
+      return createFailedStoreDetails(
+          appId, FetchFailure.PARSE_ERROR, "Failed to parse response: " + e.getMessage());
     }
+  }
 
-    JSONObject rd = data.getJSONObject("release_date");
-    return new StoreDetails.ReleaseDate(
-        rd.optBoolean("coming_soon", false), rd.optString("date", "Unknown"));
+  /**
+   * Creates a failed StoreDetails object for error cases.
+   *
+   * @param appId the app ID that failed
+   * @param failure why the app failed
+   * @param reason the error reason
+   * @return StoreDetails with success=false and minimal data
+   */
+  private static StoreDetails createFailedStoreDetails(
+      int appId, FetchFailure failure, String reason) {
+    return new FailedStoreDetails(appId, failure, reason);
   }
 }
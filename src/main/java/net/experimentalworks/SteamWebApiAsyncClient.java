@@ -0,0 +1,213 @@
+package net.experimentalworks;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.lukaspradel.steamapi.core.exception.SteamApiException;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking client for the Steam Web API endpoints used by the server.
+ *
+ * <p>Requests are sent with {@link HttpClient#sendAsync}, so no thread waits while a call is in
+ * flight. The HttpClient is passed in and meant to be shared with {@link SteamStoreClient}, which
+ * gives both clients one connection pool. Failed calls complete the returned Mono with a {@link
+ * SteamApiException}, like the blocking steam-web-api client did.
+ *
+ * <p>A {@link CircuitBreaker} tracks throttling and failures of the Web API. While it is open,
+ * calls fail immediately without sending a request.
+ */
+public class SteamWebApiAsyncClient {
+  private static final String WEB_API_BASE_URL = "https://api.steampowered.com";
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+  private final String apiKey;
+  private final HttpClient httpClient;
+  private final String baseUrl;
+  private final TransferStats transferStats = new TransferStats();
+  private final DecompressingBodyHandler bodyHandler = new DecompressingBodyHandler(transferStats);
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker("Web API");
+
+  public SteamWebApiAsyncClient(String apiKey, HttpClient httpClient) {
+    this(apiKey, httpClient, WEB_API_BASE_URL);
+  }
+
+  /**
+   * Creates a client for a different API host (primarily for testing).
+   *
+   * @param apiKey the Steam Web API key
+   * @param httpClient the HttpClient to send requests with
+   * @param baseUrl the scheme and host of the Web API, without a trailing slash
+   */
+  SteamWebApiAsyncClient(String apiKey, HttpClient httpClient, String baseUrl) {
+    this.apiKey = apiKey;
+    this.httpClient = httpClient;
+    this.baseUrl = baseUrl;
+  }
+
+  /**
+   * Gets the circuit breaker guarding the Web API, for debugging/monitoring.
+   *
+   * @return the breaker with its state
+   */
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * Gets transfer statistics of the Web API responses, for debugging/monitoring.
+   *
+   * @return counters for received responses, protocol versions and bytes saved by compression
+   */
+  public TransferStats getTransferStats() {
+    return transferStats;
+  }
+
+  /**
+   * Fetches all games owned by a user, including free games that have been played.
+   *
+   * @param steamId the Steam user ID
+   * @return Mono emitting the library; empty if the profile is private
+   */
+  public Mono<Library> getOwnedGames(String steamId) {
+    return send(
+        "/IPlayerService/GetOwnedGames/v1/",
+        "&steamid=" + encode(steamId) + "&include_appinfo=true&include_played_free_games=true",
+        body -> parseLibrary(body, false));
+  }
+
+  /**
+   * Fetches the games a user played in the last two weeks.
+   *
+   * @param steamId the Steam user ID
+   * @return Mono emitting the library, with two-week playtimes
+   */
+  public Mono<Library> getRecentlyPlayedGames(String steamId) {
+    return send(
+        "/IPlayerService/GetRecentlyPlayedGames/v1/",
+        "&steamid=" + encode(steamId),
+        body -> parseLibrary(body, true));
+  }
+
+  /**
+   * Fetches the complete list of Steam applications.
+   *
+   * @return Mono emitting app IDs and names; apps without a name are skipped
+   */
+  public Mono<List<AppInfo>> getAppList() {
+    return send("/ISteamApps/GetAppList/v2/", "", SteamWebApiAsyncClient::parseAppList);
+  }
+
+  /**
+   * Sends a Web API request and parses a successful response.
+   *
+   * @param method the path of the API method
+   * @param query query parameters after the key, each starting with {@code &}
+   * @param parser turns the response body into the result
+   * @return Mono emitting the parsed result, or failing with a SteamApiException
+   */
+  private <T> Mono<T> send(String method, String query, Function<String, T> parser) {
+    HttpRequest request =
+        HttpRequest.newBuilder()
+            .uri(URI.create(baseUrl + method + "?key=" + encode(apiKey) + "&format=json" + query))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Accept-Encoding", DecompressingBodyHandler.ACCEPT_ENCODING)
+            .GET()
+            .build();
+
+    return Mono.defer(
+            () -> {
+              if (!circuitBreaker.tryAcquire()) {
+                return Mono.error(
+                    new IllegalStateException("Steam Web API is failing, request not sent"));
+              }
+              return Mono.fromCompletionStage(
+                  httpClient
+                      .sendAsync(request, bodyHandler)
+                      .whenComplete(
+                          (response, error) -> {
+                            if (error != null) {
+                              circuitBreaker.recordFailure();
+                            } else {
+                              circuitBreaker.recordStatus(response.statusCode());
+                            }
+                          }));
+            })
+        .map(
+            response -> {
+              if (response.statusCode() != 200) {
+                throw new IllegalStateException("HTTP " + response.statusCode());
+              }
+              return parser.apply(response.body());
+            })
+        .onErrorMap(e -> apiException(method + " failed: " + e.getMessage(), e));
+  }
+
+  /**
+   * Parses the response of GetOwnedGames or GetRecentlyPlayedGames.
+   *
+   * @param body the response body
+   * @param recent whether two-week playtimes should be read
+   * @return the library
+   * @throws JSONException if the body is not a Web API response
+   */
+  static Library parseLibrary(String body, boolean recent) {
+    JSONArray games = new JSONObject(body).getJSONObject("response").optJSONArray("games");
+    if (games == null) {
+      return Library.empty();
+    }
+
+    Library.Builder library = new Library.Builder(games.length());
+    for (int i = 0; i < games.length(); i++) {
+      JSONObject game = games.getJSONObject(i);
+      library.add(
+          game.getInt("appid"),
+          game.optString("name", null),
+          game.optInt("playtime_forever", 0),
+          recent ? game.optInt("playtime_2weeks", 0) : Library.NO_PLAYTIME);
+    }
+    return library.build();
+  }
+
+  /**
+   * Parses the response of GetAppList.
+   *
+   * @param body the response body
+   * @return app IDs and names
+   * @throws JSONException if the body is not a Web API response
+   */
+  static List<AppInfo> parseAppList(String body) {
+    JSONArray apps = new JSONObject(body).getJSONObject("applist").getJSONArray("apps");
+    List<AppInfo> appList = new ArrayList<>(apps.length());
+    for (int i = 0; i < apps.length(); i++) {
+      JSONObject app = apps.getJSONObject(i);
+      String name = app.optString("name", null);
+      if (app.has("appid") && name != null) {
+        appList.add(new AppInfo(app.getInt("appid"), name));
+      }
+    }
+    return appList;
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  private static SteamApiException apiException(String message, Throwable cause) {
+    SteamApiException exception = new SteamApiException(message);
+    exception.initCause(cause);
+    return exception;
+  }
+}
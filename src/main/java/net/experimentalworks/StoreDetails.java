@@ -1,8 +1,13 @@
 package net.experimentalworks;
 
+import java.io.Serial;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -12,55 +17,103 @@ import org.json.JSONObject;
  *
  * <p>Contains all information available from the Steam Store API including basic info, pricing,
  * descriptions, media, categorization, platform support, and more.
+ *
+ * <p>Instances are kept in the store details cache, so the in-memory form is compact: optional
+ * sections are nullable fields whose presence is tracked in a single bitmask together with the
+ * boolean flags, and lists are stored as plain arrays. The getters wrap them on access.
+ *
+ * <p>Strings that repeat across apps, such as genre and category descriptions, currencies and CDN
+ * URL prefixes, are stored as codes into the shared {@link StoreSymbols} dictionaries; company
+ * names are shared instances from the same dictionaries. Long HTML fields (descriptions, legal
+ * notice and requirements) are held as {@link CompressedText} and only inflated when read.
+ *
+ * <p>Dictionary codes only mean something inside the process that assigned them, so the classes
+ * holding codes serialize the decoded values instead.
  */
 public class StoreDetails implements Serializable {
-  private static final long serialVersionUID = 1L;
+  private static final long serialVersionUID = 2L;
+
+  // Bits of the presence bitmask
+  private static final int SUCCESS = 1;
+  private static final int IS_FREE = 1 << 1;
+  private static final int WINDOWS = 1 << 2;
+  private static final int MAC = 1 << 3;
+  private static final int LINUX = 1 << 4;
+  private static final int CONTROLLER_SUPPORT = 1 << 5;
+  private static final int DLC = 1 << 6;
+  private static final int DETAILED_DESCRIPTION = 1 << 7;
+  private static final int ABOUT_THE_GAME = 1 << 8;
+  private static final int SHORT_DESCRIPTION = 1 << 9;
+  private static final int PRICE_OVERVIEW = 1 << 10;
+  private static final int HEADER_IMAGE = 1 << 11;
+  private static final int SCREENSHOTS = 1 << 12;
+  private static final int MOVIES = 1 << 13;
+  private static final int CATEGORIES = 1 << 14;
+  private static final int GENRES = 1 << 15;
+  private static final int DEVELOPERS = 1 << 16;
+  private static final int PUBLISHERS = 1 << 17;
+  private static final int SUPPORTED_LANGUAGES = 1 << 18;
+  private static final int PC_REQUIREMENTS = 1 << 19;
+  private static final int MAC_REQUIREMENTS = 1 << 20;
+  private static final int LINUX_REQUIREMENTS = 1 << 21;
+  private static final int METACRITIC = 1 << 22;
+  private static final int RECOMMENDATIONS = 1 << 23;
+  private static final int ACHIEVEMENTS = 1 << 24;
+  private static final int WEBSITE = 1 << 25;
+  private static final int LEGAL_NOTICE = 1 << 26;
+
+  // Platforms are fully described by three bits, so all combinations are shared
+  private static final Platforms[] PLATFORMS = new Platforms[8];
+
+  static {
+    for (int i = 0; i < PLATFORMS.length; i++) {
+      PLATFORMS[i] = new Platforms((i & 1) != 0, (i & 2) != 0, (i & 4) != 0);
+    }
+  }
+
+  private final int flags;
 
   // Basic Information
   private final int appId;
   private final String type;
   private final String name;
   private final int requiredAge;
-  private final boolean isFree;
-  private final Optional<String> controllerSupport;
-  private final Optional<List<Integer>> dlc;
+  private final String controllerSupport;
+  private final int[] dlc;
 
   // Descriptions
-  private final Optional<String> detailedDescription;
-  private final Optional<String> aboutTheGame;
-  private final Optional<String> shortDescription;
+  private final CompressedText detailedDescription;
+  private final CompressedText aboutTheGame;
+  private final String shortDescription;
 
   // Pricing
-  private final Optional<PriceOverview> priceOverview;
+  private final PriceOverview priceOverview;
 
   // Media
-  private final Optional<String> headerImage;
-  private final Optional<List<Screenshot>> screenshots;
-  private final Optional<List<Movie>> movies;
+  private final int headerImagePrefix;
+  private final String headerImageSuffix;
+  private final Screenshot[] screenshots;
+  private final Movie[] movies;
 
   // Categorization
-  private final Optional<List<Category>> categories;
-  private final Optional<List<Genre>> genres;
-  private final Optional<List<String>> developers;
-  private final Optional<List<String>> publishers;
-  private final Optional<String> supportedLanguages;
+  private final Category[] categories;
+  private final Genre[] genres;
+  private final String[] developers;
+  private final String[] publishers;
+  private final String supportedLanguages;
 
   // Platform Support
-  private final Platforms platforms;
-  private final Optional<Requirements> pcRequirements;
-  private final Optional<Requirements> macRequirements;
-  private final Optional<Requirements> linuxRequirements;
+  private final Requirements pcRequirements;
+  private final Requirements macRequirements;
+  private final Requirements linuxRequirements;
 
   // Additional Info
-  private final Optional<Metacritic> metacritic;
-  private final Optional<Recommendations> recommendations;
-  private final Optional<Achievements> achievements;
+  private final Metacritic metacritic;
+  private final Recommendations recommendations;
+  private final Achievements achievements;
   private final ReleaseDate releaseDate;
-  private final Optional<String> website;
-  private final Optional<String> legalNotice;
-
-  // Success flag
-  private final boolean success;
+  private final String website;
+  private final CompressedText legalNotice;
 
   public StoreDetails(
       int appId,
@@ -93,36 +146,105 @@ public class StoreDetails implements Serializable {
       Optional<String> website,
       Optional<String> legalNotice,
       boolean success) {
+    int bits = 0;
+    bits |= success ? SUCCESS : 0;
+    bits |= isFree ? IS_FREE : 0;
+    if (platforms != null) {
+      bits |= platforms.isWindows() ? WINDOWS : 0;
+      bits |= platforms.isMac() ? MAC : 0;
+      bits |= platforms.isLinux() ? LINUX : 0;
+    }
+    bits |= controllerSupport.isPresent() ? CONTROLLER_SUPPORT : 0;
+    bits |= dlc.isPresent() ? DLC : 0;
+    bits |= detailedDescription.isPresent() ? DETAILED_DESCRIPTION : 0;
+    bits |= aboutTheGame.isPresent() ? ABOUT_THE_GAME : 0;
+    bits |= shortDescription.isPresent() ? SHORT_DESCRIPTION : 0;
+    bits |= priceOverview.isPresent() ? PRICE_OVERVIEW : 0;
+    bits |= headerImage.isPresent() ? HEADER_IMAGE : 0;
+    bits |= screenshots.isPresent() ? SCREENSHOTS : 0;
+    bits |= movies.isPresent() ? MOVIES : 0;
+    bits |= categories.isPresent() ? CATEGORIES : 0;
+    bits |= genres.isPresent() ? GENRES : 0;
+    bits |= developers.isPresent() ? DEVELOPERS : 0;
+    bits |= publishers.isPresent() ? PUBLISHERS : 0;
+    bits |= supportedLanguages.isPresent() ? SUPPORTED_LANGUAGES : 0;
+    bits |= pcRequirements.isPresent() ? PC_REQUIREMENTS : 0;
+    bits |= macRequirements.isPresent() ? MAC_REQUIREMENTS : 0;
+    bits |= linuxRequirements.isPresent() ? LINUX_REQUIREMENTS : 0;
+    bits |= metacritic.isPresent() ? METACRITIC : 0;
+    bits |= recommendations.isPresent() ? RECOMMENDATIONS : 0;
+    bits |= achievements.isPresent() ? ACHIEVEMENTS : 0;
+    bits |= website.isPresent() ? WEBSITE : 0;
+    bits |= legalNotice.isPresent() ? LEGAL_NOTICE : 0;
+    this.flags = bits;
+
     this.appId = appId;
     this.type = type;
     this.name = name;
     this.requiredAge = requiredAge;
-    this.isFree = isFree;
-    this.controllerSupport = controllerSupport;
-    this.dlc = dlc;
-    this.detailedDescription = detailedDescription;
-    this.aboutTheGame = aboutTheGame;
-    this.shortDescription = shortDescription;
-    this.priceOverview = priceOverview;
-    this.headerImage = headerImage;
-    this.screenshots = screenshots;
-    this.movies = movies;
-    this.categories = categories;
-    this.genres = genres;
-    this.developers = developers;
-    this.publishers = publishers;
-    this.supportedLanguages = supportedLanguages;
-    this.platforms = platforms;
-    this.pcRequirements = pcRequirements;
-    this.macRequirements = macRequirements;
-    this.linuxRequirements = linuxRequirements;
-    this.metacritic = metacritic;
-    this.recommendations = recommendations;
-    this.achievements = achievements;
+    this.controllerSupport = controllerSupport.orElse(null);
+    this.dlc = dlc.map(d -> d.stream().mapToInt(Integer::intValue).toArray()).orElse(null);
+    this.detailedDescription = detailedDescription.map(CompressedText::of).orElse(null);
+    this.aboutTheGame = aboutTheGame.map(CompressedText::of).orElse(null);
+    this.shortDescription = shortDescription.orElse(null);
+    this.priceOverview = priceOverview.orElse(null);
+    this.headerImagePrefix = headerImage.map(StoreSymbols::urlPrefix).orElse(0);
+    this.headerImageSuffix =
+        headerImage.map(url -> StoreSymbols.urlSuffix(url, headerImagePrefix)).orElse(null);
+    this.screenshots = screenshots.map(ss -> ss.toArray(new Screenshot[0])).orElse(null);
+    this.movies = movies.map(ms -> ms.toArray(new Movie[0])).orElse(null);
+    this.categories = categories.map(cats -> cats.toArray(new Category[0])).orElse(null);
+    this.genres = genres.map(gens -> gens.toArray(new Genre[0])).orElse(null);
+    this.developers = developers.map(StoreDetails::encodeCompanies).orElse(null);
+    this.publishers = publishers.map(StoreDetails::encodeCompanies).orElse(null);
+    this.supportedLanguages = supportedLanguages.orElse(null);
+    this.pcRequirements = pcRequirements.orElse(null);
+    this.macRequirements = macRequirements.orElse(null);
+    this.linuxRequirements = linuxRequirements.orElse(null);
+    this.metacritic = metacritic.orElse(null);
+    this.recommendations = recommendations.orElse(null);
+    this.achievements = achievements.orElse(null);
     this.releaseDate = releaseDate;
-    this.website = website;
-    this.legalNotice = legalNotice;
-    this.success = success;
+    this.website = website.orElse(null);
+    this.legalNotice = legalNotice.map(CompressedText::of).orElse(null);
+  }
+
+  /**
+   * Creates an instance whose getters are all overridden by a subclass that supplies the sections
+   * itself, such as {@link LazyStoreDetails}.
+   */
+  protected StoreDetails(int appId, boolean success) {
+    this(
+        appId,
+        null,
+        null,
+        0,
+        false,
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        null,
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        null,
+        Optional.empty(),
+        Optional.empty(),
+        success);
   }
 
   // Getters
@@ -143,91 +265,93 @@ public class StoreDetails implements Serializable {
   }
 
   public boolean isFree() {
-    return isFree;
+    return has(IS_FREE);
   }
 
   public Optional<String> getControllerSupport() {
-    return controllerSupport;
+    return present(CONTROLLER_SUPPORT, controllerSupport);
   }
 
   public Optional<List<Integer>> getDlc() {
-    return dlc;
+    return has(DLC) ? Optional.of(IntStream.of(dlc).boxed().toList()) : Optional.empty();
   }
 
   public Optional<String> getDetailedDescription() {
-    return detailedDescription;
+    return presentText(DETAILED_DESCRIPTION, detailedDescription);
   }
 
   public Optional<String> getAboutTheGame() {
-    return aboutTheGame;
+    return presentText(ABOUT_THE_GAME, aboutTheGame);
   }
 
   public Optional<String> getShortDescription() {
-    return shortDescription;
+    return present(SHORT_DESCRIPTION, shortDescription);
   }
 
   public Optional<PriceOverview> getPriceOverview() {
-    return priceOverview;
+    return present(PRICE_OVERVIEW, priceOverview);
   }
 
   public Optional<String> getHeaderImage() {
-    return headerImage;
+    return has(HEADER_IMAGE)
+        ? Optional.of(StoreSymbols.url(headerImagePrefix, headerImageSuffix))
+        : Optional.empty();
   }
 
   public Optional<List<Screenshot>> getScreenshots() {
-    return screenshots;
+    return presentList(SCREENSHOTS, screenshots);
   }
 
   public Optional<List<Movie>> getMovies() {
-    return movies;
+    return presentList(MOVIES, movies);
   }
 
   public Optional<List<Category>> getCategories() {
-    return categories;
+    return presentList(CATEGORIES, categories);
   }
 
   public Optional<List<Genre>> getGenres() {
-    return genres;
+    return presentList(GENRES, genres);
   }
 
   public Optional<List<String>> getDevelopers() {
-    return developers;
+    return presentList(DEVELOPERS, developers);
   }
 
   public Optional<List<String>> getPublishers() {
-    return publishers;
+    return presentList(PUBLISHERS, publishers);
   }
 
   public Optional<String> getSupportedLanguages() {
-    return supportedLanguages;
+    return present(SUPPORTED_LANGUAGES, supportedLanguages);
   }
 
   public Platforms getPlatforms() {
-    return platforms;
+    return PLATFORMS[(flags & (WINDOWS | MAC | LINUX)) >> 2];
   }
 
   public Optional<Requirements> getPcRequirements() {
-    return pcRequirements;
+    return present(PC_REQUIREMENTS, pcRequirements);
   }
 
   public Optional<Requirements> getMacRequirements() {
-    return macRequirements;
+    return present(MAC_REQUIREMENTS, macRequirements);
   }
 
   public Optional<Requirements> getLinuxRequirements() {
-    return linuxRequirements;
+    return present(LINUX_REQUIREMENTS, linuxRequirements);
   }
 
   public Optional<Metacritic> getMetacritic() {
-    return metacritic;
+    return present(METACRITIC, metacritic);
   }
 
   public Optional<Recommendations> getRecommendations() {
-    return recommendations;
+    return present(RECOMMENDATIONS, recommendations);
   }
 
   public Optional<Achievements> getAchievements() {
-    return achievements;
+    return present(ACHIEVEMENTS, achievements);
   }
 
   public ReleaseDate getReleaseDate() {
@@ -235,106 +359,182 @@ public class StoreDetails implements Serializable {
   }
 
   public Optional<String> getWebsite() {
-    return website;
+    return present(WEBSITE, website);
   }
 
   public Optional<String> getLegalNotice() {
-    return legalNotice;
+    return presentText(LEGAL_NOTICE, legalNotice);
   }
 
   public boolean isSuccess() {
-    return success;
+    return has(SUCCESS);
+  }
+
+  private boolean has(int bit) {
+    return (flags & bit) != 0;
+  }
+
+  private <T> Optional<T> present(int bit, T value) {
+    return has(bit) ? Optional.of(value) : Optional.empty();
+  }
+
+  private Optional<String> presentText(int bit, CompressedText value) {
+    return has(bit) ? Optional.of(value.decompress()) : Optional.empty();
+  }
+
+  private <T> Optional<List<T>> presentList(int bit, T[] values) {
+    return has(bit) ? Optional.of(asList(values)) : Optional.empty();
+  }
+
+  private static <T> List<T> asList(T[] values) {
+    return Collections.unmodifiableList(Arrays.asList(values));
+  }
+
+  private static String[] encodeCompanies(List<String> names) {
+    return names.stream().map(StoreSymbols.COMPANIES::intern).toArray(String[]::new);
+  }
+
+  /**
+   * Serializes plain StoreDetails as their decoded values. Subclasses such as {@link
+   * LazyStoreDetails} and {@link FailedStoreDetails} hold no codes in these fields and use default
+   * serialization.
+   */
+  @Serial
+  private Object writeReplace() {
+    return new Serialized(
+        appId,
+        type,
+        name,
+        requiredAge,
+        isFree(),
+        controllerSupport,
+        dlc,
+        getDetailedDescription().orElse(null),
+        getAboutTheGame().orElse(null),
+        shortDescription,
+        priceOverview,
+        getHeaderImage().orElse(null),
+        screenshots,
+        movies,
+        categories,
+        genres,
+        developers,
+        publishers,
+        supportedLanguages,
+        getPlatforms(),
+        pcRequirements,
+        macRequirements,
+        linuxRequirements,
+        metacritic,
+        recommendations,
+        achievements,
+        releaseDate,
+        website,
+        getLegalNotice().orElse(null),
+        isSuccess());
+  }
+
+  /** Serialized form of {@link StoreDetails}, with absent sections as nulls. */
+  private record Serialized(
+      int appId,
+      String type,
+      String name,
+      int requiredAge,
+      boolean isFree,
+      String controllerSupport,
+      int[] dlc,
+      String detailedDescription,
+      String aboutTheGame,
+      String shortDescription,
+      PriceOverview priceOverview,
+      String headerImage,
+      Screenshot[] screenshots,
+      Movie[] movies,
+      Category[] categories,
+      Genre[] genres,
+      String[] developers,
+      String[] publishers,
+      String supportedLanguages,
+      Platforms platforms,
+      Requirements pcRequirements,
+      Requirements macRequirements,
+      Requirements linuxRequirements,
+      Metacritic metacritic,
+      Recommendations recommendations,
+      Achievements achievements,
+      ReleaseDate releaseDate,
+      String website,
+      String legalNotice,
+      boolean success)
+      implements Serializable {
+    @Serial
+    private Object readResolve() {
+      return new StoreDetails(
+          appId,
+          type,
+          name,
+          requiredAge,
+          isFree,
+          Optional.ofNullable(controllerSupport),
+          Optional.ofNullable(dlc).map(ids -> IntStream.of(ids).boxed().toList()),
+          Optional.ofNullable(detailedDescription),
+          Optional.ofNullable(aboutTheGame),
+          Optional.ofNullable(shortDescription),
+          Optional.ofNullable(priceOverview),
+          Optional.ofNullable(headerImage),
+          Optional.ofNullable(screenshots).map(List::of),
+          Optional.ofNullable(movies).map(List::of),
+          Optional.ofNullable(categories).map(List::of),
+          Optional.ofNullable(genres).map(List::of),
+          Optional.ofNullable(developers).map(List::of),
+          Optional.ofNullable(publishers).map(List::of),
+          Optional.ofNullable(supportedLanguages),
+          platforms,
+          Optional.ofNullable(pcRequirements),
+          Optional.ofNullable(macRequirements),
+          Optional.ofNullable(linuxRequirements),
+          Optional.ofNullable(metacritic),
+          Optional.ofNullable(recommendations),
+          Optional.ofNullable(achievements),
+          releaseDate,
+          Optional.ofNullable(website),
+          Optional.ofNullable(legalNotice),
+          success);
+    }
   }
 
   /** Converts this StoreDetails object to a JSONObject for MCP response. */
   public JSONObject toJson() {
-    JSONObject json = new JSONObject();
-    json.put("app_id", appId);
-    json.put("type", type);
-    json.put("name", name);
-    json.put("required_age", requiredAge);
-    json.put("is_free", isFree);
-    json.put("success", success);
-
-    controllerSupport.ifPresent(cs -> json.put("controller_support", cs));
-    dlc.ifPresent(
-        d -> {
-          JSONArray dlcArray = new JSONArray();
-          d.forEach(dlcArray::put);
-          json.put("dlc", dlcArray);
-        });
-
-    detailedDescription.ifPresent(dd -> json.put("detailed_description", dd));
-    aboutTheGame.ifPresent(atg -> json.put("about_the_game", atg));
-    shortDescription.ifPresent(sd -> json.put("short_description", sd));
-
-    priceOverview.ifPresent(po -> json.put("price_overview", po.toJson()));
-
-    headerImage.ifPresent(hi -> json.put("header_image", hi));
-    screenshots.ifPresent(
-        ss -> {
-          JSONArray ssArray = new JSONArray();
-          ss.forEach(s -> ssArray.put(s.toJson()));
-          json.put("screenshots", ssArray);
-        });
-    movies.ifPresent(
-        ms -> {
-          JSONArray msArray = new JSONArray();
-          ms.forEach(m -> msArray.put(m.toJson()));
-          json.put("movies", msArray);
-        });
-
-    categories.ifPresent(
-        cats -> {
-          JSONArray catsArray = new JSONArray();
-          cats.forEach(c -> catsArray.put(c.toJson()));
-          json.put("categories", catsArray);
-        });
-    genres.ifPresent(
-        gens -> {
-          JSONArray gensArray = new JSONArray();
-          gens.forEach(g -> gensArray.put(g.toJson()));
-          json.put("genres", gensArray);
-        });
-    developers.ifPresent(
-        devs -> {
-          JSONArray devsArray = new JSONArray();
-          devs.forEach(devsArray::put);
-          json.put("developers", devsArray);
-        });
-    publishers.ifPresent(
-        pubs -> {
-          JSONArray pubsArray = new JSONArray();
-          pubs.forEach(pubsArray::put);
-          json.put("publishers", pubsArray);
-        });
-    supportedLanguages.ifPresent(sl -> json.put("supported_languages", sl));
-
-    json.put("platforms", platforms.toJson());
-    pcRequirements.ifPresent(pcr -> json.put("pc_requirements", pcr.toJson()));
-    macRequirements.ifPresent(macr -> json.put("mac_requirements", macr.toJson()));
-    linuxRequirements.ifPresent(linr -> json.put("linux_requirements", linr.toJson()));
-
-    metacritic.ifPresent(mc -> json.put("metacritic", mc.toJson()));
-    recommendations.ifPresent(rec -> json.put("recommendations", rec.toJson()));
-    achievements.ifPresent(ach -> json.put("achievements", ach.toJson()));
-
-    json.put("release_date", releaseDate.toJson());
-    website.ifPresent(w -> json.put("website", w));
-    legalNotice.ifPresent(ln -> json.put("legal_notice", ln));
+    return toJson(StoreDetailsSection.ALL);
+  }
 
+  /**
+   * Converts a projection of this StoreDetails object to a JSONObject. The app ID and success flag
+   * are always included.
+   *
+   * @param sections the sections to include
+   */
+  JSONObject toJson(Set<StoreDetailsSection> sections) {
+    JSONObject json = new JSONObject();
+    json.put("app_id", getAppId());
+    json.put("success", isSuccess());
+    for (StoreDetailsSection section : StoreDetailsSection.all()) {
+      if (sections.contains(section)) {
+        section.write(this, json);
+      }
+    }
     return json;
   }
 
   // Nested classes for structured data
 
   public static class PriceOverview implements Serializable {
-    private static final long serialVersionUID = 1L;
-    private final String currency;
+    private static final long serialVersionUID = 2L;
+    private final int currency;
     private final int initial;
     private final int finalPrice;
     private final int discountPercent;
-    private final Optional<String> finalFormatted;
+    private final String finalFormatted;
 
     public PriceOverview(
         String currency,
@@ -342,15 +542,15 @@ public class StoreDetails implements Serializable {
         int finalPrice,
         int discountPercent,
         Optional<String> finalFormatted) {
-      this.currency = currency;
+      this.currency = StoreSymbols.CURRENCIES.encode(currency);
       this.initial = initial;
       this.finalPrice = finalPrice;
       this.discountPercent = discountPercent;
-      this.finalFormatted = finalFormatted;
+      this.finalFormatted = finalFormatted.orElse(null);
     }
 
     public String getCurrency() {
-      return currency;
+      return StoreSymbols.CURRENCIES.decode(currency);
     }
 
     public int getInitial() {
@@ -366,30 +566,51 @@ public class StoreDetails implements Serializable {
     }
 
     public Optional<String> getFinalFormatted() {
-      return finalFormatted;
+      return Optional.ofNullable(finalFormatted);
+    }
+
+    @Serial
+    private Object writeReplace() {
+      return new Serialized(getCurrency(), initial, finalPrice, discountPercent, finalFormatted);
+    }
+
+    private record Serialized(
+        String currency, int initial, int finalPrice, int discountPercent, String finalFormatted)
+        implements Serializable {
+      @Serial
+      private Object readResolve() {
+        return new PriceOverview(
+            currency, initial, finalPrice, discountPercent, Optional.ofNullable(finalFormatted));
+      }
     }
 
     public JSONObject toJson() {
       JSONObject json = new JSONObject();
-      json.put("currency", currency);
+      json.put("currency", getCurrency());
       json.put("initial", initial);
       json.put("final", finalPrice);
       json.put("discount_percent", discountPercent);
-      finalFormatted.ifPresent(ff -> json.put("final_formatted", ff));
+      if (finalFormatted != null) {
+        json.put("final_formatted", finalFormatted);
+      }
       return json;
     }
   }
 
   public static class Screenshot implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
     private final int id;
-    private final String pathThumbnail;
-    private final String pathFull;
+    private final int thumbnailPrefix;
+    private final String thumbnailSuffix;
+    private final int fullPrefix;
+    private final String fullSuffix;
 
     public Screenshot(int id, String pathThumbnail, String pathFull) {
       this.id = id;
-      this.pathThumbnail = pathThumbnail;
-      this.pathFull = pathFull;
+      this.thumbnailPrefix = StoreSymbols.urlPrefix(pathThumbnail);
+      this.thumbnailSuffix = StoreSymbols.urlSuffix(pathThumbnail, thumbnailPrefix);
+      this.fullPrefix = StoreSymbols.urlPrefix(pathFull);
+      this.fullSuffix = StoreSymbols.urlSuffix(pathFull, fullPrefix);
     }
 
     public int getId() {
@@ -397,36 +618,51 @@ public class StoreDetails implements Serializable {
     }
 
     public String getPathThumbnail() {
-      return pathThumbnail;
+      return StoreSymbols.url(thumbnailPrefix, thumbnailSuffix);
     }
 
     public String getPathFull() {
-      return pathFull;
+      return StoreSymbols.url(fullPrefix, fullSuffix);
+    }
+
+    @Serial
+    private Object writeReplace() {
+      return new Serialized(id, getPathThumbnail(), getPathFull());
+    }
+
+    private record Serialized(int id, String pathThumbnail, String pathFull)
+        implements Serializable {
+      @Serial
+      private Object readResolve() {
+        return new Screenshot(id, pathThumbnail, pathFull);
+      }
     }
 
     public JSONObject toJson() {
       JSONObject json = new JSONObject();
       json.put("id", id);
-      json.put("path_thumbnail", pathThumbnail);
-      json.put("path_full", pathFull);
+      json.put("path_thumbnail", getPathThumbnail());
+      json.put("path_full", getPathFull());
       return json;
     }
   }
 
   public static class Movie implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
     private final int id;
     private final String name;
-    private final String thumbnail;
+    private final int thumbnailPrefix;
+    private final String thumbnailSuffix;
     private final Webm webm;
-    private final Optional<Mp4> mp4;
+    private final Mp4 mp4;
 
     public Movie(int id, String name, String thumbnail, Webm webm, Optional<Mp4> mp4) {
       this.id = id;
       this.name = name;
-      this.thumbnail = thumbnail;
+      this.thumbnailPrefix = StoreSymbols.urlPrefix(thumbnail);
+      this.thumbnailSuffix = StoreSymbols.urlSuffix(thumbnail, thumbnailPrefix);
       this.webm = webm;
-      this.mp4 = mp4;
+      this.mp4 = mp4.orElse(null);
     }
 
     public int getId() {
@@ -438,7 +674,7 @@ public class StoreDetails implements Serializable {
     }
 
     public String getThumbnail() {
-      return thumbnail;
+      return StoreSymbols.url(thumbnailPrefix, thumbnailSuffix);
     }
 
     public Webm getWebm() {
@@ -446,80 +682,127 @@ public class StoreDetails implements Serializable {
     }
 
     public Optional<Mp4> getMp4() {
-      return mp4;
+      return Optional.ofNullable(mp4);
+    }
+
+    @Serial
+    private Object writeReplace() {
+      return new Serialized(id, name, getThumbnail(), webm, mp4);
+    }
+
+    private record Serialized(int id, String name, String thumbnail, Webm webm, Mp4 mp4)
+        implements Serializable {
+      @Serial
+      private Object readResolve() {
+        return new Movie(id, name, thumbnail, webm, Optional.ofNullable(mp4));
+      }
     }
 
     public JSONObject toJson() {
       JSONObject json = new JSONObject();
       json.put("id", id);
       json.put("name", name);
-      json.put("thumbnail", thumbnail);
+      json.put("thumbnail", getThumbnail());
       json.put("webm", webm.toJson());
-      mp4.ifPresent(m -> json.put("mp4", m.toJson()));
+      if (mp4 != null) {
+        json.put("mp4", mp4.toJson());
+      }
       return json;
     }
 
     public static class Webm implements Serializable {
-      private static final long serialVersionUID = 1L;
-      private final String w480;
-      private final String max;
+      private static final long serialVersionUID = 2L;
+      private final int w480Prefix;
+      private final String w480Suffix;
+      private final int maxPrefix;
+      private final String maxSuffix;
 
       public Webm(String w480, String max) {
-        this.w480 = w480;
-        this.max = max;
+        this.w480Prefix = StoreSymbols.urlPrefix(w480);
+        this.w480Suffix = StoreSymbols.urlSuffix(w480, w480Prefix);
+        this.maxPrefix = StoreSymbols.urlPrefix(max);
+        this.maxSuffix = StoreSymbols.urlSuffix(max, maxPrefix);
       }
 
       public String getW480() {
-        return w480;
+        return StoreSymbols.url(w480Prefix, w480Suffix);
       }
 
       public String getMax() {
-        return max;
+        return StoreSymbols.url(maxPrefix, maxSuffix);
+      }
+
+      @Serial
+      private Object writeReplace() {
+        return new Serialized(getW480(), getMax());
+      }
+
+      private record Serialized(String w480, String max) implements Serializable {
+        @Serial
+        private Object readResolve() {
+          return new Webm(w480, max);
+        }
       }
 
       public JSONObject toJson() {
         JSONObject json = new JSONObject();
-        json.put("480", w480);
-        json.put("max", max);
+        json.put("480", getW480());
+        json.put("max", getMax());
         return json;
       }
     }
 
     public static class Mp4 implements Serializable {
-      private static final long serialVersionUID = 1L;
-      private final String w480;
-      private final String max;
+      private static final long serialVersionUID = 2L;
+      private final int w480Prefix;
+      private final String w480Suffix;
+      private final int maxPrefix;
+      private final String maxSuffix;
 
       public Mp4(String w480, String max) {
-        this.w480 = w480;
-        this.max = max;
+        this.w480Prefix = StoreSymbols.urlPrefix(w480);
+        this.w480Suffix = StoreSymbols.urlSuffix(w480, w480Prefix);
+        this.maxPrefix = StoreSymbols.urlPrefix(max);
+        this.maxSuffix = StoreSymbols.urlSuffix(max, maxPrefix);
       }
 
       public String getW480() {
-        return w480;
+        return StoreSymbols.url(w480Prefix, w480Suffix);
       }
 
       public String getMax() {
-        return max;
+        return StoreSymbols.url(maxPrefix, maxSuffix);
+      }
+
+      @Serial
+      private Object writeReplace() {
+        return new Serialized(getW480(), getMax());
+      }
+
+      private record Serialized(String w480, String max) implements Serializable {
+        @Serial
+        private Object readResolve() {
+          return new Mp4(w480, max);
+        }
       }
 
       public JSONObject toJson() {
         JSONObject json = new JSONObject();
-        json.put("480", w480);
-        json.put("max", max);
+        json.put("480", getW480());
+        json.put("max", getMax());
         return json;
       }
     }
   }
 
   public static class Category implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
     private final int id;
-    private final String description;
+    private final int description;
 
     public Category(int id, String description) {
       this.id = id;
-      this.description = description;
+      this.description = StoreSymbols.CATEGORIES.encode(description);
     }
 
     public int getId() {
@@ -527,39 +810,63 @@ public class StoreDetails implements Serializable {
     }
 
     public String getDescription() {
-      return description;
+      return StoreSymbols.CATEGORIES.decode(description);
+    }
+
+    @Serial
+    private Object writeReplace() {
+      return new Serialized(id, getDescription());
+    }
+
+    private record Serialized(int id, String description) implements Serializable {
+      @Serial
+      private Object readResolve() {
+        return new Category(id, description);
+      }
     }
 
     public JSONObject toJson() {
       JSONObject json = new JSONObject();
       json.put("id", id);
-      json.put("description", description);
+      json.put("description", getDescription());
       return json;
     }
   }
 
   public static class Genre implements Serializable {
-    private static final long serialVersionUID = 1L;
-    private final String id;
-    private final String description;
+    private static final long serialVersionUID = 2L;
+    private final int id;
+    private final int description;
 
     public Genre(String id, String description) {
-      this.id = id;
-      this.description = description;
+      this.id = StoreSymbols.GENRES.encode(id);
+      this.description = StoreSymbols.GENRES.encode(description);
     }
 
     public String getId() {
-      return id;
+      return StoreSymbols.GENRES.decode(id);
     }
 
     public String getDescription() {
-      return description;
+      return StoreSymbols.GENRES.decode(description);
+    }
+
+    @Serial
+    private Object writeReplace() {
+      return new Serialized(getId(), getDescription());
+    }
+
+    private record Serialized(String id, String description) implements Serializable {
+      @Serial
+      private Object readResolve() {
+        return new Genre(id, description);
+      }
     }
 
     public JSONObject toJson() {
       JSONObject json = new JSONObject();
-      json.put("id", id);
-      json.put("description", description);
+      json.put("id", getId());
+      json.put("description", getDescription());
       return json;
     }
   }
@@ -599,26 +906,30 @@ public class StoreDetails implements Serializable {
 
   public static class Requirements implements Serializable {
     private static final long serialVersionUID = 1L;
-    private final Optional<String> minimum;
-    private final Optional<String> recommended;
+    private final CompressedText minimum;
+    private final CompressedText recommended;
 
     public Requirements(Optional<String> minimum, Optional<String> recommended) {
-      this.minimum = minimum;
-      this.recommended = recommended;
+      this.minimum = minimum.map(CompressedText::of).orElse(null);
+      this.recommended = recommended.map(CompressedText::of).orElse(null);
     }
 
     public Optional<String> getMinimum() {
-      return minimum;
+      return Optional.ofNullable(minimum).map(CompressedText::decompress);
     }
 
     public Optional<String> getRecommended() {
-      return recommended;
+      return Optional.ofNullable(recommended).map(CompressedText::decompress);
     }
 
     public JSONObject toJson() {
       JSONObject json = new JSONObject();
-      minimum.ifPresent(min -> json.put("minimum", min));
-      recommended.ifPresent(rec -> json.put("recommended", rec));
+      if (minimum != null) {
+        json.put("minimum", minimum.decompress());
+      }
+      if (recommended != null) {
+        json.put("recommended", recommended.decompress());
+      }
       return json;
     }
   }
@@ -671,11 +982,11 @@ public class StoreDetails implements Serializable {
   public static class Achievements implements Serializable {
     private static final long serialVersionUID = 1L;
     private final int total;
-    private final Optional<List<Highlighted>> highlighted;
+    private final Highlighted[] highlighted;
 
     public Achievements(int total, Optional<List<Highlighted>> highlighted) {
       this.total = total;
-      this.highlighted = highlighted;
+      this.highlighted = highlighted.map(hl -> hl.toArray(new Highlighted[0])).orElse(null);
     }
 
     public int getTotal() {
@@ -683,18 +994,19 @@ public class StoreDetails implements Serializable {
     }
 
     public Optional<List<Highlighted>> getHighlighted() {
-      return highlighted;
+      return Optional.ofNullable(highlighted).map(StoreDetails::asList);
     }
 
     public JSONObject toJson() {
       JSONObject json = new JSONObject();
       json.put("total", total);
-      highlighted.ifPresent(
-          hl -> {
-            JSONArray hlArray = new JSONArray();
-            hl.forEach(h -> hlArray.put(h.toJson()));
-            json.put("highlighted", hlArray);
-          });
+      if (highlighted != null) {
+        JSONArray hlArray = new JSONArray();
+        for (Highlighted h : highlighted) {
+          hlArray.put(h.toJson());
+        }
+        json.put("highlighted", hlArray);
+      }
       return json;
     }
 
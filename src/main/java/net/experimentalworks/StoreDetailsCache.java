@@ -0,0 +1,550 @@
+package net.experimentalworks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONObject;
+
+/**
+ * In-memory cache of successfully fetched store details.
+ *
+ * <p>Each entry keeps the HTTP validators (ETag and Last-Modified) and a hash of the response body
+ * it was parsed from. Its lifetime is set by a {@link StoreTtlPolicy} from its content and from how
+ * often it changed before, so settled apps stay cached longer than discounted or upcoming ones.
+ * Once an entry expires it is not dropped immediately: the client revalidates
+ * it with a conditional request and, if the store reports the content as unchanged, only the
+ * expiry is extended.
+ *
+ * <p>The cache has two tiers behind one lookup API. A small on-heap tier holds recently used
+ * entries as live objects. Entries it evicts are encoded, deflated and moved to an off-heap {@link
+ * SlabStore}, where they cost the garbage collector nothing; a lookup that finds an entry there
+ * decodes it, as {@link LazyStoreDetails} or fully parsed depending on the configured mode, and
+ * promotes it back to the on-heap tier. Encoding and decoding happen outside the cache's lock; an
+ * entry that is still being encoded is found by lookups as if it were on-heap. The least recently
+ * used entries of the off-heap tier are evicted once it is full.
+ *
+ * <p>Apps the store answered with {@code success=false} (delisted, region-locked or invalid IDs)
+ * are remembered separately for a shorter {@link #DEFAULT_UNAVAILABLE_TTL}, keyed by app ID and
+ * country code only, so repeated lookups of them send no requests. Transport and parse failures are
+ * never remembered.
+ */
+public class StoreDetailsCache {
+  static final int DEFAULT_MAX_ENTRIES = 500;
+  static final long DEFAULT_OFF_HEAP_BYTES = 64L << 20;
+  static final Duration DEFAULT_UNAVAILABLE_TTL = Duration.ofMinutes(10);
+  static final int MAX_UNAVAILABLE_ENTRIES = 10_000;
+
+  private final StoreTtlPolicy ttlPolicy;
+  private final int maxEntries;
+  private final Clock clock;
+  private final Map<Key, Entry> entries;
+  private final SlabStore<Key> offHeap;
+  private final boolean lazyDetails;
+  // Evicted from the on-heap tier and waiting to be encoded for the off-heap tier
+  private final Map<Key, Entry> demoting = new HashMap<>();
+  private final Deque<Key> toDemote = new ArrayDeque<>();
+  private final Duration unavailableTtl;
+  private final Map<UnavailableKey, Instant> unavailable =
+      new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UnavailableKey, Instant> eldest) {
+          return size() > MAX_UNAVAILABLE_ENTRIES;
+        }
+      };
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder revalidations = new LongAdder();
+  private long unavailableHits;
+  private long demotions;
+  private long promotions;
+
+  /** Creates a cache with the adaptive TTL policy and default tier sizes. */
+  public StoreDetailsCache() {
+    this(true);
+  }
+
+  /**
+   * Creates a cache with the adaptive TTL policy and default tier sizes.
+   *
+   * @param lazyDetails whether entries promoted from the off-heap tier are materialized lazily
+   */
+  public StoreDetailsCache(boolean lazyDetails) {
+    this(
+        StoreTtlPolicy.adaptive(Clock.systemUTC()),
+        DEFAULT_MAX_ENTRIES,
+        DEFAULT_OFF_HEAP_BYTES,
+        DEFAULT_UNAVAILABLE_TTL,
+        lazyDetails,
+        Clock.systemUTC());
+  }
+
+  /**
+   * Creates an on-heap only cache with explicit settings (primarily for testing).
+   *
+   * @param ttl how long an entry is served without revalidation
+   * @param maxEntries maximum number of entries before the least recently used one is evicted
+   * @param clock clock used to compute expiry times
+   */
+  public StoreDetailsCache(Duration ttl, int maxEntries, Clock clock) {
+    this(ttl, maxEntries, 0, clock);
+  }
+
+  /**
+   * Creates a cache with explicit settings.
+   *
+   * @param ttl how long an entry is served without revalidation
+   * @param maxEntries maximum number of entries in the on-heap tier before the least recently used
+   *     one is moved off-heap
+   * @param offHeapBytes maximum number of bytes of direct memory for the off-heap tier, or 0 to
+   *     drop entries evicted from the on-heap tier
+   * @param clock clock used to compute expiry times
+   */
+  public StoreDetailsCache(Duration ttl, int maxEntries, long offHeapBytes, Clock clock) {
+    this(ttl, maxEntries, offHeapBytes, DEFAULT_UNAVAILABLE_TTL, clock);
+  }
+
+  /**
+   * Creates a cache with explicit settings, including how long unavailable apps are remembered.
+   *
+   * @param ttl how long an entry is served without revalidation
+   * @param maxEntries maximum number of entries in the on-heap tier before the least recently used
+   *     one is moved off-heap
+   * @param offHeapBytes maximum number of bytes of direct memory for the off-heap tier, or 0 to
+   *     drop entries evicted from the on-heap tier
+   * @param unavailableTtl how long an app the store answered with success=false is not requested
+   *     again
+   * @param clock clock used to compute expiry times
+   */
+  public StoreDetailsCache(
+      Duration ttl, int maxEntries, long offHeapBytes, Duration unavailableTtl, Clock clock) {
+    this(StoreTtlPolicy.fixed(ttl), maxEntries, offHeapBytes, unavailableTtl, clock);
+  }
+
+  /**
+   * Creates a cache with explicit settings and a TTL policy.
+   *
+   * @param ttlPolicy decides how long each entry is served without revalidation
+   * @param maxEntries maximum number of entries in the on-heap tier before the least recently used
+   *     one is moved off-heap
+   * @param offHeapBytes maximum number of bytes of direct memory for the off-heap tier, or 0 to
+   *     drop entries evicted from the on-heap tier
+   * @param unavailableTtl how long an app the store answered with success=false is not requested
+   *     again
+   * @param clock clock used to compute expiry times
+   */
+  public StoreDetailsCache(
+      StoreTtlPolicy ttlPolicy,
+      int maxEntries,
+      long offHeapBytes,
+      Duration unavailableTtl,
+      Clock clock) {
+    this(ttlPolicy, maxEntries, offHeapBytes, unavailableTtl, true, clock);
+  }
+
+  /**
+   * Creates a cache with explicit settings, a TTL policy and the details mode.
+   *
+   * @param ttlPolicy decides how long each entry is served without revalidation
+   * @param maxEntries maximum number of entries in the on-heap tier before the least recently used
+   *     one is moved off-heap
+   * @param offHeapBytes maximum number of bytes of direct memory for the off-heap tier, or 0 to
+   *     drop entries evicted from the on-heap tier
+   * @param unavailableTtl how long an app the store answered with success=false is not requested
+   *     again
+   * @param lazyDetails whether entries promoted from the off-heap tier are materialized lazily, as
+   *     {@link LazyStoreDetails}, or parsed fully
+   * @param clock clock used to compute expiry times
+   */
+  public StoreDetailsCache(
+      StoreTtlPolicy ttlPolicy,
+      int maxEntries,
+      long offHeapBytes,
+      Duration unavailableTtl,
+      boolean lazyDetails,
+      Clock clock) {
+    this.ttlPolicy = ttlPolicy;
+    this.lazyDetails = lazyDetails;
+    this.unavailableTtl = unavailableTtl;
+    this.maxEntries = maxEntries;
+    this.clock = clock;
+    this.offHeap = new SlabStore<>(offHeapBytes);
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() <= maxEntries) {
+              return false;
+            }
+            if (offHeap.getCapacity() > 0) {
+              demoting.put(eldest.getKey(), eldest.getValue());
+              toDemote.add(eldest.getKey());
+            }
+            return true;
+          }
+        };
+  }
+
+  /**
+   * Cache key. Store details differ per region and language, so both are part of the key.
+   *
+   * @param appId the Steam app ID
+   * @param countryCode the requested country code, or empty string for the default
+   * @param language the requested language, or empty string for the default
+   */
+  public record Key(int appId, String countryCode, String language) {
+    public static Key of(int appId, Optional<String> countryCode, Optional<String> language) {
+      return new Key(appId, countryCode.orElse(""), language.orElse(""));
+    }
+  }
+
+  private record UnavailableKey(int appId, String countryCode) {}
+
+  /**
+   * A cached store details object together with the validators of the response it came from.
+   *
+   * @param details the parsed store details
+   * @param etag the ETag response header, if sent
+   * @param lastModified the Last-Modified response header, if sent
+   * @param contentHash hash of the raw response body
+   * @param expiresAt when the entry has to be revalidated
+   * @param changes how often a refresh returned different content for this key
+   * @param unchangedRefreshes revalidations in a row that found the content unchanged
+   */
+  public record Entry(
+      StoreDetails details,
+      Optional<String> etag,
+      Optional<String> lastModified,
+      long contentHash,
+      Instant expiresAt,
+      int changes,
+      int unchangedRefreshes) {}
+
+  /**
+   * Looks up an entry regardless of whether it has expired.
+   *
+   * @param key the cache key
+   * @return the entry, if cached
+   */
+  public Optional<Entry> get(Key key) {
+    try {
+      byte[] data;
+      synchronized (this) {
+        Entry entry = onHeap(key);
+        data = entry == null ? offHeap.get(key).orElse(null) : null;
+        if (data == null) {
+          return Optional.ofNullable(entry);
+        }
+      }
+      Entry decoded = decode(key, data);
+      synchronized (this) {
+        Entry entry = onHeap(key);
+        if (entry != null
+            || !offHeap.get(key).map(current -> Arrays.equals(current, data)).orElse(false)) {
+          // Replaced or promoted by another lookup while decoding
+          return Optional.ofNullable(entry);
+        }
+        offHeap.remove(key);
+        promotions++;
+        entries.put(key, decoded);
+        return Optional.of(decoded);
+      }
+    } finally {
+      demotePending();
+    }
+  }
+
+  /** Returns the on-heap entry of a key, taking it back if it is waiting to be demoted. */
+  private Entry onHeap(Key key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      entry = demoting.remove(key);
+      if (entry != null) {
+        entries.put(key, entry);
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * Looks up an entry that can be served without revalidation, recording a hit or miss.
+   *
+   * @param key the cache key
+   * @return the entry if cached and not expired
+   */
+  public Optional<Entry> getFresh(Key key) {
+    Optional<Entry> entry = get(key).filter(this::isFresh);
+    (entry.isPresent() ? hits : misses).increment();
+    return entry;
+  }
+
+  /**
+   * Looks up the content hash of the entry holding the given details, without counting a hit.
+   *
+   * @param key the cache key
+   * @param details details previously returned from the cache
+   * @return the entry's content hash, or empty if the details are no longer cached on-heap
+   */
+  public synchronized OptionalLong contentHashOf(Key key, StoreDetails details) {
+    Entry entry = entries.get(key);
+    return entry != null && entry.details() == details
+        ? OptionalLong.of(entry.contentHash())
+        : OptionalLong.empty();
+  }
+
+  /** Returns the clock entries expire by. */
+  public Clock getClock() {
+    return clock;
+  }
+
+  public boolean isFresh(Entry entry) {
+    return clock.instant().isBefore(entry.expiresAt());
+  }
+
+  /**
+   * Stores freshly parsed details. If the key was cached before, the new details count as a change
+   * of its content.
+   *
+   * @param key the cache key
+   * @param details the parsed details
+   * @param etag the ETag response header, if sent
+   * @param lastModified the Last-Modified response header, if sent
+   * @param contentHash hash of the raw response body
+   * @return the stored entry
+   */
+  public Entry put(
+      Key key,
+      StoreDetails details,
+      Optional<String> etag,
+      Optional<String> lastModified,
+      long contentHash) {
+    try {
+      synchronized (this) {
+        Entry previous = onHeap(key);
+        int changes = previous != null ? previous.changes() + 1 : 0;
+        Entry entry =
+            new Entry(
+                details,
+                etag,
+                lastModified,
+                contentHash,
+                clock.instant().plus(ttlPolicy.ttlFor(details, changes, 0)),
+                changes,
+                0);
+        offHeap.remove(key);
+        entries.put(key, entry);
+        return entry;
+      }
+    } finally {
+      demotePending();
+    }
+  }
+
+  /**
+   * Extends the lifetime of an entry whose content was confirmed unchanged by the store.
+   *
+   * <p>Validators sent with the confirming response replace the stored ones, so a store that starts
+   * sending an ETag is picked up without re-parsing.
+   *
+   * @param key the cache key
+   * @param entry the entry that was revalidated
+   * @param etag the ETag of the confirming response, if sent
+   * @param lastModified the Last-Modified of the confirming response, if sent
+   * @return the renewed entry
+   */
+  public Entry renew(Key key, Entry entry, Optional<String> etag, Optional<String> lastModified) {
+    revalidations.increment();
+    int unchangedRefreshes = entry.unchangedRefreshes() + 1;
+    Entry renewed =
+        new Entry(
+            entry.details(),
+            etag.or(entry::etag),
+            lastModified.or(entry::lastModified),
+            entry.contentHash(),
+            clock
+                .instant()
+                .plus(ttlPolicy.ttlFor(entry.details(), entry.changes(), unchangedRefreshes)),
+            entry.changes(),
+            unchangedRefreshes);
+    try {
+      synchronized (this) {
+        demoting.remove(key);
+        offHeap.remove(key);
+        entries.put(key, renewed);
+      }
+    } finally {
+      demotePending();
+    }
+    return renewed;
+  }
+
+  /**
+   * Checks whether the store recently answered an app with success=false, recording a hit if so.
+   * The key's language is ignored.
+   *
+   * @param key the cache key
+   * @return true if the app should not be requested again yet
+   */
+  public synchronized boolean isUnavailable(Key key) {
+    UnavailableKey unavailableKey = new UnavailableKey(key.appId(), key.countryCode());
+    Instant expiresAt = unavailable.get(unavailableKey);
+    if (expiresAt == null) {
+      return false;
+    }
+    if (!clock.instant().isBefore(expiresAt)) {
+      unavailable.remove(unavailableKey);
+      return false;
+    }
+    unavailableHits++;
+    return true;
+  }
+
+  /**
+   * Remembers that the store answered an app with success=false. Only call this for that answer,
+   * not for transport or parse failures, which say nothing about the app. The key's language is
+   * ignored.
+   *
+   * @param key the cache key
+   */
+  public synchronized void markUnavailable(Key key) {
+    unavailable.put(
+        new UnavailableKey(key.appId(), key.countryCode()), clock.instant().plus(unavailableTtl));
+  }
+
+  /** Returns the number of entries in both tiers. */
+  public synchronized int size() {
+    return entries.size() + demoting.size() + offHeap.size();
+  }
+
+  /** Encodes the entries evicted from the on-heap tier and moves those still evicted off-heap. */
+  private void demotePending() {
+    while (true) {
+      Key key;
+      Entry entry;
+      synchronized (this) {
+        key = toDemote.poll();
+        if (key == null) {
+          return;
+        }
+        entry = demoting.get(key);
+      }
+      if (entry == null) {
+        // Taken back on-heap, or queued twice and already demoted
+        continue;
+      }
+      byte[] data = encode(entry);
+      synchronized (this) {
+        if (demoting.remove(key, entry) && offHeap.put(key, data)) {
+          demotions++;
+        }
+      }
+    }
+  }
+
+  // Layout: expiry, content hash, history, validators, then the deflated details JSON
+  private static byte[] encode(Entry entry) {
+    byte[] json = entry.details().toJson().toString().getBytes(StandardCharsets.UTF_8);
+    byte[] compressed = CompressedText.deflate(json);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(compressed.length + 64);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeLong(entry.expiresAt().getEpochSecond());
+      out.writeInt(entry.expiresAt().getNano());
+      out.writeLong(entry.contentHash());
+      out.writeInt(entry.changes());
+      out.writeInt(entry.unchangedRefreshes());
+      writeOptional(out, entry.etag());
+      writeOptional(out, entry.lastModified());
+      out.writeInt(json.length);
+      out.write(compressed);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private Entry decode(Key key, byte[] data) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+      Instant expiresAt = Instant.ofEpochSecond(in.readLong(), in.readInt());
+      long contentHash = in.readLong();
+      int changes = in.readInt();
+      int unchangedRefreshes = in.readInt();
+      Optional<String> etag = readOptional(in);
+      Optional<String> lastModified = readOptional(in);
+      int length = in.readInt();
+      byte[] json = CompressedText.inflate(in.readAllBytes(), length);
+      StoreDetails details =
+          lazyDetails
+              ? new LazyStoreDetails(key.appId(), json)
+              : StoreDetailsParser.parse(
+                  key.appId(), new JSONObject(new String(json, StandardCharsets.UTF_8)));
+      return new Entry(
+          details,
+          etag,
+          lastModified,
+          contentHash,
+          expiresAt,
+          changes,
+          unchangedRefreshes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void writeOptional(DataOutputStream out, Optional<String> value)
+      throws IOException {
+    out.writeBoolean(value.isPresent());
+    if (value.isPresent()) {
+      out.writeUTF(value.get());
+    }
+  }
+
+  private static Optional<String> readOptional(DataInputStream in) throws IOException {
+    return in.readBoolean() ? Optional.of(in.readUTF()) : Optional.empty();
+  }
+
+  /**
+   * Gets cache statistics for debugging/monitoring.
+   *
+   * @return string with cache info
+   */
+  public synchronized String getCacheInfo() {
+    return String.format(
+        "Store cache: %d entries, %s, hits: %d, misses: %d, revalidated: %d, "
+            + "unavailable: %d entries, %d hits, "
+            + "on-heap: %d/%d entries, off-heap: %d entries, %d bytes used, %d of %d bytes "
+            + "reserved, demoted: %d, promoted: %d, evicted: %d",
+        size(),
+        ttlPolicy.getInfo(),
+        hits.sum(),
+        misses.sum(),
+        revalidations.sum(),
+        unavailable.size(),
+        unavailableHits,
+        entries.size(),
+        maxEntries,
+        offHeap.size(),
+        offHeap.getUsedBytes(),
+        offHeap.getReservedBytes(),
+        offHeap.getCapacity(),
+        demotions,
+        promotions,
+        offHeap.getEvictions());
+  }
+}
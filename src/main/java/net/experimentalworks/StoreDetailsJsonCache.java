@@ -0,0 +1,117 @@
+package net.experimentalworks;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Memoized JSON serializations of store details.
+ *
+ * <p>The same cached details are served to many requests, so their serialized JSON is kept per
+ * store cache key, response content and field projection. Responses splice the memoized text in
+ * as {@link RawJson} instead of rebuilding and re-escaping the object tree. Entries are keyed on
+ * the hash of the response the details were parsed from rather than on the details object, so they
+ * hold no reference to details that were replaced or moved off-heap, and details promoted back
+ * from the off-heap tier reuse the JSON of their earlier instance. Fragments of replaced content
+ * are never looked up again and fall out as the least recently used entries once the size budget
+ * is exceeded.
+ */
+final class StoreDetailsJsonCache {
+  static final long DEFAULT_MAX_CHARS = 8L << 20;
+
+  private record Key(
+      StoreDetailsCache.Key cacheKey, long contentHash, Set<StoreDetailsSection> sections) {}
+
+  private final long maxChars;
+  private final LinkedHashMap<Key, String> fragments = new LinkedHashMap<>(16, 0.75f, true);
+  private long chars;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  StoreDetailsJsonCache() {
+    this(DEFAULT_MAX_CHARS);
+  }
+
+  /**
+   * Creates a cache with an explicit size budget.
+   *
+   * @param maxChars maximum total length of the memoized JSON texts
+   */
+  StoreDetailsJsonCache(long maxChars) {
+    this.maxChars = maxChars;
+  }
+
+  /**
+   * Serializes a projection of store details without memoizing it. Used for details that are not
+   * in the store cache, such as failed lookups.
+   *
+   * @param details the details to serialize
+   * @param sections the sections to include
+   * @return the JSON fragment
+   */
+  static RawJson serialize(StoreDetails details, Set<StoreDetailsSection> sections) {
+    return new RawJson(details.toJson(sections).toString());
+  }
+
+  /**
+   * Serializes a projection of cached store details, reusing an earlier serialization of the same
+   * content.
+   *
+   * @param cacheKey the store cache key the details are cached under
+   * @param contentHash hash of the response the details were parsed from
+   * @param details the details to serialize
+   * @param sections the sections to include
+   * @return the JSON fragment
+   */
+  RawJson toJson(
+      StoreDetailsCache.Key cacheKey,
+      long contentHash,
+      StoreDetails details,
+      Set<StoreDetailsSection> sections) {
+    Key key = new Key(cacheKey, contentHash, sections);
+    String json;
+    synchronized (this) {
+      json = fragments.get(key);
+    }
+    if (json != null) {
+      hits.increment();
+      return new RawJson(json);
+    }
+    misses.increment();
+    // Serialize outside the lock; concurrent misses for the same key produce identical text
+    json = serialize(details, sections).json();
+    if (json.length() <= maxChars) {
+      store(key, json);
+    }
+    return new RawJson(json);
+  }
+
+  private synchronized void store(Key key, String json) {
+    String previous = fragments.put(key, json);
+    chars += json.length() - (previous == null ? 0 : previous.length());
+    Iterator<Map.Entry<Key, String>> it = fragments.entrySet().iterator();
+    while (chars > maxChars && it.hasNext()) {
+      Map.Entry<Key, String> eldest = it.next();
+      chars -= eldest.getValue().length();
+      it.remove();
+    }
+  }
+
+  synchronized int size() {
+    return fragments.size();
+  }
+
+  /**
+   * Gets memoization statistics for debugging/monitoring.
+   *
+   * @return string with the number and total length of memoized fragments, hits and misses
+   */
+  synchronized String getCacheInfo() {
+    return String.format(
+        "Store JSON: %d fragments, %d of %d chars, hits: %d, misses: %d",
+        fragments.size(), chars, maxChars, hits.sum(), misses.sum());
+  }
+}
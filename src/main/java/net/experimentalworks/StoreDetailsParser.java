@@ -0,0 +1,274 @@
+package net.experimentalworks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Parsing helpers that turn sections of a Steam Store appdetails data object into the
+ * StoreDetails model.
+ *
+ * <p>Each section parser only looks at its own key, so the same helpers serve both the eager parse
+ * of a whole response and the on-demand materialization of single sections.
+ */
+final class StoreDetailsParser {
+
+  private StoreDetailsParser() {}
+
+  /**
+   * Parses a complete appdetails data object.
+   *
+   * @param appId the Steam app ID the data belongs to
+   * @param data the data object of a successful appdetails response
+   * @return fully materialized StoreDetails
+   */
+  static StoreDetails parse(int appId, JSONObject data) {
+    return new StoreDetails(
+        appId,
+        data.optString("type", "unknown"),
+        data.optString("name", "Unknown"),
+        data.optInt("required_age", 0),
+        data.optBoolean("is_free", false),
+        optString(data, "controller_support"),
+        optIntList(data, "dlc"),
+        optString(data, "detailed_description"),
+        optString(data, "about_the_game"),
+        optString(data, "short_description"),
+        parsePriceOverview(data),
+        optString(data, "header_image"),
+        parseScreenshots(data),
+        parseMovies(data),
+        parseCategories(data),
+        parseGenres(data),
+        parseStringList(data, "developers"),
+        parseStringList(data, "publishers"),
+        optString(data, "supported_languages"),
+        parsePlatforms(data),
+        parseRequirements(data, "pc_requirements"),
+        parseRequirements(data, "mac_requirements"),
+        parseRequirements(data, "linux_requirements"),
+        parseMetacritic(data),
+        parseRecommendations(data),
+        parseAchievements(data),
+        parseReleaseDate(data),
+        optString(data, "website"),
+        optString(data, "legal_notice"),
+        true);
+  }
+
+  static Optional<String> optString(JSONObject obj, String key) {
+    if (obj.has(key) && !obj.isNull(key)) {
+      String value = obj.getString(key);
+      return value.isEmpty() ? Optional.empty() : Optional.of(value);
+    }
+    return Optional.empty();
+  }
+
+  static Optional<List<Integer>> optIntList(JSONObject obj, String key) {
+    if (obj.has(key) && !obj.isNull(key)) {
+      JSONArray arr = obj.getJSONArray(key);
+      List<Integer> list = new ArrayList<>();
+      for (int i = 0; i < arr.length(); i++) {
+        list.add(arr.getInt(i));
+      }
+      return list.isEmpty() ? Optional.empty() : Optional.of(list);
+    }
+    return Optional.empty();
+  }
+
+  static Optional<StoreDetails.PriceOverview> parsePriceOverview(JSONObject data) {
+    if (!data.has("price_overview") || data.isNull("price_overview")) {
+      return Optional.empty();
+    }
+
+    JSONObject po = data.getJSONObject("price_overview");
+    return Optional.of(
+        new StoreDetails.PriceOverview(
+            po.optString("currency", "USD"),
+            po.optInt("initial", 0),
+            po.optInt("final", 0),
+            po.optInt("discount_percent", 0),
+            optString(po, "final_formatted")));
+  }
+
+  static Optional<List<StoreDetails.Screenshot>> parseScreenshots(JSONObject data) {
+    if (!data.has("screenshots") || data.isNull("screenshots")) {
+      return Optional.empty();
+    }
+
+    JSONArray arr = data.getJSONArray("screenshots");
+    List<StoreDetails.Screenshot> screenshots = new ArrayList<>();
+    for (int i = 0; i < arr.length(); i++) {
+      JSONObject ss = arr.getJSONObject(i);
+      screenshots.add(
+          new StoreDetails.Screenshot(
+              ss.optInt("id", i),
+              ss.optString("path_thumbnail", ""),
+              ss.optString("path_full", "")));
+    }
+    return screenshots.isEmpty() ? Optional.empty() : Optional.of(screenshots);
+  }
+
+  static Optional<List<StoreDetails.Movie>> parseMovies(JSONObject data) {
+    if (!data.has("movies") || data.isNull("movies")) {
+      return Optional.empty();
+    }
+
+    JSONArray arr = data.getJSONArray("movies");
+    List<StoreDetails.Movie> movies = new ArrayList<>();
+    for (int i = 0; i < arr.length(); i++) {
+      JSONObject movie = arr.getJSONObject(i);
+      JSONObject webm = movie.optJSONObject("webm");
+      JSONObject mp4 = movie.optJSONObject("mp4");
+
+      if (webm != null) {
+        movies.add(
+            new StoreDetails.Movie(
+                movie.optInt("id", i),
+                movie.optString("name", ""),
+                movie.optString("thumbnail", ""),
+                new StoreDetails.Movie.Webm(webm.optString("480", ""), webm.optString("max", "")),
+                mp4 != null
+                    ? Optional.of(
+                        new StoreDetails.Movie.Mp4(
+                            mp4.optString("480", ""), mp4.optString("max", "")))
+                    : Optional.empty()));
+      }
+    }
+    return movies.isEmpty() ? Optional.empty() : Optional.of(movies);
+  }
+
+  static Optional<List<StoreDetails.Category>> parseCategories(JSONObject data) {
+    if (!data.has("categories") || data.isNull("categories")) {
+      return Optional.empty();
+    }
+
+    JSONArray arr = data.getJSONArray("categories");
+    List<StoreDetails.Category> categories = new ArrayList<>();
+    for (int i = 0; i < arr.length(); i++) {
+      JSONObject cat = arr.getJSONObject(i);
+      categories.add(
+          new StoreDetails.Category(cat.optInt("id", 0), cat.optString("description", "")));
+    }
+    return categories.isEmpty() ? Optional.empty() : Optional.of(categories);
+  }
+
+  static Optional<List<StoreDetails.Genre>> parseGenres(JSONObject data) {
+    if (!data.has("genres") || data.isNull("genres")) {
+      return Optional.empty();
+    }
+
+    JSONArray arr = data.getJSONArray("genres");
+    List<StoreDetails.Genre> genres = new ArrayList<>();
+    for (int i = 0; i < arr.length(); i++) {
+      JSONObject genre = arr.getJSONObject(i);
+      genres.add(
+          new StoreDetails.Genre(genre.optString("id", ""), genre.optString("description", "")));
+    }
+    return genres.isEmpty() ? Optional.empty() : Optional.of(genres);
+  }
+
+  static Optional<List<String>> parseStringList(JSONObject data, String key) {
+    if (!data.has(key) || data.isNull(key)) {
+      return Optional.empty();
+    }
+
+    JSONArray arr = data.getJSONArray(key);
+    List<String> list = new ArrayList<>();
+    for (int i = 0; i < arr.length(); i++) {
+      list.add(arr.getString(i));
+    }
+    return list.isEmpty() ? Optional.empty() : Optional.of(list);
+  }
+
+  static StoreDetails.Platforms parsePlatforms(JSONObject data) {
+    if (!data.has("platforms") || data.isNull("platforms")) {
+      return new StoreDetails.Platforms(false, false, false);
+    }
+
+    JSONObject platforms = data.getJSONObject("platforms");
+    return new StoreDetails.Platforms(
+        platforms.optBoolean("windows", false),
+        platforms.optBoolean("mac", false),
+        platforms.optBoolean("linux", false));
+  }
+
+  static Optional<StoreDetails.Requirements> parseRequirements(JSONObject data, String key) {
+    if (!data.has(key) || data.isNull(key)) {
+      return Optional.empty();
+    }
+
+    Object reqObj = data.get(key);
+    // Sometimes requirements is an empty array instead of an object
+    if (reqObj instanceof JSONArray) {
+      return Optional.empty();
+    }
+
+    JSONObject req = (JSONObject) reqObj;
+    Optional<String> minimum = optString(req, "minimum");
+    Optional<String> recommended = optString(req, "recommended");
+
+    if (minimum.isEmpty() && recommended.isEmpty()) {
+      return Optional.empty();
+    }
+
+    return Optional.of(new StoreDetails.Requirements(minimum, recommended));
+  }
+
+  static Optional<StoreDetails.Metacritic> parseMetacritic(JSONObject data) {
+    if (!data.has("metacritic") || data.isNull("metacritic")) {
+      return Optional.empty();
+    }
+
+    JSONObject mc = data.getJSONObject("metacritic");
+    return Optional.of(new StoreDetails.Metacritic(mc.optInt("score", 0), mc.optString("url", "")));
+  }
+
+  static Optional<StoreDetails.Recommendations> parseRecommendations(JSONObject data) {
+    if (!data.has("recommendations") || data.isNull("recommendations")) {
+      return Optional.empty();
+    }
+
+    JSONObject rec = data.getJSONObject("recommendations");
+    return Optional.of(new StoreDetails.Recommendations(rec.optInt("total", 0)));
+  }
+
+  static Optional<StoreDetails.Achievements> parseAchievements(JSONObject data) {
+    if (!data.has("achievements") || data.isNull("achievements")) {
+      return Optional.empty();
+    }
+
+    JSONObject ach = data.getJSONObject("achievements");
+    int total = ach.optInt("total", 0);
+
+    Optional<List<StoreDetails.Achievements.Highlighted>> highlighted = Optional.empty();
+    if (ach.has("highlighted") && !ach.isNull("highlighted")) {
+      JSONArray hlArray = ach.getJSONArray("highlighted");
+      List<StoreDetails.Achievements.Highlighted> hlList = new ArrayList<>();
+      for (int i = 0; i < hlArray.length(); i++) {
+        JSONObject hl = hlArray.getJSONObject(i);
+        hlList.add(
+            new StoreDetails.Achievements.Highlighted(
+                hl.optString("name", ""), hl.optString("path", "")));
+      }
+      if (!hlList.isEmpty()) {
+        highlighted = Optional.of(hlList);
+      }
+    }
+
+    return Optional.of(new StoreDetails.Achievements(total, highlighted));
+  }
+
+  static StoreDetails.ReleaseDate parseReleaseDate(JSONObject data) {
+    if (!data.has("release_date") || data.isNull("release_date")) {
+      return new StoreDetails.ReleaseDate(false, "Unknown");
+    }
+
+    JSONObject rd = data.getJSONObject("release_date");
+    return new StoreDetails.ReleaseDate(
+        rd.optBoolean("coming_soon", false), rd.optString("date", "Unknown"));
+  }
+}
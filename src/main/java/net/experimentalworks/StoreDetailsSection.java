@@ -0,0 +1,276 @@
+package net.experimentalworks;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * The top-level sections of an appdetails data object.
+ *
+ * <p>Each section knows its JSON key, how to parse it from a data object and how to write it back
+ * out from a StoreDetails instance. Sections marked as spliceable are serialized in exactly the
+ * shape the store sends them, so a raw-backed implementation can copy them into a response without
+ * parsing them first.
+ */
+enum StoreDetailsSection {
+  TYPE(
+      "type",
+      false,
+      data -> data.optString("type", "unknown"),
+      (details, json) -> json.put("type", details.getType())),
+  NAME(
+      "name",
+      false,
+      data -> data.optString("name", "Unknown"),
+      (details, json) -> json.put("name", details.getName())),
+  REQUIRED_AGE(
+      "required_age",
+      false,
+      data -> data.optInt("required_age", 0),
+      (details, json) -> json.put("required_age", details.getRequiredAge())),
+  IS_FREE(
+      "is_free",
+      false,
+      data -> data.optBoolean("is_free", false),
+      (details, json) -> json.put("is_free", details.isFree())),
+  CONTROLLER_SUPPORT(
+      "controller_support",
+      true,
+      data -> StoreDetailsParser.optString(data, "controller_support"),
+      (details, json) ->
+          details.getControllerSupport().ifPresent(cs -> json.put("controller_support", cs))),
+  DLC(
+      "dlc",
+      true,
+      data -> StoreDetailsParser.optIntList(data, "dlc"),
+      (details, json) -> details.getDlc().ifPresent(d -> json.put("dlc", new JSONArray(d)))),
+  DETAILED_DESCRIPTION(
+      "detailed_description",
+      true,
+      data -> StoreDetailsParser.optString(data, "detailed_description"),
+      (details, json) ->
+          details.getDetailedDescription().ifPresent(dd -> json.put("detailed_description", dd))),
+  ABOUT_THE_GAME(
+      "about_the_game",
+      true,
+      data -> StoreDetailsParser.optString(data, "about_the_game"),
+      (details, json) ->
+          details.getAboutTheGame().ifPresent(atg -> json.put("about_the_game", atg))),
+  SHORT_DESCRIPTION(
+      "short_description",
+      true,
+      data -> StoreDetailsParser.optString(data, "short_description"),
+      (details, json) ->
+          details.getShortDescription().ifPresent(sd -> json.put("short_description", sd))),
+  PRICE_OVERVIEW(
+      "price_overview",
+      false,
+      StoreDetailsParser::parsePriceOverview,
+      (details, json) ->
+          details.getPriceOverview().ifPresent(po -> json.put("price_overview", po.toJson()))),
+  HEADER_IMAGE(
+      "header_image",
+      true,
+      data -> StoreDetailsParser.optString(data, "header_image"),
+      (details, json) -> details.getHeaderImage().ifPresent(hi -> json.put("header_image", hi))),
+  SCREENSHOTS(
+      "screenshots",
+      true,
+      StoreDetailsParser::parseScreenshots,
+      (details, json) ->
+          details
+              .getScreenshots()
+              .ifPresent(
+                  ss -> json.put("screenshots", toArray(ss, StoreDetails.Screenshot::toJson)))),
+  MOVIES(
+      "movies",
+      false,
+      StoreDetailsParser::parseMovies,
+      (details, json) ->
+          details
+              .getMovies()
+              .ifPresent(ms -> json.put("movies", toArray(ms, StoreDetails.Movie::toJson)))),
+  CATEGORIES(
+      "categories",
+      true,
+      StoreDetailsParser::parseCategories,
+      (details, json) ->
+          details
+              .getCategories()
+              .ifPresent(
+                  cats -> json.put("categories", toArray(cats, StoreDetails.Category::toJson)))),
+  GENRES(
+      "genres",
+      true,
+      StoreDetailsParser::parseGenres,
+      (details, json) ->
+          details
+              .getGenres()
+              .ifPresent(gens -> json.put("genres", toArray(gens, StoreDetails.Genre::toJson)))),
+  DEVELOPERS(
+      "developers",
+      true,
+      data -> StoreDetailsParser.parseStringList(data, "developers"),
+      (details, json) ->
+          details.getDevelopers().ifPresent(devs -> json.put("developers", new JSONArray(devs)))),
+  PUBLISHERS(
+      "publishers",
+      true,
+      data -> StoreDetailsParser.parseStringList(data, "publishers"),
+      (details, json) ->
+          details.getPublishers().ifPresent(pubs -> json.put("publishers", new JSONArray(pubs)))),
+  SUPPORTED_LANGUAGES(
+      "supported_languages",
+      true,
+      data -> StoreDetailsParser.optString(data, "supported_languages"),
+      (details, json) ->
+          details.getSupportedLanguages().ifPresent(sl -> json.put("supported_languages", sl))),
+  PLATFORMS(
+      "platforms",
+      true,
+      StoreDetailsParser::parsePlatforms,
+      (details, json) -> json.put("platforms", details.getPlatforms().toJson())),
+  PC_REQUIREMENTS(
+      "pc_requirements",
+      false,
+      data -> StoreDetailsParser.parseRequirements(data, "pc_requirements"),
+      (details, json) ->
+          details.getPcRequirements().ifPresent(pcr -> json.put("pc_requirements", pcr.toJson()))),
+  MAC_REQUIREMENTS(
+      "mac_requirements",
+      false,
+      data -> StoreDetailsParser.parseRequirements(data, "mac_requirements"),
+      (details, json) ->
+          details
+              .getMacRequirements()
+              .ifPresent(macr -> json.put("mac_requirements", macr.toJson()))),
+  LINUX_REQUIREMENTS(
+      "linux_requirements",
+      false,
+      data -> StoreDetailsParser.parseRequirements(data, "linux_requirements"),
+      (details, json) ->
+          details
+              .getLinuxRequirements()
+              .ifPresent(linr -> json.put("linux_requirements", linr.toJson()))),
+  METACRITIC(
+      "metacritic",
+      true,
+      StoreDetailsParser::parseMetacritic,
+      (details, json) ->
+          details.getMetacritic().ifPresent(mc -> json.put("metacritic", mc.toJson()))),
+  RECOMMENDATIONS(
+      "recommendations",
+      true,
+      StoreDetailsParser::parseRecommendations,
+      (details, json) ->
+          details
+              .getRecommendations()
+              .ifPresent(rec -> json.put("recommendations", rec.toJson()))),
+  ACHIEVEMENTS(
+      "achievements",
+      false,
+      StoreDetailsParser::parseAchievements,
+      (details, json) ->
+          details.getAchievements().ifPresent(ach -> json.put("achievements", ach.toJson()))),
+  RELEASE_DATE(
+      "release_date",
+      true,
+      StoreDetailsParser::parseReleaseDate,
+      (details, json) -> json.put("release_date", details.getReleaseDate().toJson())),
+  WEBSITE(
+      "website",
+      true,
+      data -> StoreDetailsParser.optString(data, "website"),
+      (details, json) -> details.getWebsite().ifPresent(w -> json.put("website", w))),
+  LEGAL_NOTICE(
+      "legal_notice",
+      true,
+      data -> StoreDetailsParser.optString(data, "legal_notice"),
+      (details, json) -> details.getLegalNotice().ifPresent(ln -> json.put("legal_notice", ln)));
+
+  private static final StoreDetailsSection[] VALUES = values();
+
+  /** All sections, the projection of a complete StoreDetails. */
+  static final Set<StoreDetailsSection> ALL =
+      Collections.unmodifiableSet(EnumSet.allOf(StoreDetailsSection.class));
+
+  private final String key;
+  private final boolean spliceable;
+  private final Function<JSONObject, Object> parser;
+  private final BiConsumer<StoreDetails, JSONObject> writer;
+
+  StoreDetailsSection(
+      String key,
+      boolean spliceable,
+      Function<JSONObject, Object> parser,
+      BiConsumer<StoreDetails, JSONObject> writer) {
+    this.key = key;
+    this.spliceable = spliceable;
+    this.parser = parser;
+    this.writer = writer;
+  }
+
+  String key() {
+    return key;
+  }
+
+  /** Whether the raw store JSON of this section equals its serialized form. */
+  boolean isSpliceable() {
+    return spliceable;
+  }
+
+  /** Parses this section from a data object, falling back to defaults if it is absent. */
+  Object parse(JSONObject data) {
+    return parser.apply(data);
+  }
+
+  /** Writes this section of the given details into a JSON object. */
+  void write(StoreDetails details, JSONObject json) {
+    writer.accept(details, json);
+  }
+
+  /** Returns the section with the given JSON key, or null if the key is not a known section. */
+  static StoreDetailsSection forKey(String key) {
+    for (StoreDetailsSection section : VALUES) {
+      if (section.key.equals(key)) {
+        return section;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Resolves a field projection.
+   *
+   * @param keys the JSON keys of the sections to include
+   * @return the sections
+   * @throws IllegalArgumentException if a key does not name a section
+   */
+  static Set<StoreDetailsSection> forKeys(List<String> keys) {
+    Set<StoreDetailsSection> sections = EnumSet.noneOf(StoreDetailsSection.class);
+    for (String key : keys) {
+      StoreDetailsSection section = forKey(key);
+      if (section == null) {
+        throw new IllegalArgumentException("Unknown store details field: " + key);
+      }
+      sections.add(section);
+    }
+    return Collections.unmodifiableSet(sections);
+  }
+
+  static StoreDetailsSection[] all() {
+    return VALUES;
+  }
+
+  private static <T> JSONArray toArray(List<T> items, Function<T, JSONObject> toJson) {
+    JSONArray array = new JSONArray();
+    items.forEach(item -> array.put(toJson.apply(item)));
+    return array;
+  }
+}
@@ -0,0 +1,129 @@
+package net.experimentalworks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+
+/**
+ * Sliding-window count of requests sent to the Steam Store API, which allows about 200 requests
+ * per 5 minutes.
+ *
+ * <p>Regular requests are only counted; they are sent regardless of the budget. Optional extra
+ * requests, such as hedges, must be granted by {@link #tryAcquireHedge()}. Hedges are granted only
+ * while the window has room and hedges stay below {@link #HEDGE_SHARE} of the limit, so they can
+ * never crowd out regular requests. Background refreshes must be granted by {@link
+ * #tryAcquireRefresh()}, which only succeeds while less than {@link #REFRESH_CEILING} of the limit
+ * is used, leaving the rest of the window to callers.
+ */
+public class StoreRateBudget {
+  /** Requests the store accepts per window. */
+  public static final int DEFAULT_LIMIT = 200;
+
+  /** Length of the store's rate limit window. */
+  public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(5);
+
+  /** Share of the limit that may be spent on hedges. */
+  static final double HEDGE_SHARE = 0.1;
+
+  /** Share of the limit above which no background refreshes are granted. */
+  static final double REFRESH_CEILING = 0.5;
+
+  private final int limit;
+  private final int hedgeLimit;
+  private final Duration window;
+  private final Clock clock;
+  private final ArrayDeque<Instant> requests = new ArrayDeque<>();
+  private final ArrayDeque<Instant> hedges = new ArrayDeque<>();
+
+  /** Creates a budget for the store's documented rate limit. */
+  public StoreRateBudget() {
+    this(DEFAULT_LIMIT, DEFAULT_WINDOW, Clock.systemUTC());
+  }
+
+  /**
+   * Creates a budget with explicit settings (primarily for testing).
+   *
+   * @param limit requests allowed per window
+   * @param window length of the window
+   * @param clock clock used to age out requests
+   */
+  public StoreRateBudget(int limit, Duration window, Clock clock) {
+    this.limit = limit;
+    this.hedgeLimit = (int) (limit * HEDGE_SHARE);
+    this.window = window;
+    this.clock = clock;
+  }
+
+  /** Counts a regular request. */
+  public synchronized void recordRequest() {
+    Instant now = clock.instant();
+    prune(now);
+    requests.addLast(now);
+  }
+
+  /**
+   * Counts a hedge if the budget allows one.
+   *
+   * @return true if the hedge may be sent
+   */
+  public synchronized boolean tryAcquireHedge() {
+    Instant now = clock.instant();
+    prune(now);
+    if (requests.size() >= limit || hedges.size() >= hedgeLimit) {
+      return false;
+    }
+    requests.addLast(now);
+    hedges.addLast(now);
+    return true;
+  }
+
+  /**
+   * Counts a background refresh if the window is used less than {@link #REFRESH_CEILING}.
+   *
+   * @return true if the refresh may be sent
+   */
+  public synchronized boolean tryAcquireRefresh() {
+    Instant now = clock.instant();
+    prune(now);
+    if (requests.size() >= limit * REFRESH_CEILING) {
+      return false;
+    }
+    requests.addLast(now);
+    return true;
+  }
+
+  /** Returns the number of requests, including hedges, sent in the current window. */
+  public synchronized int getUsed() {
+    prune(clock.instant());
+    return requests.size();
+  }
+
+  /** Returns the number of hedges sent in the current window. */
+  public synchronized int getHedgesUsed() {
+    prune(clock.instant());
+    return hedges.size();
+  }
+
+  private void prune(Instant now) {
+    Instant start = now.minus(window);
+    while (!requests.isEmpty() && !requests.peekFirst().isAfter(start)) {
+      requests.removeFirst();
+    }
+    while (!hedges.isEmpty() && !hedges.peekFirst().isAfter(start)) {
+      hedges.removeFirst();
+    }
+  }
+
+  /**
+   * Gets budget usage for debugging/monitoring.
+   *
+   * @return string with requests and hedges in the current window
+   */
+  public synchronized String getInfo() {
+    prune(clock.instant());
+    return String.format(
+        "Store rate budget: %d of %d requests in last %d s, hedges %d of %d",
+        requests.size(), limit, window.toSeconds(), hedges.size(), hedgeLimit);
+  }
+}
@@ -0,0 +1,86 @@
+package net.experimentalworks;
+
+/**
+ * Shared dictionaries for strings that repeat across store details.
+ *
+ * <p>Genre and category descriptions, developer and publisher names and currency codes come from
+ * small vocabularies, and CDN URLs differ only after a handful of common prefixes. The store
+ * details model stores int codes into these tables (and shared instances of company names), so
+ * every value is held in memory once no matter how many cached apps use it.
+ *
+ * <p>Company names and URL prefixes grow with every app parsed, so their tables are capped. Once
+ * full, new company names are kept by the details that use them, and URLs with a new prefix are
+ * stored whole behind the empty prefix.
+ */
+final class StoreSymbols {
+  static final int MAX_COMPANIES = 16_384;
+  static final int MAX_URL_PREFIXES = 1_024;
+
+  static final StringTable CURRENCIES = new StringTable();
+  static final StringTable GENRES = new StringTable();
+  static final StringTable CATEGORIES = new StringTable();
+  static final StringTable COMPANIES = new StringTable(MAX_COMPANIES);
+  static final StringTable URL_PREFIXES = new StringTable(MAX_URL_PREFIXES);
+
+  /** Code of the empty URL prefix, used for URLs whose prefix does not fit the table. */
+  static final int EMPTY_PREFIX = URL_PREFIXES.encode("");
+
+  private StoreSymbols() {}
+
+  /**
+   * Returns the length of the shared prefix of a store URL: everything up to the first path
+   * segment starting with a digit, which is where the app or movie ID begins. For example the
+   * prefix of {@code https://cdn.akamai.steamstatic.com/steam/apps/620/header.jpg} is {@code
+   * https://cdn.akamai.steamstatic.com/steam/apps/}.
+   *
+   * <p>URLs without such a segment share everything up to their last slash.
+   */
+  static int prefixLength(String url) {
+    int scheme = url.indexOf("://");
+    int slash = url.indexOf('/', scheme < 0 ? 0 : scheme + 3);
+    while (slash >= 0 && slash + 1 < url.length()) {
+      if (Character.isDigit(url.charAt(slash + 1))) {
+        return slash + 1;
+      }
+      slash = url.indexOf('/', slash + 1);
+    }
+    return url.lastIndexOf('/') + 1;
+  }
+
+  /**
+   * Returns the code of the shared prefix of a URL, or {@link #EMPTY_PREFIX} if the prefix table is
+   * full.
+   */
+  static int urlPrefix(String url) {
+    int code = URL_PREFIXES.tryEncode(url.substring(0, prefixLength(url)));
+    return code < 0 ? EMPTY_PREFIX : code;
+  }
+
+  /** Returns the part of a URL after the prefix with the given code. */
+  static String urlSuffix(String url, int prefix) {
+    return url.substring(URL_PREFIXES.decode(prefix).length());
+  }
+
+  /** Reassembles a URL from its prefix code and suffix. */
+  static String url(int prefix, String suffix) {
+    return URL_PREFIXES.decode(prefix).concat(suffix);
+  }
+
+  /**
+   * Gets dictionary sizes for debugging/monitoring.
+   *
+   * @return string with the number of distinct values per dictionary
+   */
+  static String getInfo() {
+    return String.format(
+        "Store dictionaries: %d currencies, %d genre values, %d categories, %d of %d companies, "
+            + "%d of %d URL prefixes",
+        CURRENCIES.size(),
+        GENRES.size(),
+        CATEGORIES.size(),
+        COMPANIES.size(),
+        MAX_COMPANIES,
+        URL_PREFIXES.size(),
+        MAX_URL_PREFIXES);
+  }
+}
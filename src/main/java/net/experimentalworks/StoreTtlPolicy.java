@@ -0,0 +1,123 @@
+package net.experimentalworks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Year;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides how long cached store details are served before they are revalidated.
+ *
+ * <p>The adaptive policy derives the lifetime from the content. Prices of discounted apps and the
+ * release data of upcoming apps change often, so they are kept for {@link #VOLATILE_TTL} only.
+ * Paid apps can go on sale at any time and are kept for {@link #PAID_TTL}. Free apps have no price
+ * to go stale and are kept for {@link #FREE_TTL}, or {@link #MAX_TTL} once they were released at
+ * least {@link #SETTLED_AFTER_YEARS} years ago.
+ *
+ * <p>The entry's history adjusts this: every revalidation in a row that found the content unchanged
+ * doubles the lifetime, up to {@link #PAID_MAX_TTL} for paid apps and {@link #MAX_TTL} for free
+ * ones. Content that changed again on its last refresh gets half the lifetime.
+ */
+public class StoreTtlPolicy {
+  static final Duration VOLATILE_TTL = Duration.ofMinutes(10);
+  static final Duration PAID_TTL = Duration.ofHours(1);
+  static final Duration PAID_MAX_TTL = Duration.ofHours(2);
+  static final Duration FREE_TTL = Duration.ofHours(6);
+  static final Duration MAX_TTL = Duration.ofHours(24);
+  static final int SETTLED_AFTER_YEARS = 2;
+
+  private static final Pattern YEAR = Pattern.compile("\\b(\\d{4})\\b");
+  private static final int MAX_DOUBLINGS = 4;
+
+  private final Duration fixedTtl;
+  private final Clock clock;
+
+  private StoreTtlPolicy(Duration fixedTtl, Clock clock) {
+    this.fixedTtl = fixedTtl;
+    this.clock = clock;
+  }
+
+  /**
+   * Creates the content-based policy.
+   *
+   * @param clock clock used to compute how long ago an app was released
+   * @return the policy
+   */
+  public static StoreTtlPolicy adaptive(Clock clock) {
+    return new StoreTtlPolicy(null, clock);
+  }
+
+  /**
+   * Creates a policy that gives every entry the same lifetime.
+   *
+   * @param ttl the lifetime
+   * @return the policy
+   */
+  public static StoreTtlPolicy fixed(Duration ttl) {
+    return new StoreTtlPolicy(ttl, null);
+  }
+
+  /**
+   * Computes the lifetime of a cache entry.
+   *
+   * @param details the cached details
+   * @param changes how often the content differed from the previous entry for the same key
+   * @param unchangedRefreshes revalidations in a row that found the content unchanged
+   * @return how long the entry is served without revalidation
+   */
+  public Duration ttlFor(StoreDetails details, int changes, int unchangedRefreshes) {
+    if (fixedTtl != null) {
+      return fixedTtl;
+    }
+    if (details.getReleaseDate().isComingSoon() || isDiscounted(details)) {
+      return VOLATILE_TTL;
+    }
+
+    boolean free = details.isFree() || details.getPriceOverview().isEmpty();
+    Duration base = free ? (isSettled(details) ? MAX_TTL : FREE_TTL) : PAID_TTL;
+    Duration max = free ? MAX_TTL : PAID_MAX_TTL;
+    if (unchangedRefreshes > 0) {
+      Duration extended = base.multipliedBy(1L << Math.min(unchangedRefreshes, MAX_DOUBLINGS));
+      return extended.compareTo(max) < 0 ? extended : max;
+    }
+    if (changes > 1) {
+      Duration halved = base.dividedBy(2);
+      return halved.compareTo(VOLATILE_TTL) > 0 ? halved : VOLATILE_TTL;
+    }
+    return base;
+  }
+
+  private static boolean isDiscounted(StoreDetails details) {
+    return details.getPriceOverview().map(price -> price.getDiscountPercent() > 0).orElse(false);
+  }
+
+  /** Whether the app was released at least {@link #SETTLED_AFTER_YEARS} years ago. */
+  private boolean isSettled(StoreDetails details) {
+    String date = details.getReleaseDate().getDate();
+    if (date == null) {
+      return false;
+    }
+    Matcher year = YEAR.matcher(date);
+    return year.find()
+        && Integer.parseInt(year.group(1)) <= Year.now(clock).getValue() - SETTLED_AFTER_YEARS;
+  }
+
+  /**
+   * Describes the policy for debugging/monitoring.
+   *
+   * @return string with the lifetimes used
+   */
+  public String getInfo() {
+    if (fixedTtl != null) {
+      return "ttl: " + fixedTtl;
+    }
+    return String.format(
+        "ttl: adaptive, %d min volatile, %d-%d min paid, %d h free, up to %d h settled",
+        VOLATILE_TTL.toMinutes(),
+        PAID_TTL.toMinutes(),
+        PAID_MAX_TTL.toMinutes(),
+        FREE_TTL.toHours(),
+        MAX_TTL.toHours());
+  }
+}
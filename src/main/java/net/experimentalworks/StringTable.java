@@ -0,0 +1,134 @@
+package net.experimentalworks;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe symbol table that assigns a stable int code to every distinct string it is given.
+ *
+ * <p>Objects that store codes instead of strings share a single instance of each value, no matter
+ * how many separately parsed responses it came from. Codes are never reassigned or removed, so a
+ * table for values whose cardinality is not naturally bounded should be created with a maximum
+ * size; once it is full, new values are not added and callers keep their own copy instead.
+ */
+public final class StringTable {
+  private final int maxSize;
+  private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+  private volatile String[] symbols = new String[16];
+  private int size;
+
+  /** Creates a table without a size limit. */
+  public StringTable() {
+    this(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a table that holds at most the given number of strings.
+   *
+   * @param maxSize the maximum number of distinct strings
+   */
+  public StringTable(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the code of a string, adding it to the table if it is new.
+   *
+   * @param value the string to encode, not null
+   * @return the code of the string
+   * @throws IllegalStateException if the string is new and the table is full
+   */
+  public int encode(String value) {
+    int code = tryEncode(value);
+    if (code < 0) {
+      throw new IllegalStateException("String table is full (" + maxSize + " strings)");
+    }
+    return code;
+  }
+
+  /**
+   * Returns the code of a string, adding it to the table if it is new and the table is not full.
+   *
+   * @param value the string to encode, not null
+   * @return the code of the string, or -1 if it is new and the table is full
+   */
+  public int tryEncode(String value) {
+    Integer code = codes.get(value);
+    if (code != null) {
+      return code;
+    }
+    synchronized (this) {
+      code = codes.get(value);
+      if (code != null) {
+        return code;
+      }
+      if (size >= maxSize) {
+        return -1;
+      }
+      String[] current = symbols;
+      if (size == current.length) {
+        current = Arrays.copyOf(current, size * 2);
+      }
+      current[size] = value;
+      // Publish the array before the code so that any reader holding the code can decode it
+      symbols = current;
+      codes.put(value, size);
+      return size++;
+    }
+  }
+
+  /**
+   * Returns the string with the given code.
+   *
+   * @param code a code previously returned by {@link #encode(String)}
+   * @return the shared string instance
+   */
+  public String decode(int code) {
+    return symbols[code];
+  }
+
+  /**
+   * Returns the shared instance of a string, adding it to the table if it is new and the table is
+   * not full.
+   *
+   * @param value the string, not null
+   * @return the instance held by the table, or the value itself if the table is full
+   */
+  public String intern(String value) {
+    int code = tryEncode(value);
+    return code < 0 ? value : decode(code);
+  }
+
+  /** Returns the number of distinct strings in the table. */
+  public int size() {
+    return codes.size();
+  }
+
+  /**
+   * Encodes all strings of an array.
+   *
+   * @param values the strings to encode
+   * @return their codes, in the same order
+   */
+  public int[] encodeAll(String[] values) {
+    int[] result = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      result[i] = encode(values[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Decodes all codes of an array.
+   *
+   * @param codes the codes to decode
+   * @return the shared strings, in the same order
+   */
+  public String[] decodeAll(int[] codes) {
+    String[] result = new String[codes.length];
+    for (int i = 0; i < codes.length; i++) {
+      result[i] = decode(codes[i]);
+    }
+    return result;
+  }
+}
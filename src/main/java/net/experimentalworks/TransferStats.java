@@ -0,0 +1,79 @@
+package net.experimentalworks;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONObject;
+
+/**
+ * Thread-safe counters describing how store responses travelled over the wire.
+ *
+ * <p>{@link HttpClient} does not expose its connection pool, so connection reuse is reported as the
+ * number of HTTP/2 responses: with HTTP/2 all concurrent requests to the store host are multiplexed
+ * over a single connection.
+ */
+public class TransferStats {
+  private final LongAdder responses = new LongAdder();
+  private final LongAdder http2Responses = new LongAdder();
+  private final LongAdder compressedResponses = new LongAdder();
+  private final LongAdder wireBytes = new LongAdder();
+  private final LongAdder decodedBytes = new LongAdder();
+
+  /**
+   * Records a fully received response.
+   *
+   * @param version the protocol version the response was received with
+   * @param compressed whether the body was content-encoded
+   * @param wire number of body bytes received over the wire
+   * @param decoded number of body bytes after decoding
+   */
+  public void recordResponse(
+      HttpClient.Version version, boolean compressed, long wire, long decoded) {
+    responses.increment();
+    if (version == HttpClient.Version.HTTP_2) {
+      http2Responses.increment();
+    }
+    if (compressed) {
+      compressedResponses.increment();
+    }
+    wireBytes.add(wire);
+    decodedBytes.add(decoded);
+  }
+
+  public long getResponses() {
+    return responses.sum();
+  }
+
+  public long getHttp2Responses() {
+    return http2Responses.sum();
+  }
+
+  public long getCompressedResponses() {
+    return compressedResponses.sum();
+  }
+
+  public long getWireBytes() {
+    return wireBytes.sum();
+  }
+
+  public long getDecodedBytes() {
+    return decodedBytes.sum();
+  }
+
+  /** Returns the number of bytes that did not have to be transferred thanks to compression. */
+  public long getBytesSaved() {
+    return getDecodedBytes() - getWireBytes();
+  }
+
+  /** Converts these statistics to a JSONObject for monitoring output. */
+  public JSONObject toJson() {
+    JSONObject json = new JSONObject();
+    json.put("responses", getResponses());
+    json.put("http2_responses", getHttp2Responses());
+    json.put("compressed_responses", getCompressedResponses());
+    json.put("wire_bytes", getWireBytes());
+    json.put("decoded_bytes", getDecodedBytes());
+    json.put("bytes_saved", getBytesSaved());
+    return json;
+  }
+}
@@ -0,0 +1,224 @@
+package net.experimentalworks;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Orders requests to the Steam Store API by priority class.
+ *
+ * <p>At most a fixed number of requests are in flight; the rest wait in one queue per {@link
+ * Priority}. Free slots go to interactive requests first, and {@link #DEFAULT_INTERACTIVE_RESERVE}
+ * slots are kept for them, so prefetch and background work only runs on leftover capacity. To keep
+ * lower classes from starving while interactive traffic is high, a request that has waited {@link
+ * #DEFAULT_MAX_WAIT} is dispatched ahead of everything else, reserved slots included.
+ */
+public class UpstreamScheduler {
+  /** Requests in flight at once. */
+  static final int DEFAULT_MAX_CONCURRENT = 16;
+
+  /** Slots that prefetch and background requests may not use. */
+  static final int DEFAULT_INTERACTIVE_RESERVE = 4;
+
+  /** Wait after which a lower-priority request is dispatched ahead of higher ones. */
+  static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(2);
+
+  /** Priority classes, highest first. */
+  public enum Priority {
+    /** Requests a tool call is waiting for. */
+    INTERACTIVE,
+    /** Requests for data a caller is likely to ask for next. */
+    PREFETCH,
+    /** Maintenance such as refreshing cache entries ahead of expiry. */
+    BACKGROUND
+  }
+
+  private record Task(long enqueuedNanos, CompletableFuture<?> result, Runnable start) {}
+
+  private final int maxConcurrent;
+  private final int interactiveReserve;
+  private final long maxWaitNanos;
+  private final List<ArrayDeque<Task>> queues = new ArrayList<>();
+  private final long[] dispatched = new long[Priority.values().length];
+  private final long[] waitNanos = new long[Priority.values().length];
+  private final long[] maxWaitSeen = new long[Priority.values().length];
+  private int inFlight;
+  private long aged;
+
+  /** Creates a scheduler with the default limits. */
+  public UpstreamScheduler() {
+    this(DEFAULT_MAX_CONCURRENT, DEFAULT_INTERACTIVE_RESERVE, DEFAULT_MAX_WAIT);
+  }
+
+  /**
+   * Creates a scheduler with explicit limits (primarily for testing).
+   *
+   * @param maxConcurrent requests in flight at once
+   * @param interactiveReserve slots that only interactive requests may use
+   * @param maxWait wait after which a lower-priority request is dispatched ahead of higher ones
+   */
+  public UpstreamScheduler(int maxConcurrent, int interactiveReserve, Duration maxWait) {
+    this.maxConcurrent = maxConcurrent;
+    this.interactiveReserve = interactiveReserve;
+    this.maxWaitNanos = maxWait.toNanos();
+    for (int i = 0; i < Priority.values().length; i++) {
+      queues.add(new ArrayDeque<>());
+    }
+  }
+
+  /**
+   * Sends a request once a slot for its priority class is free.
+   *
+   * @param priority the request's class
+   * @param request sends the request
+   * @return future completed with the response; cancelling it drops a queued request or cancels a
+   *     sent one
+   */
+  public <T> CompletableFuture<T> submit(
+      Priority priority, Supplier<CompletableFuture<T>> request) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    List<Runnable> ready;
+    synchronized (this) {
+      queues
+          .get(priority.ordinal())
+          .addLast(new Task(System.nanoTime(), result, () -> start(request, result)));
+      ready = dispatch();
+    }
+    ready.forEach(Runnable::run);
+    return result;
+  }
+
+  private <T> void start(Supplier<CompletableFuture<T>> request, CompletableFuture<T> result) {
+    if (result.isDone()) {
+      // Cancelled between dispatch and start
+      release();
+      return;
+    }
+    CompletableFuture<T> response;
+    try {
+      response = request.get();
+    } catch (RuntimeException e) {
+      release();
+      result.completeExceptionally(e);
+      return;
+    }
+    response.whenComplete(
+        (value, error) -> {
+          release();
+          if (error != null) {
+            result.completeExceptionally(error);
+          } else {
+            result.complete(value);
+          }
+        });
+    result.whenComplete(
+        (value, error) -> {
+          if (result.isCancelled()) {
+            response.cancel(true);
+          }
+        });
+  }
+
+  private void release() {
+    List<Runnable> ready;
+    synchronized (this) {
+      inFlight--;
+      ready = dispatch();
+    }
+    ready.forEach(Runnable::run);
+  }
+
+  /** Takes tasks off the queues while slots are free; the caller starts them outside the lock. */
+  private List<Runnable> dispatch() {
+    List<Runnable> ready = new ArrayList<>();
+    long now = System.nanoTime();
+    while (inFlight < maxConcurrent) {
+      int priority = next(now);
+      if (priority < 0) {
+        break;
+      }
+      Task task = queues.get(priority).pollFirst();
+      long waited = now - task.enqueuedNanos();
+      dispatched[priority]++;
+      waitNanos[priority] += waited;
+      maxWaitSeen[priority] = Math.max(maxWaitSeen[priority], waited);
+      inFlight++;
+      ready.add(task.start());
+    }
+    return ready;
+  }
+
+  /** Picks the queue to serve next, or -1 if no waiting task may be sent now. */
+  private int next(long now) {
+    // Starvation protection comes first: a lower-priority task that waited too long
+    for (int p = 1; p < queues.size(); p++) {
+      Task head = head(p);
+      if (head != null && now - head.enqueuedNanos() >= maxWaitNanos) {
+        aged++;
+        return p;
+      }
+    }
+    if (head(Priority.INTERACTIVE.ordinal()) != null) {
+      return Priority.INTERACTIVE.ordinal();
+    }
+    if (inFlight >= maxConcurrent - interactiveReserve) {
+      return -1;
+    }
+    for (int p = 1; p < queues.size(); p++) {
+      if (head(p) != null) {
+        return p;
+      }
+    }
+    return -1;
+  }
+
+  /** Returns the first task of a queue, dropping tasks cancelled while they waited. */
+  private Task head(int priority) {
+    ArrayDeque<Task> queue = queues.get(priority);
+    while (!queue.isEmpty() && queue.peekFirst().result().isDone()) {
+      queue.pollFirst();
+    }
+    return queue.peekFirst();
+  }
+
+  /** Returns the number of requests in flight. */
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /** Returns the number of requests of a class waiting for a slot. */
+  public synchronized int getQueued(Priority priority) {
+    return queues.get(priority.ordinal()).size();
+  }
+
+  /** Returns the number of requests of a class that were sent. */
+  public synchronized long getDispatched(Priority priority) {
+    return dispatched[priority.ordinal()];
+  }
+
+  /**
+   * Gets scheduler statistics for debugging/monitoring.
+   *
+   * @return string with slots in use and the queue length and waits of each class
+   */
+  public synchronized String getInfo() {
+    StringBuilder info =
+        new StringBuilder(
+            String.format("Upstream scheduler: %d of %d in flight", inFlight, maxConcurrent));
+    for (Priority priority : Priority.values()) {
+      int p = priority.ordinal();
+      info.append(
+          String.format(
+              "; %s: sent %d, queued %d, avg wait %.1f ms, max wait %.1f ms",
+              priority.name().toLowerCase(),
+              dispatched[p],
+              queues.get(p).size(),
+              dispatched[p] == 0 ? 0.0 : waitNanos[p] / 1_000_000.0 / dispatched[p],
+              maxWaitSeen[p] / 1_000_000.0));
+    }
+    return info.append("; aged ").append(aged).toString();
+  }
+}
@@ -0,0 +1,122 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+  private MutableClock clock;
+  private CircuitBreaker breaker;
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock();
+    breaker = new CircuitBreaker("Test", 10, 4, 0.5, Duration.ofSeconds(30), 2, clock);
+  }
+
+  @Test
+  void testOpensAtFailureRateOnceWindowHasMinCalls() {
+    breaker.recordFailure();
+    breaker.recordFailure();
+    breaker.recordFailure();
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+    breaker.recordSuccess();
+    breaker.recordFailure();
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertTrue(breaker.isOpen());
+    assertFalse(breaker.tryAcquire());
+    assertEquals(1, breaker.getRejected());
+  }
+
+  @Test
+  void testStaysClosedBelowFailureRate() {
+    for (int i = 0; i < 20; i++) {
+      breaker.recordSuccess();
+      breaker.recordSuccess();
+      breaker.recordFailure();
+    }
+
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertTrue(breaker.tryAcquire());
+  }
+
+  @Test
+  void testClosesAfterSuccessfulProbes() {
+    open();
+    clock.advance(Duration.ofSeconds(30));
+    assertFalse(breaker.isOpen());
+
+    assertTrue(breaker.tryAcquire());
+    assertTrue(breaker.tryAcquire());
+    assertFalse(breaker.tryAcquire());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+    breaker.recordSuccess();
+    breaker.recordSuccess();
+
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    assertEquals(
+        "Test circuit: CLOSED, 0 of 0 recent calls failed, opened 1 times, rejected 1",
+        breaker.getInfo());
+  }
+
+  @Test
+  void testFailedProbeReopens() {
+    open();
+    clock.advance(Duration.ofSeconds(30));
+    assertTrue(breaker.tryAcquire());
+
+    breaker.recordFailure();
+
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire());
+  }
+
+  @Test
+  void testReleasedProbeFreesItsSlot() {
+    open();
+    clock.advance(Duration.ofSeconds(30));
+    assertTrue(breaker.tryAcquire());
+    assertTrue(breaker.tryAcquire());
+
+    breaker.release();
+
+    assertTrue(breaker.tryAcquire());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+  }
+
+  @Test
+  void testUnprobedCallsCannotCloseHalfOpenBreaker() {
+    open();
+    clock.advance(Duration.ofSeconds(30));
+    assertTrue(breaker.tryAcquire());
+
+    breaker.recordUnprobed(false);
+    breaker.recordUnprobed(false);
+    breaker.recordUnprobed(true);
+
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+  }
+
+  @Test
+  void testThrottlingAndServerErrorsAreFailures() {
+    assertTrue(CircuitBreaker.isUpstreamFailure(429));
+    assertTrue(CircuitBreaker.isUpstreamFailure(503));
+    assertFalse(CircuitBreaker.isUpstreamFailure(200));
+    assertFalse(CircuitBreaker.isUpstreamFailure(304));
+    assertFalse(CircuitBreaker.isUpstreamFailure(404));
+  }
+
+  private void open() {
+    for (int i = 0; i < 4; i++) {
+      breaker.recordFailure();
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+}
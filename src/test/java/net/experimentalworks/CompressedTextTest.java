@@ -0,0 +1,66 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Optional;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+class CompressedTextTest {
+
+  private static final String DESCRIPTION =
+      ("<h2 class=\"bb_tag\">About</h2><p class=\"bb_paragraph\">Explore a vast world with your"
+              + " friends. Build, craft and survive together.</p><ul class=\"bb_ul\"><li>Co-op"
+              + " for up to 4 players</li><li>Procedurally generated worlds</li></ul>")
+          .repeat(20);
+
+  private static final String REQUIREMENTS =
+      "<strong>Minimum:</strong><br><ul class=\"bb_ul\"><li>Requires a 64-bit processor and"
+          + " operating system<br></li><li><strong>OS:</strong> Windows 10<br></li><li>"
+          + "<strong>Processor:</strong> Intel Core i5-4460<br></li><li><strong>Memory:</strong>"
+          + " 8 GB RAM<br></li><li><strong>Storage:</strong> 20 GB available space</li></ul>";
+
+  @Test
+  void testLongHtmlRoundTripsCompressed() {
+    CompressedText text = CompressedText.of(DESCRIPTION);
+
+    assertTrue(text.isCompressed());
+    assertTrue(text.getStoredSize() * 5 < DESCRIPTION.length());
+    assertEquals(DESCRIPTION, text.decompress());
+  }
+
+  @Test
+  void testPresetDictionaryShrinksShortRequirements() {
+    CompressedText text = CompressedText.of(REQUIREMENTS);
+
+    assertTrue(text.isCompressed());
+    assertTrue(text.getStoredSize() * 3 < REQUIREMENTS.length());
+    assertEquals(REQUIREMENTS, text.decompress());
+  }
+
+  @Test
+  void testShortTextIsStoredPlain() {
+    CompressedText text = CompressedText.of("Über <b>kurz</b> — 短い");
+
+    assertFalse(text.isCompressed());
+    assertEquals("Über <b>kurz</b> — 短い", text.decompress());
+  }
+
+  @Test
+  void testStoreDetailsKeepHtmlCompressedUntilRead() {
+    JSONObject data =
+        new JSONObject()
+            .put("name", "Builder")
+            .put("detailed_description", DESCRIPTION)
+            .put("about_the_game", DESCRIPTION)
+            .put("pc_requirements", new JSONObject().put("minimum", REQUIREMENTS));
+    StoreDetails details = StoreDetailsParser.parse(1, data);
+
+    assertEquals(Optional.of(DESCRIPTION), details.getDetailedDescription());
+    assertEquals(REQUIREMENTS, details.getPcRequirements().get().getMinimum().get());
+    assertEquals(DESCRIPTION, details.toJson().getString("about_the_game"));
+    assertTrue(Footprint.of(details) * 4 < (DESCRIPTION.length() * 2 + REQUIREMENTS.length()));
+    assertTrue(CompressedText.getInfo().startsWith("Compressed text: "));
+  }
+}
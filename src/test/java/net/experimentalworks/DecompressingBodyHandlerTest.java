@@ -0,0 +1,176 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DecompressingBodyHandlerTest {
+
+  private static final String BODY =
+      "{\"440\":{\"success\":true,\"data\":{\"name\":\"Team Fortress 2\","
+          + "\"detailed_description\":\""
+          + "<p>Nine distinct classes provide a broad range of tactical abilities.</p>".repeat(200)
+          + "\"}}}";
+
+  private TransferStats stats;
+  private DecompressingBodyHandler handler;
+
+  @BeforeEach
+  void setUp() {
+    stats = new TransferStats();
+    handler = new DecompressingBodyHandler(stats);
+  }
+
+  @Test
+  void testDecodesGzipBodyDeliveredInSmallChunks() throws Exception {
+    byte[] compressed = gzip(BODY.getBytes(StandardCharsets.UTF_8));
+
+    String decoded = feed(compressed, "gzip", HttpClient.Version.HTTP_2, 7);
+
+    assertEquals(BODY, decoded);
+    assertEquals(1, stats.getCompressedResponses());
+    assertEquals(1, stats.getHttp2Responses());
+    assertEquals(compressed.length, stats.getWireBytes());
+    assertEquals(BODY.getBytes(StandardCharsets.UTF_8).length, stats.getDecodedBytes());
+    assertTrue(stats.getBytesSaved() > 0);
+  }
+
+  @Test
+  void testDecodesZlibWrappedDeflateBody() throws Exception {
+    byte[] compressed = deflate(BODY.getBytes(StandardCharsets.UTF_8), false);
+
+    assertEquals(BODY, feed(compressed, "deflate", HttpClient.Version.HTTP_1_1, 1024));
+    assertEquals(0, stats.getHttp2Responses());
+  }
+
+  @Test
+  void testDecodesRawDeflateBody() throws Exception {
+    byte[] compressed = deflate(BODY.getBytes(StandardCharsets.UTF_8), true);
+
+    assertEquals(BODY, feed(compressed, "deflate", HttpClient.Version.HTTP_2, 1));
+  }
+
+  @Test
+  void testPassesThroughIdentityBody() throws Exception {
+    String body = "{\"10\":{\"success\":false}}";
+
+    assertEquals(
+        body, feed(body.getBytes(StandardCharsets.UTF_8), null, HttpClient.Version.HTTP_2, 3));
+    assertEquals(0, stats.getCompressedResponses());
+    assertEquals(0, stats.getBytesSaved());
+  }
+
+  @Test
+  void testEmptyBodyWithContentEncodingIsEmpty() throws Exception {
+    assertEquals("", feed(304, new byte[0], "gzip", HttpClient.Version.HTTP_2, 64));
+    assertEquals("", feed(200, new byte[0], "gzip", HttpClient.Version.HTTP_2, 64));
+    assertEquals("", feed(204, new byte[0], "deflate", HttpClient.Version.HTTP_1_1, 64));
+    assertEquals(3, stats.getResponses());
+  }
+
+  @Test
+  void testFailsOnTruncatedGzipBody() throws Exception {
+    byte[] compressed = gzip(BODY.getBytes(StandardCharsets.UTF_8));
+    byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+
+    ExecutionException e =
+        assertThrows(
+            ExecutionException.class, () -> feed(truncated, "gzip", HttpClient.Version.HTTP_2, 64));
+    assertNotNull(e.getCause());
+    assertEquals(0, stats.getResponses());
+  }
+
+  @Test
+  void testFailsOnCorruptGzipTrailer() throws Exception {
+    byte[] compressed = gzip(BODY.getBytes(StandardCharsets.UTF_8));
+    compressed[compressed.length - 1] ^= 0x7f;
+
+    assertThrows(
+        ExecutionException.class, () -> feed(compressed, "gzip", HttpClient.Version.HTTP_2, 64));
+  }
+
+  private String feed(byte[] body, String encoding, HttpClient.Version version, int chunkSize)
+      throws Exception {
+    return feed(200, body, encoding, version, chunkSize);
+  }
+
+  private String feed(
+      int status, byte[] body, String encoding, HttpClient.Version version, int chunkSize)
+      throws Exception {
+    HttpHeaders headers =
+        HttpHeaders.of(
+            encoding == null ? Map.of() : Map.of("Content-Encoding", List.of(encoding)),
+            (name, value) -> true);
+
+    HttpResponse.BodySubscriber<String> subscriber =
+        handler.apply(
+            new HttpResponse.ResponseInfo() {
+              @Override
+              public int statusCode() {
+                return status;
+              }
+
+              @Override
+              public HttpHeaders headers() {
+                return headers;
+              }
+
+              @Override
+              public HttpClient.Version version() {
+                return version;
+              }
+            });
+
+    subscriber.onSubscribe(
+        new Flow.Subscription() {
+          @Override
+          public void request(long n) {}
+
+          @Override
+          public void cancel() {}
+        });
+    for (int i = 0; i < body.length; i += chunkSize) {
+      int end = Math.min(i + chunkSize, body.length);
+      subscriber.onNext(List.of(ByteBuffer.wrap(Arrays.copyOfRange(body, i, end))));
+    }
+    subscriber.onComplete();
+
+    return subscriber.getBody().toCompletableFuture().get();
+  }
+
+  private static byte[] gzip(byte[] data) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(data);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] deflate(byte[] data, boolean raw) {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+    deflater.setInput(data);
+    deflater.finish();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    while (!deflater.finished()) {
+      out.write(buffer, 0, deflater.deflate(buffer));
+    }
+    deflater.end();
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,120 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+class ExecutionModeTest {
+
+  private static final int CALLS = 2_000;
+  private static final long BLOCKING_MILLIS = 10;
+
+  @Test
+  void testFromArgument() {
+    assertEquals(ExecutionMode.BOUNDED_ELASTIC, ExecutionMode.fromArgument("bounded-elastic"));
+    assertEquals(ExecutionMode.VIRTUAL_THREADS, ExecutionMode.fromArgument("virtual-threads"));
+    assertThrows(IllegalArgumentException.class, () -> ExecutionMode.fromArgument("platform"));
+  }
+
+  @Test
+  void testVirtualThreadsRunBlockingWork() {
+    Scheduler scheduler = ExecutionMode.VIRTUAL_THREADS.newScheduler();
+    try {
+      Boolean virtual =
+          Mono.fromCallable(() -> Thread.currentThread().isVirtual())
+              .subscribeOn(scheduler)
+              .block();
+      assertTrue(virtual);
+    } finally {
+      scheduler.dispose();
+    }
+  }
+
+  @Test
+  void testVirtualThreadsRunMoreBlockingCallsAtOnceThanBoundedElasticThreads() throws Exception {
+    int calls = 20 * Runtime.getRuntime().availableProcessors();
+    CountDownLatch allStarted = new CountDownLatch(calls);
+    Scheduler scheduler = ExecutionMode.VIRTUAL_THREADS.newScheduler();
+    try {
+      List<Boolean> released =
+          Flux.range(0, calls)
+              .flatMap(
+                  i ->
+                      Mono.fromCallable(
+                              () -> {
+                                allStarted.countDown();
+                                return allStarted.await(10, TimeUnit.SECONDS);
+                              })
+                          .subscribeOn(scheduler),
+                  calls)
+              .collectList()
+              .block();
+      assertEquals(calls, released.size());
+      assertTrue(released.stream().allMatch(Boolean::booleanValue));
+    } finally {
+      scheduler.dispose();
+    }
+  }
+
+  /** Timing comparison that depends on the machine; run it with {@code mvn test -Pbenchmark}. */
+  @Test
+  @Tag("benchmark")
+  void testVirtualThreadsServeMoreConcurrentBlockingCalls() {
+    LoadResult elastic = runLoad(ExecutionMode.BOUNDED_ELASTIC);
+    LoadResult virtual = runLoad(ExecutionMode.VIRTUAL_THREADS);
+
+    assertTrue(virtual.wallMillis() < elastic.wallMillis(), virtual + " vs " + elastic);
+    assertTrue(virtual.p99Millis() < elastic.p99Millis(), virtual + " vs " + elastic);
+  }
+
+  private record LoadResult(long wallMillis, long p50Millis, long p99Millis) {
+    @Override
+    public String toString() {
+      return String.format(
+          "%.0f calls/s, p50 %d ms, p99 %d ms",
+          CALLS * 1_000.0 / Math.max(wallMillis, 1), p50Millis, p99Millis);
+    }
+  }
+
+  /** Subscribes to all calls at once, as concurrent tool requests would, and times each one. */
+  private static LoadResult runLoad(ExecutionMode mode) {
+    Scheduler scheduler = mode.newScheduler();
+    try {
+      long start = System.nanoTime();
+      long[] latencies =
+          Flux.range(0, CALLS)
+              .flatMap(
+                  i ->
+                      Mono.fromCallable(
+                              () -> {
+                                Thread.sleep(BLOCKING_MILLIS);
+                                return System.nanoTime() - start;
+                              })
+                          .subscribeOn(scheduler),
+                  CALLS)
+              .collectList()
+              .block()
+              .stream()
+              .mapToLong(TimeUnit.NANOSECONDS::toMillis)
+              .toArray();
+      long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      Arrays.sort(latencies);
+      return new LoadResult(
+          wallMillis, latencies[CALLS / 2], latencies[(int) (CALLS * 0.99) - 1]);
+    } finally {
+      if (mode == ExecutionMode.VIRTUAL_THREADS) {
+        scheduler.dispose();
+      }
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package net.experimentalworks;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InaccessibleObjectException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Test helper that estimates the retained heap size of an object graph.
+ *
+ * <p>Assumes a 64-bit JVM with compressed references: 12 byte object headers, 16 byte array
+ * headers, 4 byte references and 8 byte alignment. JDK internals that cannot be reflected on are
+ * estimated from their public shape. Each object is counted once, however often it is referenced.
+ */
+final class Footprint {
+  private static final int OBJECT_HEADER = 12;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 4;
+
+  private final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+  private final Deque<Object> pending = new ArrayDeque<>();
+
+  private Footprint() {}
+
+  /** Returns the estimated number of bytes retained by the given objects. */
+  static long of(Object... roots) {
+    Footprint footprint = new Footprint();
+    long total = 0;
+    for (Object root : roots) {
+      footprint.push(root);
+    }
+    while (!footprint.pending.isEmpty()) {
+      total += footprint.shallow(footprint.pending.pop());
+    }
+    return total;
+  }
+
+  private void push(Object o) {
+    if (o != null && !(o instanceof Class) && !(o instanceof Enum) && visited.add(o)) {
+      pending.push(o);
+    }
+  }
+
+  private long shallow(Object o) {
+    Class<?> type = o.getClass();
+    if (type.isArray()) {
+      int length = Array.getLength(o);
+      Class<?> component = type.getComponentType();
+      if (!component.isPrimitive()) {
+        for (int i = 0; i < length; i++) {
+          push(Array.get(o, i));
+        }
+      }
+      return align(ARRAY_HEADER + (long) length * sizeOf(component));
+    }
+    if (o instanceof String s) {
+      boolean latin1 = s.chars().allMatch(c -> c < 256);
+      return align(OBJECT_HEADER + 12) + align(ARRAY_HEADER + s.length() * (latin1 ? 1L : 2L));
+    }
+    if (o instanceof Optional<?> optional) {
+      optional.ifPresent(this::push);
+      return align(OBJECT_HEADER + REFERENCE);
+    }
+    if (o instanceof Collection<?> collection && type.getName().startsWith("java.")) {
+      collection.forEach(this::push);
+      return align(OBJECT_HEADER + 8) + align(ARRAY_HEADER + (long) collection.size() * REFERENCE);
+    }
+    if (o instanceof Map<?, ?> map && type.getName().startsWith("java.")) {
+      map.forEach(
+          (k, v) -> {
+            push(k);
+            push(v);
+          });
+      long entries = (long) map.size() * align(OBJECT_HEADER + 4 + 3 * REFERENCE);
+      long table = align(ARRAY_HEADER + map.size() * 2L * REFERENCE);
+      return align(OBJECT_HEADER + 20) + table + entries;
+    }
+
+    long size = OBJECT_HEADER;
+    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (Modifier.isStatic(field.getModifiers())) {
+          continue;
+        }
+        size += sizeOf(field.getType());
+        if (!field.getType().isPrimitive()) {
+          try {
+            field.setAccessible(true);
+            push(field.get(o));
+          } catch (InaccessibleObjectException | IllegalAccessException e) {
+            // Opaque JDK internals only contribute their own fields
+          }
+        }
+      }
+    }
+    return align(size);
+  }
+
+  private static int sizeOf(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    }
+    if (type == int.class || type == float.class) {
+      return 4;
+    }
+    if (type == short.class || type == char.class) {
+      return 2;
+    }
+    if (type == byte.class || type == boolean.class) {
+      return 1;
+    }
+    return REFERENCE;
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+}
@@ -3,6 +3,7 @@ package net.experimentalworks;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
@@ -38,4 +39,18 @@ class GameTest {
     assertEquals(0.0f, game.getPlaytimeForever());
     assertTrue(game.getPlaytime2weeks().isEmpty());
   }
+
+  @Test
+  void testSerializerWritesRecentPlaytimeAsNumber() {
+    List<Game> games =
+        List.of(new Game(10L, "Counter-Strike", 90.5f, 25.0f), new Game(20L, "Unplayed", 0f));
+
+    String json = Game.SERIALIZER.writeArray(new JsonWriter(), games).finish();
+
+    assertEquals(
+        "[{\"appId\":10,\"name\":\"Counter-Strike\",\"playtimeForever\":90.5,"
+            + "\"playtime2weeks\":25},"
+            + "{\"appId\":20,\"name\":\"Unplayed\",\"playtimeForever\":0}]",
+        json);
+  }
 }
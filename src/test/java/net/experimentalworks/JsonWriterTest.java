@@ -0,0 +1,132 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+class JsonWriterTest {
+
+  @Test
+  void testWritesNestedValues() {
+    String json =
+        new JsonWriter()
+            .beginObject()
+            .name("name")
+            .value("Portal")
+            .name("app_id")
+            .value(400)
+            .name("playtime")
+            .value(12.0f)
+            .name("free")
+            .value(false)
+            .name("website")
+            .value((String) null)
+            .name("tags")
+            .beginArray()
+            .value("Puzzle")
+            .beginObject()
+            .endObject()
+            .rawValue("[1,2]")
+            .endArray()
+            .endObject()
+            .finish();
+
+    assertEquals(
+        "{\"name\":\"Portal\",\"app_id\":400,\"playtime\":12,\"free\":false,\"website\":null,"
+            + "\"tags\":[\"Puzzle\",{},[1,2]]}",
+        json);
+  }
+
+  @Test
+  void testEscapesStringsInOnePass() {
+    String text = "Half-Life \"2\"\\ \n\r\t\b\f \u0001 <b>Über</b> 日本語 🎮";
+
+    String json = new JsonWriter().beginArray().value(text).endArray().finish();
+
+    assertEquals(text, new JSONArray(json).getString(0));
+    assertTrue(json.contains("\\u0001"));
+    assertTrue(json.contains("Über"));
+  }
+
+  @Test
+  void testRejectsUnterminatedOutput() {
+    JsonWriter writer = new JsonWriter().beginObject().name("open");
+
+    assertThrows(IllegalStateException.class, writer::finish);
+    assertThrows(IllegalStateException.class, () -> new JsonWriter().name("top"));
+  }
+
+  @Test
+  void testReusableWriterStartsEmpty() {
+    JsonWriter.reusable().beginObject().name("abandoned");
+
+    JsonWriter writer = JsonWriter.reusable();
+
+    assertSame(writer, JsonWriter.reusable());
+    assertEquals("[]", writer.beginArray().endArray().finish());
+  }
+
+  @Test
+  void testSearchResponseMatchesJsonObjectTree() {
+    List<AppSearchResult> results = searchResults();
+
+    String json = SteamGamesServer.searchResponse("Half-Life", results);
+
+    assertTrue(jsonObjectTree("Half-Life", results).similar(new JSONObject(json)), json);
+  }
+
+  /** Allocation comparison that depends on the JVM; run it with {@code mvn test -Pbenchmark}. */
+  @Test
+  @Tag("benchmark")
+  void testSearchResponseAllocatesLessThanJsonObjectTree() {
+    List<AppSearchResult> results = searchResults();
+
+    long domBytes = allocatedBytes(() -> jsonObjectTree("Half-Life", results).toString());
+    long writerBytes = allocatedBytes(() -> SteamGamesServer.searchResponse("Half-Life", results));
+
+    assertTrue(writerBytes * 3 < domBytes, writerBytes + " vs " + domBytes);
+  }
+
+  /** As many matches as searchApps returns at most. */
+  private static List<AppSearchResult> searchResults() {
+    List<AppSearchResult> results = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      String name = "Half-Life \"" + i + "\" — Episode";
+      results.add(new AppSearchResult(220 + i, name, 1.0 / (i + 1)));
+    }
+    return results;
+  }
+
+  /** The searchApps response as it was built before {@link JsonWriter}. */
+  private static JSONObject jsonObjectTree(String query, List<AppSearchResult> results) {
+    JSONArray array = new JSONArray();
+    for (AppSearchResult result : results) {
+      array.put(result.toJson());
+    }
+    return new JSONObject()
+        .put("query", query)
+        .put("total_results", results.size())
+        .put("results", array);
+  }
+
+  private static long allocatedBytes(Supplier<String> response) {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    for (int i = 0; i < 20; i++) {
+      response.get();
+    }
+    long before = threads.getCurrentThreadAllocatedBytes();
+    for (int i = 0; i < 10; i++) {
+      response.get();
+    }
+    return (threads.getCurrentThreadAllocatedBytes() - before) / 10;
+  }
+}
@@ -0,0 +1,50 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class KnownAppIdsTest {
+
+  @Test
+  void testIdsInSnapshotRange() {
+    KnownAppIds known =
+        KnownAppIds.of(
+            List.of(new AppInfo(10, "Counter-Strike"), new AppInfo(440, "Team Fortress 2")));
+
+    assertTrue(known.mightExist(10));
+    assertTrue(known.mightExist(440));
+    assertFalse(known.mightExist(11));
+    assertFalse(known.mightExist(0));
+    assertFalse(known.mightExist(-1));
+    assertEquals(2, known.size());
+  }
+
+  @Test
+  void testIdsNewerThanSnapshotMightExist() {
+    KnownAppIds known = KnownAppIds.of(List.of(new AppInfo(440, "Team Fortress 2")));
+
+    assertTrue(known.mightExist(441));
+    assertTrue(known.mightExist(Integer.MAX_VALUE));
+  }
+
+  @Test
+  void testDuplicatesAreCountedOnce() {
+    KnownAppIds known =
+        KnownAppIds.of(List.of(new AppInfo(63, "Word boundary"), new AppInfo(63, "Again")));
+
+    assertEquals(1, known.size());
+    assertTrue(known.mightExist(63));
+    assertFalse(known.mightExist(62));
+    assertEquals("Known app IDs: 1 up to 63, 0 KiB", known.getInfo());
+  }
+
+  @Test
+  void testNoneAcceptsEveryId() {
+    assertTrue(KnownAppIds.NONE.mightExist(0));
+    assertTrue(KnownAppIds.NONE.mightExist(123456));
+    assertEquals("Known app IDs: not loaded", KnownAppIds.NONE.getInfo());
+  }
+}
@@ -0,0 +1,46 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyTrackerTest {
+
+  @Test
+  void testNoPercentileBeforeMinimumSamples() {
+    LatencyTracker tracker = new LatencyTracker();
+    for (int i = 1; i < LatencyTracker.MIN_SAMPLES; i++) {
+      tracker.record(i);
+    }
+
+    assertEquals(Optional.empty(), tracker.percentile(0.95));
+  }
+
+  @Test
+  void testPercentileOfRecentSamples() {
+    LatencyTracker tracker = new LatencyTracker();
+    for (int i = 100; i >= 1; i--) {
+      tracker.record(Duration.ofMillis(i).toNanos());
+    }
+
+    assertEquals(Duration.ofMillis(95), tracker.percentile(0.95).get());
+    assertEquals(Duration.ofMillis(50), tracker.percentile(0.5).get());
+  }
+
+  @Test
+  void testOldSamplesAreOverwritten() {
+    LatencyTracker tracker = new LatencyTracker();
+    for (int i = 0; i < LatencyTracker.CAPACITY; i++) {
+      tracker.record(Duration.ofSeconds(1).toNanos());
+    }
+    for (int i = 0; i < LatencyTracker.CAPACITY; i++) {
+      tracker.record(Duration.ofMillis(10).toNanos());
+    }
+
+    assertEquals(LatencyTracker.CAPACITY, tracker.size());
+    assertEquals(Duration.ofMillis(10), tracker.percentile(0.99).get());
+  }
+}
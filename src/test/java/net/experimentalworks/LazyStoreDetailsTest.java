@@ -0,0 +1,158 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+class LazyStoreDetailsTest {
+
+  private static final String DATA =
+      """
+          {
+            "type": "game",
+            "name": "Half-Life 2 \\"Ep\\u00e9\\"",
+            "steam_appid": 220,
+            "required_age": "16",
+            "is_free": false,
+            "controller_support": "full",
+            "dlc": [323140, 323141],
+            "detailed_description": "<h1>Gordon</h1><p>Rise \\/ shine, \\"Mr. Freeman\\"</p>",
+            "about_the_game": "",
+            "short_description": "The Combine's hold on City 17 is {tight} [really].",
+            "supported_languages": "English<strong>*</strong>",
+            "header_image": "https://cdn.akamai.steamstatic.com/steam/apps/220/header.jpg",
+            "website": null,
+            "pc_requirements": {"minimum": "<ul><li>1.7 GHz</li></ul>", "recommended": ""},
+            "mac_requirements": [],
+            "linux_requirements": {"minimum": "<ul><li>OS: Ubuntu</li></ul>"},
+            "developers": ["Valve"],
+            "publishers": ["Valve"],
+            "price_overview": {
+              "currency": "EUR",
+              "initial": 979,
+              "final": 195,
+              "discount_percent": 80,
+              "final_formatted": "1,95€"
+            },
+            "platforms": {"windows": true, "mac": true, "linux": true},
+            "metacritic": {"score": 96, "url": "https://www.metacritic.com/game/pc/half-life-2"},
+            "categories": [{"id": 2, "description": "Single-player"}],
+            "genres": [{"id": "1", "description": "Action"}],
+            "screenshots": [
+              {"id": 0, "path_thumbnail": "https://cdn/ss_0.jpg", "path_full": "https://cdn/0.jpg"}
+            ],
+            "movies": [
+              {
+                "id": 904,
+                "name": "Trailer",
+                "thumbnail": "https://cdn/movie.jpg",
+                "webm": {"480": "https://cdn/movie480.webm", "max": "https://cdn/movie.webm"},
+                "mp4": {"480": "https://cdn/movie480.mp4", "max": "https://cdn/movie.mp4"},
+                "highlight": true
+              }
+            ],
+            "recommendations": {"total": 140000},
+            "achievements": {"total": 33, "highlighted": [{"name": "Defiant", "path": "x.jpg"}]},
+            "release_date": {"coming_soon": false, "date": "16 Nov, 2004"},
+            "content_descriptors": {"ids": [2, 5], "notes": null}
+          }
+          """;
+
+  private static LazyStoreDetails lazy() {
+    return new LazyStoreDetails(220, DATA.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static StoreDetails eager() {
+    return StoreDetailsParser.parse(220, new JSONObject(DATA));
+  }
+
+  @Test
+  void testGettersMatchEagerParse() {
+    StoreDetails lazy = lazy();
+    StoreDetails eager = eager();
+
+    assertEquals(eager.getType(), lazy.getType());
+    assertEquals(eager.getName(), lazy.getName());
+    assertEquals(16, lazy.getRequiredAge());
+    assertEquals(eager.isFree(), lazy.isFree());
+    assertEquals(Optional.of(List.of(323140, 323141)), lazy.getDlc());
+    assertEquals(eager.getDetailedDescription(), lazy.getDetailedDescription());
+    assertTrue(lazy.getAboutTheGame().isEmpty());
+    assertTrue(lazy.getWebsite().isEmpty());
+    assertEquals(195, lazy.getPriceOverview().get().getFinalPrice());
+    assertEquals("1,95€", lazy.getPriceOverview().get().getFinalFormatted().get());
+    assertEquals("Trailer", lazy.getMovies().get().get(0).getName());
+    assertTrue(lazy.getMacRequirements().isEmpty());
+    assertEquals(33, lazy.getAchievements().get().getTotal());
+    assertEquals("16 Nov, 2004", lazy.getReleaseDate().getDate());
+    assertTrue(lazy.isSuccess());
+  }
+
+  @Test
+  void testSectionsAreMaterializedOnFirstAccessOnly() {
+    LazyStoreDetails details = lazy();
+
+    assertFalse(details.isMaterialized(StoreDetailsSection.MOVIES));
+    details.getName();
+    assertFalse(details.isMaterialized(StoreDetailsSection.MOVIES));
+
+    Optional<List<StoreDetails.Movie>> movies = details.getMovies();
+    assertTrue(details.isMaterialized(StoreDetailsSection.MOVIES));
+    assertSame(movies, details.getMovies());
+    assertFalse(details.isMaterialized(StoreDetailsSection.PC_REQUIREMENTS));
+  }
+
+  @Test
+  void testToJsonMatchesEagerSerialization() {
+    JSONObject expected = eager().toJson();
+
+    assertTrue(expected.similar(new JSONObject(lazy().toJson().toString())));
+
+    LazyStoreDetails touched = lazy();
+    touched.getScreenshots();
+    touched.getDetailedDescription();
+    assertTrue(expected.similar(new JSONObject(touched.toJson().toString())));
+  }
+
+  @Test
+  void testToJsonSplicesUntouchedSectionsWithoutParsing() {
+    LazyStoreDetails details = lazy();
+
+    String json = details.toJson().toString();
+
+    assertTrue(json.contains("\"detailed_description\":\"<h1>Gordon</h1><p>Rise \\/ shine"));
+    assertFalse(details.isMaterialized(StoreDetailsSection.DETAILED_DESCRIPTION));
+    assertFalse(details.isMaterialized(StoreDetailsSection.SCREENSHOTS));
+    assertFalse(json.contains("content_descriptors"));
+  }
+
+  @Test
+  void testMalformedSectionIsReportedAsAbsent() {
+    String data = "{\"name\": \"Broken\", \"metacritic\": \"not an object\", \"dlc\": [1, 2]}";
+    LazyStoreDetails details = new LazyStoreDetails(1, data.getBytes(StandardCharsets.UTF_8));
+
+    assertEquals("Broken", details.getName());
+    assertTrue(details.getMetacritic().isEmpty());
+    assertEquals(Optional.of(List.of(1, 2)), details.getDlc());
+  }
+
+  @Test
+  void testFromResponseHandlesEnvelope() {
+    String ok = "{\"220\": {\"success\": true, \"data\": " + DATA + "}}";
+    String failed = "{\"220\": {\"success\": false}}";
+
+    assertEquals("game", LazyStoreDetails.fromResponse(220, ok).get().getType());
+    assertTrue(LazyStoreDetails.fromResponse(220, failed).isEmpty());
+    assertThrows(JSONException.class, () -> LazyStoreDetails.fromResponse(440, ok));
+    assertThrows(
+        JSONException.class,
+        () -> LazyStoreDetails.fromResponse(220, "{\"220\": {\"success\": true, \"data\": []}}"));
+    assertThrows(JSONException.class, () -> LazyStoreDetails.fromResponse(220, "{\"220\": {"));
+  }
+}
@@ -0,0 +1,171 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.lukaspradel.steamapi.core.exception.SteamApiException;
+
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+class LibraryCacheTest {
+
+  private MutableClock clock;
+  private FakeSteamGames steamGames;
+  private LibraryCache cache;
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock();
+    steamGames = new FakeSteamGames();
+    cache = new LibraryCache(steamGames, Duration.ofMinutes(5), clock);
+  }
+
+  @Test
+  void testServesCachedLibraryUntilTtlElapses() {
+    steamGames.owned = library(300);
+
+    LibraryCache.Snapshot first = cache.get("alice", LibraryCache.Kind.OWNED).block();
+    clock.advance(Duration.ofMinutes(4));
+    LibraryCache.Snapshot second = cache.get("alice", LibraryCache.Kind.OWNED).block();
+
+    assertSame(first, second);
+    assertEquals(1, steamGames.calls);
+    assertEquals(LibraryCache.versionOf(first.contentHash()), first.version());
+  }
+
+  @Test
+  void testUnchangedRefreshKeepsVersionAndLibrary() {
+    steamGames.owned = library(300);
+    LibraryCache.Snapshot first = cache.get("alice", LibraryCache.Kind.OWNED).block();
+
+    steamGames.owned = library(300);
+    clock.advance(Duration.ofMinutes(5));
+    LibraryCache.Snapshot refreshed = cache.get("alice", LibraryCache.Kind.OWNED).block();
+
+    assertEquals(2, steamGames.calls);
+    assertSame(first.library(), refreshed.library());
+    assertFalse(refreshed.changedSince(first.version()));
+    assertTrue(refreshed.fetchedAt().isAfter(first.fetchedAt()));
+  }
+
+  @Test
+  void testChangedPlaytimeChangesVersion() {
+    steamGames.owned = library(300);
+    LibraryCache.Snapshot first = cache.get("alice", LibraryCache.Kind.OWNED).block();
+
+    steamGames.owned = library(360);
+    clock.advance(Duration.ofMinutes(5));
+    LibraryCache.Snapshot refreshed = cache.get("alice", LibraryCache.Kind.OWNED).block();
+
+    assertNotEquals(first.version(), refreshed.version());
+    assertTrue(refreshed.changedSince(first.version()));
+    assertEquals(360, refreshed.library().getPlaytimeForever(0));
+    assertTrue(cache.getCacheInfo().endsWith("hits: 0, refreshes: 2, changed: 1"));
+  }
+
+  @Test
+  void testVersionDoesNotDependOnTheProcess() {
+    steamGames.owned = library(300);
+    LibraryCache.Snapshot beforeRestart = cache.get("alice", LibraryCache.Kind.OWNED).block();
+    steamGames.owned = library(360);
+    LibraryCache.Snapshot changed =
+        new LibraryCache(steamGames, Duration.ofMinutes(5), clock)
+            .get("alice", LibraryCache.Kind.OWNED)
+            .block();
+    steamGames.owned = library(300);
+    LibraryCache.Snapshot unchanged =
+        new LibraryCache(steamGames, Duration.ofMinutes(5), clock)
+            .get("alice", LibraryCache.Kind.OWNED)
+            .block();
+
+    assertTrue(changed.changedSince(beforeRestart.version()));
+    assertFalse(unchanged.changedSince(beforeRestart.version()));
+    assertTrue(beforeRestart.version() > 0 && beforeRestart.version() < 1L << 53);
+  }
+
+  @Test
+  void testUsersAndKindsAreCachedSeparately() {
+    steamGames.owned = library(300);
+    steamGames.recent = library(30);
+
+    cache.get("alice", LibraryCache.Kind.OWNED).block();
+    cache.get("bob", LibraryCache.Kind.OWNED).block();
+    LibraryCache.Snapshot recent = cache.get("alice", LibraryCache.Kind.RECENT).block();
+
+    assertEquals(3, steamGames.calls);
+    assertEquals(30, recent.library().getPlaytimeForever(0));
+  }
+
+  @Test
+  void testFailedFetchIsNotCached() {
+    steamGames.failure = new SteamApiException("rate limited");
+
+    Exception error =
+        assertThrows(
+            RuntimeException.class, () -> cache.get("alice", LibraryCache.Kind.OWNED).block());
+    assertSame(steamGames.failure, Exceptions.unwrap(error));
+
+    steamGames.failure = null;
+    steamGames.owned = library(300);
+    assertNotNull(cache.get("alice", LibraryCache.Kind.OWNED).block());
+    assertEquals(2, steamGames.calls);
+  }
+
+  @Test
+  void testServesExpiredLibraryWhileCircuitIsOpen() {
+    steamGames.owned = library(300);
+    LibraryCache.Snapshot first = cache.get("alice", LibraryCache.Kind.OWNED).block();
+    for (int i = 0; i < CircuitBreaker.DEFAULT_MIN_CALLS; i++) {
+      steamGames.getCircuitBreaker().recordFailure();
+    }
+
+    clock.advance(Duration.ofMinutes(5));
+    LibraryCache.Snapshot stale = cache.get("alice", LibraryCache.Kind.OWNED).block();
+
+    assertSame(first, stale);
+    assertEquals(1, steamGames.calls);
+    assertTrue(cache.getCacheInfo().contains("served stale: 1"), cache.getCacheInfo());
+  }
+
+  private static Library library(int playtime) {
+    return new Library.Builder(2)
+        .add(400, "Portal", playtime, Library.NO_PLAYTIME)
+        .add(620, "Portal 2", 45, Library.NO_PLAYTIME)
+        .build();
+  }
+
+  private static class FakeSteamGames extends SteamGames {
+    Library owned = Library.empty();
+    Library recent = Library.empty();
+    SteamApiException failure;
+    int calls;
+
+    FakeSteamGames() {
+      super("test-api-key");
+    }
+
+    @Override
+    public Mono<Library> fetchLibrary(String steamId) {
+      return fetch(() -> owned);
+    }
+
+    @Override
+    public Mono<Library> fetchRecentLibrary(String steamId) {
+      return fetch(() -> recent);
+    }
+
+    private Mono<Library> fetch(Supplier<Library> library) {
+      return Mono.defer(
+          () -> {
+            calls++;
+            return failure != null ? Mono.error(failure) : Mono.just(library.get());
+          });
+    }
+  }
+}
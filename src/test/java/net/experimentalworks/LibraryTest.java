@@ -0,0 +1,160 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class LibraryTest {
+
+  @Test
+  void testColumnsHoldAddedGames() {
+    Library library =
+        new Library.Builder(1)
+            .add(10, "Counter-Strike", 90, 25)
+            .add(220, "Half-Life 2", 0, Library.NO_PLAYTIME)
+            .add(400, null, 30, Library.NO_PLAYTIME)
+            .build();
+
+    assertEquals(3, library.size());
+    assertEquals(220, library.getAppId(1));
+    assertEquals("Half-Life 2", library.getName(1));
+    assertEquals("", library.getName(2));
+    assertEquals(90, library.getPlaytimeForever(0));
+    assertTrue(library.hasPlaytime2weeks(0));
+    assertFalse(library.hasPlaytime2weeks(1));
+    assertEquals(120, library.getTotalPlaytime());
+    assertThrows(IndexOutOfBoundsException.class, () -> library.getAppId(3));
+  }
+
+  @Test
+  void testMaterializesGames() {
+    Library library =
+        new Library.Builder(2)
+            .add(10, "Counter-Strike", 90, 25)
+            .add(220, "Half-Life 2", 0, Library.NO_PLAYTIME)
+            .build();
+
+    List<Game> games = library.toGames();
+
+    assertEquals(10L, games.get(0).getAppId());
+    assertEquals(Optional.of(25.0f), games.get(0).getPlaytime2weeks());
+    assertEquals("Half-Life 2", games.get(1).getName());
+    assertTrue(games.get(1).getPlaytime2weeks().isEmpty());
+  }
+
+  @Test
+  void testWritesSameJsonAsGameSerializer() {
+    Library library =
+        new Library.Builder(2)
+            .add(10, "Counter-Strike \"GO\"", 90, 25)
+            .add(220, "Half-Life 2", 0, Library.NO_PLAYTIME)
+            .build();
+
+    String columnar = library.writeArray(new JsonWriter()).finish();
+    String objects = Game.SERIALIZER.writeArray(new JsonWriter(), library.toGames()).finish();
+
+    assertEquals(objects, columnar);
+  }
+
+  @Test
+  void testLargeLibraryIsSmallerThanGameObjects() {
+    Library.Builder builder = new Library.Builder(16);
+    for (int i = 0; i < 5_000; i++) {
+      builder.add(i * 10, "Game " + i, i % 600, Library.NO_PLAYTIME);
+    }
+    Library library = builder.build();
+    List<Game> games = library.toGames();
+
+    long columnar = Footprint.of(library);
+    long objects = Footprint.of(games);
+
+    assertEquals(5_000, library.size());
+    assertEquals("Game 4999", library.getName(4_999));
+    assertTrue(columnar * 2 < objects, columnar + " vs " + objects);
+  }
+
+  @Test
+  void testSelectsSortedFilteredPage() {
+    Library library = sample();
+
+    Library.Page page = library.select(Library.SortKey.PLAYTIME, 10, null, 1, 2);
+
+    assertEquals(4, page.total());
+    assertArrayEquals(new int[] {0, 1}, page.indices());
+  }
+
+  @Test
+  void testSortsByNameIgnoringCaseAndFiltersByName() {
+    Library library = sample();
+
+    Library.Page byName = library.select(Library.SortKey.NAME, 0, null, 0, 10);
+    Library.Page portals = library.select(Library.SortKey.APP_ID, 0, "PORTAL", 0, 10);
+
+    assertArrayEquals(new int[] {1, 4, 2, 0, 3}, byName.indices());
+    assertArrayEquals(new int[] {0, 3}, portals.indices());
+    assertEquals(2, portals.total());
+  }
+
+  @Test
+  void testTiesAreOrderedByAppId() {
+    Library.Builder builder = new Library.Builder(100);
+    for (int i = 0; i < 100; i++) {
+      int appId = (i * 37) % 100;
+      builder.add(appId, (appId % 2 == 0 ? "Game " : "GAME ") + appId % 5, appId % 4, 0);
+    }
+    Library library = builder.build();
+    Comparator<Integer> byAppId = Comparator.comparingInt(library::getAppId);
+
+    assertArrayEquals(expectedOrder(library, byAppId), sorted(library, Library.SortKey.APP_ID));
+    assertArrayEquals(
+        expectedOrder(
+            library,
+            Comparator.comparingInt((Integer i) -> -library.getPlaytimeForever(i))
+                .thenComparing(byAppId)),
+        sorted(library, Library.SortKey.PLAYTIME));
+    assertArrayEquals(
+        expectedOrder(
+            library,
+            Comparator.comparing(library::getName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(byAppId)),
+        sorted(library, Library.SortKey.NAME));
+  }
+
+  @Test
+  void testPageBeyondEndIsEmpty() {
+    Library.Page page = sample().select(null, 0, null, 10, 5);
+
+    assertEquals(0, page.indices().length);
+    assertEquals(5, page.total());
+    assertEquals("[]", sample().writeArray(new JsonWriter(), page).finish());
+  }
+
+  @Test
+  void testRejectsUnknownSortKey() {
+    assertEquals(Library.SortKey.APP_ID, Library.SortKey.fromArgument("appId"));
+    assertThrows(IllegalArgumentException.class, () -> Library.SortKey.fromArgument("rating"));
+  }
+
+  private static int[] sorted(Library library, Library.SortKey key) {
+    return library.select(key, 0, null, 0, library.size()).indices();
+  }
+
+  private static int[] expectedOrder(Library library, Comparator<Integer> comparator) {
+    return IntStream.range(0, library.size()).boxed().sorted(comparator).mapToInt(i -> i).toArray();
+  }
+
+  private static Library sample() {
+    return new Library.Builder(5)
+        .add(400, "Portal", 300, Library.NO_PLAYTIME)
+        .add(10, "counter-Strike", 50, Library.NO_PLAYTIME)
+        .add(220, "Half-Life 2", 5, Library.NO_PLAYTIME)
+        .add(620, "Portal 2", 900, Library.NO_PLAYTIME)
+        .add(70, "Half-Life", 50, Library.NO_PLAYTIME)
+        .build();
+  }
+}
@@ -0,0 +1,61 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class ParsePoolTest {
+
+  @Test
+  void testRunsTasksOnParserThreads() throws Exception {
+    ParsePool pool = new ParsePool(2, 8);
+
+    String thread =
+        CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), pool)
+            .get(5, TimeUnit.SECONDS);
+
+    assertTrue(thread.startsWith("store-parse-"), thread);
+    assertEquals(1, pool.getTasks());
+    assertEquals(0, pool.getCallerRuns());
+  }
+
+  @Test
+  void testCallerRunsTaskWhenQueueIsFull() throws Exception {
+    ParsePool pool = new ParsePool(1, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+
+    pool.execute(
+        () -> {
+          started.countDown();
+          awaitQuietly(release);
+        });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    CompletableFuture<String> queued =
+        CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), pool);
+    String overflow =
+        CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), pool).get();
+
+    assertEquals(Thread.currentThread().getName(), overflow);
+    assertEquals(1, pool.getQueueDepth());
+    assertEquals(1, pool.getPeakQueueDepth());
+    assertEquals(1, pool.getCallerRuns());
+
+    release.countDown();
+    assertTrue(queued.get(5, TimeUnit.SECONDS).startsWith("store-parse-"));
+    assertTrue(pool.getInfo().startsWith("Parse pool: 1 of 1 threads"), pool.getInfo());
+    assertTrue(pool.getInfo().endsWith("ran on caller 1"), pool.getInfo());
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RefreshAheadTest {
+
+  private static final StoreDetailsCache.Key KEY =
+      StoreDetailsCache.Key.of(10, Optional.empty(), Optional.empty());
+
+  private MutableClock clock;
+  private RefreshAhead refreshAhead;
+  private StoreDetailsCache.Entry entry;
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock();
+    refreshAhead = new RefreshAhead(clock);
+    entry = entry(clock.instant().plus(Duration.ofMinutes(10)));
+  }
+
+  @Test
+  void testHotEntryIsRefreshedNearExpiry() {
+    for (int i = 0; i < RefreshAhead.HOT_ACCESSES; i++) {
+      assertFalse(refreshAhead.onHit(KEY, entry, () -> true));
+    }
+
+    clock.advance(Duration.ofMinutes(8));
+
+    assertTrue(refreshAhead.onHit(KEY, entry, () -> true));
+    assertFalse(refreshAhead.onHit(KEY, entry, () -> true), "one refresh per entry in flight");
+
+    refreshAhead.finished(KEY, true);
+    assertTrue(refreshAhead.getInfo().contains("started 1, refreshed 1"), refreshAhead.getInfo());
+  }
+
+  @Test
+  void testColdEntryIsNotRefreshed() {
+    refreshAhead.onHit(KEY, entry, () -> true);
+    clock.advance(Duration.ofMinutes(9));
+
+    assertFalse(refreshAhead.onHit(KEY, entry, () -> true));
+  }
+
+  @Test
+  void testRefreshNeedsBudget() {
+    for (int i = 0; i < RefreshAhead.HOT_ACCESSES; i++) {
+      refreshAhead.onHit(KEY, entry, () -> fail("budget is only asked once the entry is due"));
+    }
+    clock.advance(Duration.ofMinutes(9));
+
+    assertFalse(refreshAhead.onHit(KEY, entry, () -> false));
+    assertTrue(refreshAhead.getInfo().endsWith("skipped by budget 1"), refreshAhead.getInfo());
+  }
+
+  @Test
+  void testRenewedEntryStartsCountingAgain() {
+    for (int i = 0; i < RefreshAhead.HOT_ACCESSES; i++) {
+      refreshAhead.onHit(KEY, entry, () -> true);
+    }
+    clock.advance(Duration.ofMinutes(9));
+
+    StoreDetailsCache.Entry renewed = entry(clock.instant().plus(Duration.ofMinutes(10)));
+
+    assertFalse(refreshAhead.onHit(KEY, renewed, () -> true));
+  }
+
+  private static StoreDetailsCache.Entry entry(Instant expiresAt) {
+    return new StoreDetailsCache.Entry(
+        new FailedStoreDetails(10, FetchFailure.UNAVAILABLE, "placeholder"),
+        Optional.empty(),
+        Optional.empty(),
+        1L,
+        expiresAt,
+        0,
+        0);
+  }
+}
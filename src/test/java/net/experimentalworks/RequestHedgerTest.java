@@ -0,0 +1,143 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RequestHedgerTest {
+
+  private MutableClock clock;
+  private StoreRateBudget budget;
+  private List<CompletableFuture<String>> attempts;
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock();
+    budget = new StoreRateBudget(200, Duration.ofMinutes(5), clock);
+    attempts = new ArrayList<>();
+  }
+
+  @Test
+  void testSlowRequestIsWonByHedge() throws Exception {
+    RequestHedger hedger = warmedUp(new RequestHedger(budget, true));
+
+    CompletableFuture<String> result = hedger.send(attempts(pending(), done("hedge")));
+
+    assertEquals("hedge", result.get(5, TimeUnit.SECONDS));
+    assertTrue(attempts.get(0).isCancelled());
+    assertEquals(1, hedger.getHedges());
+    assertEquals(1, hedger.getHedgeWins());
+    assertEquals(1, budget.getHedgesUsed());
+    assertTrue(hedger.getInfo().contains("hedged 1 (4.8%), hedge wins 1"), hedger.getInfo());
+  }
+
+  @Test
+  void testFastRequestIsNotHedged() throws Exception {
+    RequestHedger hedger = warmedUp(new RequestHedger(budget, true));
+
+    assertEquals("primary", hedger.send(attempts(done("primary"))).get());
+
+    Thread.sleep(50);
+    assertEquals(1, attempts.size());
+    assertEquals(0, hedger.getHedges());
+  }
+
+  @Test
+  void testHedgeIsDeniedWhenBudgetIsExhausted() throws Exception {
+    for (int i = 0; i < 20; i++) {
+      assertTrue(budget.tryAcquireHedge());
+    }
+    RequestHedger hedger = warmedUp(new RequestHedger(budget, true));
+    CompletableFuture<String> primary = new CompletableFuture<>();
+
+    CompletableFuture<String> result = hedger.send(attempts(primary, done("hedge")));
+    Thread.sleep(100);
+    primary.complete("primary");
+
+    assertEquals("primary", result.get(5, TimeUnit.SECONDS));
+    assertEquals(1, attempts.size());
+    assertEquals(1, hedger.getDenied());
+  }
+
+  @Test
+  void testFailedPrimaryWaitsForHedge() throws Exception {
+    RequestHedger hedger = warmedUp(new RequestHedger(budget, true));
+    CompletableFuture<String> primary = new CompletableFuture<>();
+    CompletableFuture<String> hedge = new CompletableFuture<>();
+
+    CompletableFuture<String> result = hedger.send(attempts(primary, hedge));
+    Thread.sleep(100);
+    primary.completeExceptionally(new IllegalStateException("reset"));
+    assertFalse(result.isDone());
+    hedge.complete("hedge");
+
+    assertEquals("hedge", result.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testAllAttemptsFailing() {
+    RequestHedger hedger = warmedUp(new RequestHedger(budget, true));
+    CompletableFuture<String> primary = new CompletableFuture<>();
+    CompletableFuture<String> hedge = new CompletableFuture<>();
+
+    CompletableFuture<String> result = hedger.send(attempts(primary, hedge));
+    while (attempts.size() < 2) {
+      Thread.onSpinWait();
+    }
+    primary.completeExceptionally(new IllegalStateException("reset"));
+    hedge.completeExceptionally(new IllegalStateException("timeout"));
+
+    ExecutionException e =
+        assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+    assertEquals("timeout", e.getCause().getMessage());
+  }
+
+  @Test
+  void testDisabledHedgerOnlyCounts() throws Exception {
+    RequestHedger hedger = warmedUp(new RequestHedger(budget, false));
+    CompletableFuture<String> primary = new CompletableFuture<>();
+
+    CompletableFuture<String> result = hedger.send(attempts(primary, done("hedge")));
+    Thread.sleep(50);
+    primary.complete("primary");
+
+    assertEquals("primary", result.get());
+    assertEquals(1, attempts.size());
+    assertTrue(hedger.getInfo().startsWith("Hedging: off"), hedger.getInfo());
+    assertEquals(21, budget.getUsed());
+  }
+
+  /** Records 20 fast requests so that the hedge threshold is known. */
+  private RequestHedger warmedUp(RequestHedger hedger) {
+    for (int i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+      hedger.send(() -> CompletableFuture.completedFuture("warm-up")).join();
+    }
+    return hedger;
+  }
+
+  @SafeVarargs
+  private Supplier<CompletableFuture<String>> attempts(CompletableFuture<String>... futures) {
+    return () -> {
+      CompletableFuture<String> future = futures[attempts.size()];
+      attempts.add(future);
+      return future;
+    };
+  }
+
+  private static CompletableFuture<String> pending() {
+    return new CompletableFuture<>();
+  }
+
+  private static CompletableFuture<String> done(String value) {
+    return CompletableFuture.completedFuture(value);
+  }
+}
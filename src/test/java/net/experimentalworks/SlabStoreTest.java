@@ -0,0 +1,93 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+class SlabStoreTest {
+
+  @Test
+  void testRoundTripsValues() {
+    SlabStore<String> store = new SlabStore<>(4 * SlabStore.SLAB_SIZE);
+    byte[] small = {1, 2, 3};
+    byte[] large = new byte[70_000];
+    large[69_999] = 42;
+
+    assertTrue(store.put("small", small));
+    assertTrue(store.put("large", large));
+
+    assertArrayEquals(small, store.get("small").get());
+    assertArrayEquals(large, store.get("large").get());
+    assertEquals(2, store.size());
+    assertEquals(70_003, store.getUsedBytes());
+    assertEquals(2L * SlabStore.SLAB_SIZE, store.getReservedBytes());
+  }
+
+  @Test
+  void testRemoveFreesChunkForReuse() {
+    SlabStore<Integer> store = new SlabStore<>(SlabStore.SLAB_SIZE);
+    byte[] value = new byte[SlabStore.SLAB_SIZE];
+
+    assertTrue(store.put(1, value));
+    assertTrue(store.remove(1).isPresent());
+    assertTrue(store.put(2, value));
+
+    assertEquals(Optional.empty(), store.get(1));
+    assertEquals(0, store.getEvictions());
+    assertEquals(SlabStore.SLAB_SIZE, store.getReservedBytes());
+  }
+
+  @Test
+  void testEvictsLeastRecentlyUsedEntryOfSameSizeClass() {
+    SlabStore<Integer> store = new SlabStore<>(SlabStore.SLAB_SIZE);
+    byte[] half = new byte[SlabStore.SLAB_SIZE / 2];
+    store.put(1, half);
+    store.put(2, half);
+
+    // Touch the first entry so the second one becomes the eviction candidate
+    store.get(1);
+    assertTrue(store.put(3, half));
+
+    assertTrue(store.get(1).isPresent());
+    assertTrue(store.get(2).isEmpty());
+    assertEquals(1, store.getEvictions());
+    assertEquals(SlabStore.SLAB_SIZE, store.getReservedBytes());
+  }
+
+  @Test
+  void testRejectsValuesThatDoNotFit() {
+    SlabStore<Integer> store = new SlabStore<>(SlabStore.SLAB_SIZE);
+    store.put(1, new byte[SlabStore.SLAB_SIZE / 2]);
+
+    assertFalse(store.put(2, new byte[SlabStore.SLAB_SIZE + 1]));
+    assertFalse(new SlabStore<Integer>(0).put(1, new byte[1]));
+    assertEquals(1, store.size());
+  }
+
+  @Test
+  void testNewSizeClassTakesOverLeastRecentlyUsedSlab() {
+    SlabStore<Integer> store = new SlabStore<>(2 * SlabStore.SLAB_SIZE);
+    byte[] half = new byte[SlabStore.SLAB_SIZE / 2];
+    byte[] whole = new byte[SlabStore.SLAB_SIZE];
+    store.put(1, half);
+    store.put(2, half);
+    store.put(3, whole);
+    store.get(3);
+
+    // Both slabs belong to other size classes; the one of entries 1 and 2 is least recently used
+    byte[] small = {7};
+    assertTrue(store.put(4, small));
+    assertTrue(store.put(5, new byte[10]));
+
+    assertArrayEquals(small, store.get(4).get());
+    assertTrue(store.get(1).isEmpty());
+    assertTrue(store.get(2).isEmpty());
+    assertTrue(store.get(3).isPresent());
+    assertEquals(2, store.getEvictions());
+    assertEquals(1, store.getReassignedSlabs());
+    assertEquals(SlabStore.SLAB_SIZE + 11, store.getUsedBytes());
+    assertEquals(2L * SlabStore.SLAB_SIZE, store.getReservedBytes());
+  }
+}
@@ -14,6 +14,7 @@ class SteamApiConfigTest {
     assertEquals("test-api-key", config.getSteamApiKey());
     assertEquals("12345678901234567", config.getSteamId());
     assertEquals("steam_", config.getToolPrefix());
+    assertEquals(ExecutionMode.BOUNDED_ELASTIC, config.getExecutionMode());
   }
 
   @Test
@@ -5,6 +5,7 @@ import static org.mockito.Mockito.*;
 
 import java.util.List;
 
+import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -12,6 +13,8 @@ import org.mockito.MockitoAnnotations;
 
 import com.lukaspradel.steamapi.core.exception.SteamApiException;
 
+import reactor.core.publisher.Mono;
+
 class SteamAppSearchTest {
 
   @Mock private SteamGames mockSteamGames;
@@ -160,4 +163,29 @@ class SteamAppSearchTest {
     assertFalse(results.isEmpty());
     assertEquals("Counter-Strike", results.get(0).getName());
   }
+
+  @Test
+  void testSerializerMatchesToJson() {
+    AppSearchResult result = new AppSearchResult(220, "Half-Life 2", 0.95);
+
+    JsonWriter json = new JsonWriter();
+    AppSearchResult.SERIALIZER.write(json, result);
+
+    assertTrue(result.toJson().similar(new JSONObject(json.finish())));
+  }
+
+  @Test
+  void testPreloadBuildsKnownAppIds() {
+    when(mockSteamGames.fetchAppList())
+        .thenReturn(Mono.just(List.of(new AppInfo(10, "Counter-Strike"))));
+    assertSame(KnownAppIds.NONE, appSearch.getKnownAppIds());
+
+    appSearch.preload().block();
+    appSearch.preload().block();
+
+    assertTrue(appSearch.getKnownAppIds().mightExist(10));
+    assertFalse(appSearch.getKnownAppIds().mightExist(5));
+    verify(mockSteamGames, times(1)).fetchAppList();
+    assertTrue(appSearch.getCacheInfo().startsWith("Cache loaded: 1 apps"));
+  }
 }
@@ -2,14 +2,21 @@ package net.experimentalworks;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -247,6 +254,60 @@ class SteamStoreClientTest {
         .verifyComplete();
   }
 
+  @Test
+  void testGetStoreDetailsReturnsAnsweredAppsWhenDeadlinePasses() {
+    String body =
+        """
+            {"10": {"success": true, "data": {"type": "game", "name": "Counter-Strike",
+              "steam_appid": 10, "release_date": {"coming_soon": false, "date": "1 Nov, 2000"}}}}
+            """;
+    when(mockResponse.body()).thenReturn(body);
+    CompletableFuture<HttpResponse<String>> pending = new CompletableFuture<>();
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse), pending);
+
+    StepVerifier.create(
+            client.getStoreDetails(
+                List.of(10, 20), Optional.empty(), Optional.empty(), Duration.ofMillis(200)))
+        .assertNext(
+            detailsList -> {
+              assertEquals(2, detailsList.size());
+              StoreDetails answered = detailsList.get(0);
+              assertEquals(10, answered.getAppId());
+              assertTrue(answered.isSuccess());
+
+              FailedStoreDetails timedOut = (FailedStoreDetails) detailsList.get(1);
+              assertEquals(20, timedOut.getAppId());
+              assertEquals(FetchFailure.TIMED_OUT, timedOut.getFailure());
+              assertEquals("timed_out", timedOut.toJson().getString("failure"));
+            })
+        .verifyComplete();
+
+    verify(mockHttpClient, times(2))
+        .sendAsync(
+            argThat(
+                request ->
+                    request.timeout().isPresent()
+                        && request.timeout().get().compareTo(Duration.ofMillis(200)) <= 0),
+            any(HttpResponse.BodyHandler.class));
+    assertTrue(pending.isCancelled(), "the unanswered request is cancelled at the deadline");
+  }
+
+  @Test
+  void testGetStoreDetailsHttpTimeoutIsReportedAsTimedOut() {
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(
+            CompletableFuture.failedFuture(new HttpTimeoutException("request timed out")));
+
+    StepVerifier.create(client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()))
+        .assertNext(
+            detailsList ->
+                assertEquals(
+                    FetchFailure.TIMED_OUT,
+                    ((FailedStoreDetails) detailsList.get(0)).getFailure()))
+        .verifyComplete();
+  }
+
   @Test
   void testGetStoreDetailsInvalidJson() {
     String invalidJson = "{ invalid json }";
@@ -405,4 +466,577 @@ class SteamStoreClientTest {
             })
         .verifyComplete();
   }
+
+  @Test
+  void testGetPricesUsesSingleBatchedRequest() {
+    String mockResponseBody =
+        """
+            {
+              "10": {
+                "success": true,
+                "data": {
+                  "price_overview": {
+                    "currency": "USD",
+                    "initial": 999,
+                    "final": 499,
+                    "discount_percent": 50,
+                    "final_formatted": "$4.99"
+                  }
+                }
+              },
+              "440": {
+                "success": true,
+                "data": []
+              },
+              "999999": {
+                "success": false
+              }
+            }
+            """;
+
+    when(mockResponse.statusCode()).thenReturn(200);
+    when(mockResponse.body()).thenReturn(mockResponseBody);
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    StepVerifier.create(client.getPrices(List.of(10, 440, 999999), Optional.of("US")))
+        .assertNext(
+            prices -> {
+              assertEquals(3, prices.size());
+
+              AppPrice discounted = prices.get(0);
+              assertEquals(10, discounted.getAppId());
+              assertTrue(discounted.isSuccess());
+              assertEquals(499, discounted.getPriceOverview().get().getFinalPrice());
+              assertEquals(50, discounted.getPriceOverview().get().getDiscountPercent());
+
+              AppPrice free = prices.get(1);
+              assertEquals(440, free.getAppId());
+              assertTrue(free.isSuccess());
+              assertTrue(free.getPriceOverview().isEmpty());
+
+              AppPrice unknown = prices.get(2);
+              assertEquals(999999, unknown.getAppId());
+              assertFalse(unknown.isSuccess());
+              assertTrue(unknown.getError().isPresent());
+            })
+        .verifyComplete();
+
+    verify(mockHttpClient, times(1))
+        .sendAsync(
+            argThat(
+                request ->
+                    request.uri().toString().contains("appids=10,440,999999")
+                        && request.uri().toString().contains("filters=price_overview")
+                        && request.uri().toString().contains("cc=US")),
+            any(HttpResponse.BodyHandler.class));
+  }
+
+  @Test
+  void testGetPricesSplitsLargeRequestsIntoBatches() {
+    when(mockResponse.statusCode()).thenReturn(200);
+    when(mockResponse.body()).thenReturn("{}");
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    List<Integer> appIds =
+        IntStream.rangeClosed(1, SteamStoreClient.PRICE_BATCH_SIZE * 2 + 1).boxed().toList();
+
+    StepVerifier.create(client.getPrices(appIds, Optional.empty()))
+        .assertNext(
+            prices -> {
+              assertEquals(appIds.size(), prices.size());
+              assertEquals(1, prices.get(0).getAppId());
+              assertEquals(appIds.size(), prices.get(prices.size() - 1).getAppId());
+              assertTrue(prices.stream().noneMatch(AppPrice::isSuccess));
+            })
+        .verifyComplete();
+
+    verify(mockHttpClient, times(3))
+        .sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));    assertEquals(3, client.getParsePool().getTasks());
+    assertTrue(client.getCacheInfo().contains("Parse pool: "));
+  }
+
+  @Test
+  void testGetPricesHttpErrorFailsWholeBatch() {
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Network error occurred")));
+
+    StepVerifier.create(client.getPrices(List.of(10, 20), Optional.empty()))
+        .assertNext(
+            prices -> {
+              assertEquals(2, prices.size());
+              assertTrue(prices.stream().noneMatch(AppPrice::isSuccess));
+              assertTrue(prices.get(0).getError().get().contains("HTTP request failed"));
+            })
+        .verifyComplete();
+  }
+
+  @Test
+  void testGetPricesThrottledBatchFailsWithHttpError() {
+    when(mockResponse.statusCode()).thenReturn(429);
+    when(mockResponse.body()).thenReturn("<html>Too Many Requests</html>");
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    List<AppPrice> prices = client.getPrices(List.of(10, 20), Optional.empty()).block();
+
+    assertEquals(2, prices.size());
+    for (AppPrice price : prices) {
+      assertEquals(Optional.of(FetchFailure.HTTP_ERROR), price.getFailure());
+      assertEquals(Optional.of("HTTP 429"), price.getError());
+    }
+  }
+
+  @Test
+  void testGetPricesMarksUnansweredBatchesAsTimedOut() {
+    CompletableFuture<HttpResponse<String>> pending = new CompletableFuture<>();
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(pending);
+
+    StepVerifier.create(
+            client.getPrices(List.of(10, 20), Optional.empty(), Duration.ofMillis(100)))
+        .assertNext(
+            prices -> {
+              assertEquals(2, prices.size());
+              assertTrue(
+                  prices.stream()
+                      .allMatch(p -> p.getFailure().equals(Optional.of(FetchFailure.TIMED_OUT))));
+              assertEquals("timed_out", prices.get(0).toJson().getString("failure"));
+            })
+        .verifyComplete();
+
+    assertTrue(pending.isCancelled());
+  }
+
+  @Test
+  void testGetPricesEmptyList() {
+    StepVerifier.create(client.getPrices(List.of(), Optional.empty()))
+        .assertNext(prices -> assertTrue(prices.isEmpty()))
+        .verifyComplete();
+
+    verify(mockHttpClient, never())
+        .sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+  }
+
+  @Test
+  void testRequestsNegotiateCompressedResponses() {
+    when(mockResponse.body()).thenReturn("{\"10\": {\"success\": false}}");
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    StepVerifier.create(client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()))
+        .assertNext(detailsList -> assertEquals(1, detailsList.size()))
+        .verifyComplete();
+
+    verify(mockHttpClient, times(1))
+        .sendAsync(
+            argThat(
+                request ->
+                    request
+                        .headers()
+                        .firstValue("Accept-Encoding")
+                        .filter(value -> value.contains("gzip"))
+                        .isPresent()),
+            any(DecompressingBodyHandler.class));
+  }
+
+  @Test
+  void testFreshCacheEntryIsServedWithoutRequest() {
+    when(mockResponse.body()).thenReturn(appBody(10, "Counter-Strike"));
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    StoreDetails first =
+        client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block().get(0);
+    StoreDetails second =
+        client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block().get(0);
+
+    assertSame(first, second);
+    verify(mockHttpClient, times(1))
+        .sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+  }
+
+  @Test
+  void testExpiredEntryIsRevalidatedWithEtag() {
+    MutableClock clock = new MutableClock();
+    client =
+        new SteamStoreClient(
+            mockHttpClient, new StoreDetailsCache(Duration.ofMinutes(30), 10, clock));
+
+    when(mockResponse.statusCode()).thenReturn(200, 304);
+    when(mockResponse.headers())
+        .thenReturn(HttpHeaders.of(Map.of("ETag", List.of("\"v1\"")), (name, value) -> true));
+    when(mockResponse.body()).thenReturn(appBody(10, "Counter-Strike"), "");
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    StoreDetails first =
+        client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block().get(0);
+    clock.advance(Duration.ofMinutes(31));
+    StoreDetails revalidated =
+        client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block().get(0);
+    StoreDetails renewed =
+        client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block().get(0);
+
+    assertSame(first, revalidated);
+    assertSame(first, renewed);
+    verify(mockHttpClient, times(2))
+        .sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    verify(mockHttpClient, times(1))
+        .sendAsync(
+            argThat(
+                request ->
+                    request.headers().firstValue("If-None-Match").equals(Optional.of("\"v1\""))),
+            any(HttpResponse.BodyHandler.class));
+  }
+
+  @Test
+  void testExpiredEntryWithUnchangedBodySkipsReparse() {
+    MutableClock clock = new MutableClock();
+    client =
+        new SteamStoreClient(
+            mockHttpClient, new StoreDetailsCache(Duration.ofMinutes(30), 10, clock));
+
+    when(mockResponse.body()).thenReturn(appBody(10, "Counter-Strike"));
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    StoreDetails first =
+        client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block().get(0);
+    clock.advance(Duration.ofMinutes(31));
+    StoreDetails second =
+        client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block().get(0);
+
+    assertSame(first, second);
+    verify(mockHttpClient, times(2))
+        .sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+  }
+
+  @Test
+  void testExpiredEntryWithChangedBodyIsReplaced() {
+    MutableClock clock = new MutableClock();
+    client =
+        new SteamStoreClient(
+            mockHttpClient, new StoreDetailsCache(Duration.ofMinutes(30), 10, clock));
+
+    when(mockResponse.body())
+        .thenReturn(appBody(10, "Counter-Strike"), appBody(10, "Counter-Strike (Remastered)"));
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block();
+    clock.advance(Duration.ofMinutes(31));
+    StoreDetails updated =
+        client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block().get(0);
+
+    assertEquals("Counter-Strike (Remastered)", updated.getName());
+  }
+
+  @Test
+  void testJsonOfCachedDetailsIsReusedUntilReplaced() {
+    MutableClock clock = new MutableClock();
+    client =
+        new SteamStoreClient(
+            mockHttpClient, new StoreDetailsCache(Duration.ofMinutes(30), 10, clock));
+    when(mockResponse.body()).thenReturn(appBody(10, "Counter-Strike"), appBody(10, "CS"));
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    StoreDetails first =
+        client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block().get(0);
+    String json =
+        client.toJson(first, Optional.empty(), Optional.empty(), StoreDetailsSection.ALL).json();
+    assertSame(
+        json,
+        client.toJson(first, Optional.empty(), Optional.empty(), StoreDetailsSection.ALL).json());
+
+    clock.advance(Duration.ofMinutes(31));
+    StoreDetails replaced =
+        client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block().get(0);
+
+    assertTrue(
+        client
+            .toJson(replaced, Optional.empty(), Optional.empty(), StoreDetailsSection.ALL)
+            .json()
+            .contains("\"CS\""));
+    assertTrue(
+        client
+            .toJson(first, Optional.empty(), Optional.empty(), StoreDetailsSection.ALL)
+            .json()
+            .contains("Counter-Strike"),
+        "details no longer cached are serialized without memoizing");
+    assertTrue(client.getCacheInfo().contains("hits: 1, misses: 2"), client.getCacheInfo());
+  }
+
+  @Test
+  void testFailedDetailsAreNotCached() {
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Connection reset")));
+
+    client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block();
+    client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block();
+
+    verify(mockHttpClient, times(2))
+        .sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+  }
+
+  @Test
+  void testUnavailableAppIsNotRequestedAgainUntilTtlElapses() {
+    MutableClock clock = new MutableClock();
+    client =
+        new SteamStoreClient(
+            mockHttpClient,
+            new StoreDetailsCache(Duration.ofMinutes(30), 10, 0, Duration.ofMinutes(10), clock));
+
+    when(mockResponse.body()).thenReturn("{\"999999\": {\"success\": false}}");
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    client.getStoreDetails(List.of(999999), Optional.empty(), Optional.empty()).block();
+    StoreDetails cached =
+        client
+            .getStoreDetails(List.of(999999), Optional.empty(), Optional.of("french"))
+            .block()
+            .get(0);
+
+    assertEquals(FetchFailure.UNAVAILABLE, ((FailedStoreDetails) cached).getFailure());
+    verify(mockHttpClient, times(1))
+        .sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+
+    client.getStoreDetails(List.of(999999), Optional.of("DE"), Optional.empty()).block();
+    clock.advance(Duration.ofMinutes(10));
+    client.getStoreDetails(List.of(999999), Optional.empty(), Optional.empty()).block();
+
+    verify(mockHttpClient, times(3))
+        .sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+  }
+
+  @Test
+  void testGetPricesSkipsUnavailableApps() {
+    when(mockResponse.statusCode()).thenReturn(200);
+    when(mockResponse.body())
+        .thenReturn(
+            """
+            {"10": {"success": true, "data": []}, "999999": {"success": false}}
+            """,
+            """
+            {"10": {"success": true, "data": []}}
+            """);
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    client.getPrices(List.of(10, 999999), Optional.empty()).block();
+    List<AppPrice> prices = client.getPrices(List.of(999999, 10), Optional.empty()).block();
+
+    assertEquals(2, prices.size());
+    assertEquals(999999, prices.get(0).getAppId());
+    assertEquals(Optional.of(FetchFailure.UNAVAILABLE), prices.get(0).getFailure());
+    assertTrue(prices.get(1).isSuccess());
+    verify(mockHttpClient, times(1))
+        .sendAsync(
+            argThat(request -> request.uri().toString().contains("appids=10&")),
+            any(HttpResponse.BodyHandler.class));
+  }
+
+  @Test
+  void testOpenCircuitFailsFastWithoutRequests() {
+    when(mockResponse.statusCode()).thenReturn(503);
+    when(mockResponse.body()).thenReturn("");
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+    List<Integer> appIds =
+        IntStream.rangeClosed(1, CircuitBreaker.DEFAULT_MIN_CALLS).boxed().toList();
+
+    List<StoreDetails> failed =
+        client.getStoreDetails(appIds, Optional.empty(), Optional.empty()).block();
+    assertEquals(FetchFailure.HTTP_ERROR, ((FailedStoreDetails) failed.get(0)).getFailure());
+    assertTrue(client.getCircuitBreaker().isOpen());
+
+    StoreDetails rejected =
+        client.getStoreDetails(List.of(999), Optional.empty(), Optional.empty()).block().get(0);
+    List<AppPrice> prices = client.getPrices(List.of(999), Optional.empty()).block();
+
+    assertEquals(FetchFailure.CIRCUIT_OPEN, ((FailedStoreDetails) rejected).getFailure());
+    assertEquals(Optional.of(FetchFailure.CIRCUIT_OPEN), prices.get(0).getFailure());
+    verify(mockHttpClient, times(CircuitBreaker.DEFAULT_MIN_CALLS))
+        .sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+  }
+
+  @Test
+  void testCallerTimeoutsAndCancellationsDoNotOpenCircuit() {
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(
+            CompletableFuture.failedFuture(new HttpTimeoutException("request timed out")),
+            new CompletableFuture<HttpResponse<String>>());
+    List<Integer> appIds =
+        IntStream.rangeClosed(1, CircuitBreaker.DEFAULT_MIN_CALLS).boxed().toList();
+
+    client.getStoreDetails(appIds, Optional.empty(), Optional.empty(), Duration.ofMillis(100))
+        .block();
+
+    assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreaker().getState());
+    assertTrue(
+        client.getCacheInfo().contains("0 of 0 recent calls failed"), client.getCacheInfo());
+  }
+
+  @Test
+  void testCallsHangingUntilTheFullDeadlineOpenCircuit() {
+    Duration storeTimeout = Duration.ofMillis(200);
+    client =
+        new SteamStoreClient(
+            mockHttpClient,
+            new StoreDetailsCache(),
+            true,
+            new ParsePool(),
+            new RequestHedger(new StoreRateBudget(), false),
+            () -> KnownAppIds.NONE,
+            storeTimeout);
+    List<Integer> appIds =
+        IntStream.rangeClosed(1, CircuitBreaker.DEFAULT_MIN_CALLS).boxed().toList();
+    @SuppressWarnings("unchecked")
+    CompletableFuture<HttpResponse<String>>[] pending = new CompletableFuture[appIds.size()];
+    Arrays.setAll(pending, i -> new CompletableFuture<>());
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(pending[0], Arrays.copyOfRange(pending, 1, pending.length));
+
+    List<StoreDetails> hung =
+        client.getStoreDetails(appIds, Optional.empty(), Optional.empty(), storeTimeout).block();
+    clearInvocations(mockHttpClient);
+    List<AppPrice> prices = client.getPrices(List.of(10), Optional.empty(), storeTimeout).block();
+
+    assertEquals(FetchFailure.TIMED_OUT, ((FailedStoreDetails) hung.get(0)).getFailure());
+    assertEquals(CircuitBreaker.State.OPEN, client.getCircuitBreaker().getState());
+    assertEquals(Optional.of(FetchFailure.CIRCUIT_OPEN), prices.get(0).getFailure());
+    verifyNoInteractions(mockHttpClient);
+  }
+
+  @Test
+  void testExpiredEntryIsServedWhileCircuitIsOpen() {
+    MutableClock clock = new MutableClock();
+    client =
+        new SteamStoreClient(
+            mockHttpClient, new StoreDetailsCache(Duration.ofMinutes(30), 10, clock));
+
+    when(mockResponse.body()).thenReturn(appBody(10, "Counter-Strike"));
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    StoreDetails first =
+        client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block().get(0);
+    for (int i = 0; i < CircuitBreaker.DEFAULT_MIN_CALLS; i++) {
+      client.getCircuitBreaker().recordFailure();
+    }
+    clock.advance(Duration.ofMinutes(31));
+    StoreDetails stale =
+        client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block().get(0);
+
+    assertSame(first, stale);
+    verify(mockHttpClient, times(1))
+        .sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    assertTrue(client.getCacheInfo().contains("served stale 1"), client.getCacheInfo());
+  }
+
+  @Test
+  void testUnknownAppIdsAreRejectedWithoutRequest() {
+    KnownAppIds known =
+        KnownAppIds.of(List.of(new AppInfo(10, "Counter-Strike"), new AppInfo(440, "TF2")));
+    client =
+        new SteamStoreClient(
+            mockHttpClient,
+            new StoreDetailsCache(),
+            true,
+            new ParsePool(),
+            new RequestHedger(new StoreRateBudget(), false),
+            () -> known);
+
+    StoreDetails details =
+        client.getStoreDetails(List.of(20), Optional.empty(), Optional.empty()).block().get(0);
+    List<AppPrice> prices = client.getPrices(List.of(30), Optional.empty()).block();
+
+    assertEquals(FetchFailure.NOT_FOUND, ((FailedStoreDetails) details).getFailure());
+    assertEquals("not_found", details.toJson().getString("failure"));
+    assertEquals(Optional.of(FetchFailure.NOT_FOUND), prices.get(0).getFailure());
+    verifyNoInteractions(mockHttpClient);
+    assertTrue(client.getCacheInfo().contains("rejected 2"), client.getCacheInfo());
+  }
+
+  @Test
+  void testAppIdsNewerThanKnownIdsAreRequested() {
+    KnownAppIds known = KnownAppIds.of(List.of(new AppInfo(10, "Counter-Strike")));
+    client =
+        new SteamStoreClient(
+            mockHttpClient,
+            new StoreDetailsCache(),
+            true,
+            new ParsePool(),
+            new RequestHedger(new StoreRateBudget(), false),
+            () -> known);
+    when(mockResponse.body()).thenReturn(appBody(2000000, "New Release"));
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    StoreDetails details =
+        client
+            .getStoreDetails(List.of(2000000), Optional.empty(), Optional.empty())
+            .block()
+            .get(0);
+
+    assertTrue(details.isSuccess());
+    assertEquals("New Release", details.getName());
+  }
+
+  @Test
+  void testHotEntryIsRefreshedBeforeItExpires() throws Exception {
+    MutableClock clock = new MutableClock();
+    client =
+        new SteamStoreClient(
+            mockHttpClient, new StoreDetailsCache(Duration.ofMinutes(30), 10, clock));
+    when(mockResponse.statusCode()).thenReturn(200, 304);
+    when(mockResponse.headers())
+        .thenReturn(HttpHeaders.of(Map.of("ETag", List.of("\"v1\"")), (name, value) -> true));
+    when(mockResponse.body()).thenReturn(appBody(10, "Counter-Strike"), "");
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block();
+    for (int i = 0; i < RefreshAhead.HOT_ACCESSES; i++) {
+      client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block();
+    }
+    clock.advance(Duration.ofMinutes(27));
+    client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block();
+    for (int i = 0; i < 50 && !client.getCacheInfo().contains("refreshed 1"); i++) {
+      Thread.sleep(10);
+    }
+
+    clock.advance(Duration.ofMinutes(5));
+    StoreDetails details =
+        client.getStoreDetails(List.of(10), Optional.empty(), Optional.empty()).block().get(0);
+
+    assertEquals("Counter-Strike", details.getName());
+    assertTrue(client.getCacheInfo().contains("refreshed 1"), client.getCacheInfo());
+    verify(mockHttpClient, times(2))
+        .sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    verify(mockHttpClient, times(1))
+        .sendAsync(
+            argThat(request -> request.headers().firstValue("If-None-Match").isPresent()),
+            any(HttpResponse.BodyHandler.class));
+  }
+
+  private static String appBody(int appId, String name) {
+    return """
+        {
+          "%d": {
+            "success": true,
+            "data": {
+              "type": "game",
+              "name": "%s",
+              "platforms": {"windows": true, "mac": false, "linux": false},
+              "release_date": {"coming_soon": false, "date": "1 Nov, 2000"}
+            }
+          }
+        }
+        """
+        .formatted(appId, name);
+  }
 }
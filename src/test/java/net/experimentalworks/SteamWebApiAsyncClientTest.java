@@ -0,0 +1,159 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.lukaspradel.steamapi.core.exception.SteamApiException;
+
+import reactor.test.StepVerifier;
+
+class SteamWebApiAsyncClientTest {
+
+  @Mock private HttpClient mockHttpClient;
+
+  @Mock private HttpResponse<String> mockResponse;
+
+  private SteamWebApiAsyncClient client;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    client = new SteamWebApiAsyncClient("test-key", mockHttpClient);
+  }
+
+  @Test
+  void testGetOwnedGames() {
+    String body =
+        """
+            {
+              "response": {
+                "game_count": 2,
+                "games": [
+                  {"appid": 400, "name": "Portal", "playtime_forever": 300},
+                  {"appid": 620, "name": "Portal 2", "playtime_forever": 45}
+                ]
+              }
+            }
+            """;
+    when(mockResponse.statusCode()).thenReturn(200);
+    when(mockResponse.body()).thenReturn(body);
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    StepVerifier.create(client.getOwnedGames("76561197960287930"))
+        .assertNext(
+            library -> {
+              assertEquals(2, library.size());
+              assertEquals("Portal 2", library.getName(1));
+              assertEquals(300, library.getPlaytimeForever(0));
+              assertFalse(library.hasPlaytime2weeks(0));
+            })
+        .verifyComplete();
+
+    verify(mockHttpClient)
+        .sendAsync(
+            argThat(
+                request ->
+                    request
+                        .uri()
+                        .toString()
+                        .startsWith(
+                            "https://api.steampowered.com/IPlayerService/GetOwnedGames/v1/"
+                                + "?key=test-key&format=json&steamid=76561197960287930")),
+            any(HttpResponse.BodyHandler.class));
+  }
+
+  @Test
+  void testNothingIsSentUntilSubscribed() {
+    client.getAppList();
+
+    verifyNoInteractions(mockHttpClient);
+  }
+
+  @Test
+  void testHttpErrorFailsWithSteamApiException() {
+    when(mockResponse.statusCode()).thenReturn(403);
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+    StepVerifier.create(client.getRecentlyPlayedGames("76561197960287930"))
+        .expectErrorSatisfies(
+            e -> {
+              assertTrue(e instanceof SteamApiException);
+              assertTrue(e.getMessage().contains("HTTP 403"));
+            })
+        .verify();
+  }
+
+  @Test
+  void testOpenCircuitFailsWithoutRequest() {
+    when(mockResponse.statusCode()).thenReturn(429);
+    when(mockHttpClient.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+        .thenReturn(CompletableFuture.completedFuture(mockResponse));
+    for (int i = 0; i < CircuitBreaker.DEFAULT_MIN_CALLS; i++) {
+      StepVerifier.create(client.getAppList()).expectError(SteamApiException.class).verify();
+    }
+
+    StepVerifier.create(client.getAppList())
+        .expectErrorSatisfies(
+            e -> {
+              assertTrue(e instanceof SteamApiException);
+              assertTrue(e.getMessage().contains("request not sent"));
+            })
+        .verify();
+
+    verify(mockHttpClient, times(CircuitBreaker.DEFAULT_MIN_CALLS))
+        .sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+    assertEquals(1, client.getCircuitBreaker().getRejected());
+  }
+
+  @Test
+  void testParseRecentLibraryReadsTwoWeekPlaytime() {
+    Library library =
+        SteamWebApiAsyncClient.parseLibrary(
+            """
+                {"response": {"total_count": 1, "games": [
+                  {"appid": 440, "name": "Team Fortress 2", "playtime_2weeks": 90,
+                   "playtime_forever": 1200}
+                ]}}
+                """,
+            true);
+
+    assertEquals(1, library.size());
+    assertEquals(90, library.getPlaytime2weeks(0));
+    assertEquals(1200, library.getPlaytimeForever(0));
+  }
+
+  @Test
+  void testParsePrivateProfileIsEmpty() {
+    assertEquals(0, SteamWebApiAsyncClient.parseLibrary("{\"response\": {}}", false).size());
+  }
+
+  @Test
+  void testParseAppListSkipsUnnamedApps() {
+    List<AppInfo> apps =
+        SteamWebApiAsyncClient.parseAppList(
+            """
+                {"applist": {"apps": [
+                  {"appid": 10, "name": "Counter-Strike"},
+                  {"appid": 11},
+                  {"appid": 20, "name": "Team Fortress Classic"}
+                ]}}
+                """);
+
+    assertEquals(List.of(10, 20), apps.stream().map(AppInfo::appId).toList());
+  }
+}
@@ -0,0 +1,207 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StoreDetailsCacheTest {
+
+  private MutableClock clock;
+  private StoreDetailsCache cache;
+
+  @BeforeEach
+  void setUp() {
+    clock = new MutableClock();
+    cache = new StoreDetailsCache(Duration.ofMinutes(10), 2, clock);
+  }
+
+  @Test
+  void testEntryIsFreshUntilTtlElapses() {
+    StoreDetailsCache.Key key = StoreDetailsCache.Key.of(10, Optional.empty(), Optional.empty());
+    cache.put(key, details(10), Optional.empty(), Optional.empty(), 1L);
+
+    assertTrue(cache.getFresh(key).isPresent());
+
+    clock.advance(Duration.ofMinutes(10));
+
+    assertTrue(cache.getFresh(key).isEmpty());
+    assertTrue(cache.get(key).isPresent(), "expired entries stay available for revalidation");
+  }
+
+  @Test
+  void testUnavailableAppsExpireAfterTheirOwnTtl() {
+    StoreDetailsCache.Key english =
+        StoreDetailsCache.Key.of(10, Optional.of("US"), Optional.of("en"));
+    StoreDetailsCache.Key french =
+        StoreDetailsCache.Key.of(10, Optional.of("US"), Optional.of("fr"));
+    StoreDetailsCache.Key germany =
+        StoreDetailsCache.Key.of(10, Optional.of("DE"), Optional.empty());
+    cache.markUnavailable(english);
+
+    assertTrue(cache.isUnavailable(french), "unavailability does not depend on the language");
+    assertFalse(cache.isUnavailable(germany));
+    assertTrue(
+        cache.getCacheInfo().contains("unavailable: 1 entries, 1 hits"), cache.getCacheInfo());
+
+    clock.advance(StoreDetailsCache.DEFAULT_UNAVAILABLE_TTL);
+
+    assertFalse(cache.isUnavailable(english));
+  }
+
+  @Test
+  void testRenewExtendsExpiryAndKeepsValidators() {
+    StoreDetailsCache.Key key = StoreDetailsCache.Key.of(10, Optional.of("US"), Optional.empty());
+    StoreDetailsCache.Entry entry =
+        cache.put(key, details(10), Optional.of("\"v1\""), Optional.empty(), 1L);
+    clock.advance(Duration.ofMinutes(15));
+
+    StoreDetailsCache.Entry renewed =
+        cache.renew(key, entry, Optional.empty(), Optional.of("Wed, 01 Jan 2025 00:00:00 GMT"));
+
+    assertSame(entry.details(), renewed.details());
+    assertEquals(Optional.of("\"v1\""), renewed.etag());
+    assertEquals(Optional.of("Wed, 01 Jan 2025 00:00:00 GMT"), renewed.lastModified());
+    assertTrue(cache.getFresh(key).isPresent());
+  }
+
+  @Test
+  void testEntriesTrackChangesAndUnchangedRefreshes() {
+    StoreDetailsCache adaptive =
+        new StoreDetailsCache(
+            StoreTtlPolicy.adaptive(clock), 2, 0, StoreDetailsCache.DEFAULT_UNAVAILABLE_TTL, clock);
+    StoreDetailsCache.Key key = StoreDetailsCache.Key.of(10, Optional.empty(), Optional.empty());
+
+    StoreDetailsCache.Entry first =
+        adaptive.put(key, details(10), Optional.empty(), Optional.empty(), 1L);
+    StoreDetailsCache.Entry renewed =
+        adaptive.renew(key, first, Optional.empty(), Optional.empty());
+    StoreDetailsCache.Entry changed =
+        adaptive.put(key, details(10), Optional.empty(), Optional.empty(), 2L);
+
+    assertEquals(0, first.changes());
+    assertEquals(1, renewed.unchangedRefreshes());
+    assertEquals(1, changed.changes());
+    assertEquals(0, changed.unchangedRefreshes());
+    // An app without a price released in 2000 is settled and kept for the longest lifetime
+    assertEquals(clock.instant().plus(StoreTtlPolicy.MAX_TTL), first.expiresAt());
+    assertTrue(adaptive.getCacheInfo().contains("ttl: adaptive"), adaptive.getCacheInfo());
+  }
+
+  @Test
+  void testKeysDifferPerRegionAndLanguage() {
+    cache.put(
+        StoreDetailsCache.Key.of(10, Optional.of("US"), Optional.empty()),
+        details(10),
+        Optional.empty(),
+        Optional.empty(),
+        1L);
+
+    assertTrue(
+        cache.get(StoreDetailsCache.Key.of(10, Optional.of("DE"), Optional.empty())).isEmpty());
+    assertTrue(
+        cache.get(StoreDetailsCache.Key.of(10, Optional.of("US"), Optional.of("de"))).isEmpty());
+  }
+
+  @Test
+  void testEvictsLeastRecentlyUsedEntry() {
+    StoreDetailsCache.Key first = StoreDetailsCache.Key.of(10, Optional.empty(), Optional.empty());
+    StoreDetailsCache.Key second = StoreDetailsCache.Key.of(20, Optional.empty(), Optional.empty());
+    StoreDetailsCache.Key third = StoreDetailsCache.Key.of(30, Optional.empty(), Optional.empty());
+    cache.put(first, details(10), Optional.empty(), Optional.empty(), 1L);
+    cache.put(second, details(20), Optional.empty(), Optional.empty(), 2L);
+
+    // Touch the first entry so the second one becomes the eviction candidate
+    cache.get(first);
+    cache.put(third, details(30), Optional.empty(), Optional.empty(), 3L);
+
+    assertEquals(2, cache.size());
+    assertTrue(cache.get(first).isPresent());
+    assertTrue(cache.get(second).isEmpty());
+  }
+
+  @Test
+  void testEvictedEntriesMoveOffHeapAndBack() {
+    StoreDetailsCache tiered =
+        new StoreDetailsCache(Duration.ofMinutes(10), 1, SlabStore.SLAB_SIZE, clock);
+    StoreDetailsCache.Key first = StoreDetailsCache.Key.of(10, Optional.of("US"), Optional.empty());
+    StoreDetailsCache.Key second = StoreDetailsCache.Key.of(20, Optional.empty(), Optional.empty());
+    StoreDetailsCache.Entry entry =
+        tiered.put(first, details(10), Optional.of("\"v1\""), Optional.empty(), 7L);
+    tiered.put(second, details(20), Optional.empty(), Optional.empty(), 8L);
+
+    assertEquals(2, tiered.size());
+    assertTrue(tiered.getCacheInfo().contains("on-heap: 1/1 entries, off-heap: 1 entries"));
+
+    StoreDetailsCache.Entry promoted = tiered.getFresh(first).get();
+
+    assertTrue(promoted.details() instanceof LazyStoreDetails);
+    assertEquals(entry.details().toJson().toString(), promoted.details().toJson().toString());
+    assertEquals(Optional.of("\"v1\""), promoted.etag());
+    assertEquals(Optional.empty(), promoted.lastModified());
+    assertEquals(7L, promoted.contentHash());
+    assertEquals(entry.expiresAt(), promoted.expiresAt());
+    assertEquals(entry.changes(), promoted.changes());
+    assertTrue(tiered.getCacheInfo().endsWith("demoted: 2, promoted: 1, evicted: 0"));
+  }
+
+  @Test
+  void testPromotedEntriesFollowTheDetailsMode() {
+    StoreDetailsCache eager =
+        new StoreDetailsCache(
+            StoreTtlPolicy.fixed(Duration.ofMinutes(10)),
+            1,
+            SlabStore.SLAB_SIZE,
+            StoreDetailsCache.DEFAULT_UNAVAILABLE_TTL,
+            false,
+            clock);
+    StoreDetailsCache.Key first = StoreDetailsCache.Key.of(10, Optional.empty(), Optional.empty());
+    StoreDetailsCache.Key second = StoreDetailsCache.Key.of(20, Optional.empty(), Optional.empty());
+    StoreDetails details = details(10);
+    eager.put(first, details, Optional.empty(), Optional.empty(), 7L);
+    eager.put(second, details(20), Optional.empty(), Optional.empty(), 8L);
+
+    StoreDetails promoted = eager.get(first).get().details();
+
+    assertFalse(promoted instanceof LazyStoreDetails);
+    assertEquals(details.toJson().toString(), promoted.toJson().toString());
+    assertEquals(2, eager.size());
+  }
+
+  private static StoreDetails details(int appId) {
+    return new StoreDetails(
+        appId,
+        "game",
+        "App " + appId,
+        0,
+        false,
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        new StoreDetails.Platforms(true, false, false),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        new StoreDetails.ReleaseDate(false, "1 Nov, 2000"),
+        Optional.empty(),
+        Optional.empty(),
+        true);
+  }
+}
@@ -0,0 +1,153 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+class StoreDetailsJsonCacheTest {
+
+  private static final StoreDetailsCache.Key KEY =
+      StoreDetailsCache.Key.of(400, Optional.empty(), Optional.empty());
+
+  private static final String DATA =
+      """
+          {
+            "type": "game",
+            "name": "Portal \\"Still Alive\\"",
+            "short_description": "A <b>puzzle</b> game.",
+            "genres": [{"id": "1", "description": "Action"}],
+            "price_overview": {
+              "currency": "USD",
+              "initial": 999,
+              "final": 199,
+              "discount_percent": 80,
+              "final_formatted": "$1.99"
+            }
+          }
+          """;
+
+  @Test
+  void testReusesSerializationOfSameContent() {
+    StoreDetailsJsonCache cache = new StoreDetailsJsonCache();
+    StoreDetails details = details(400);
+
+    String first = cache.toJson(KEY, 1L, details, StoreDetailsSection.ALL).toJSONString();
+    String second = cache.toJson(KEY, 1L, details, StoreDetailsSection.ALL).toJSONString();
+    // Details promoted back from the off-heap tier are a new instance of the same content
+    String promoted =
+        cache.toJson(KEY, 1L, details(400), StoreDetailsSection.ALL).toJSONString();
+
+    assertSame(first, second);
+    assertSame(first, promoted);
+    assertEquals(details.toJson().toString(), first);
+    assertTrue(cache.getCacheInfo().endsWith("hits: 2, misses: 1"));
+  }
+
+  @Test
+  void testChangedContentIsSerializedAgain() {
+    StoreDetailsJsonCache cache = new StoreDetailsJsonCache();
+
+    cache.toJson(KEY, 1L, details(400), StoreDetailsSection.ALL);
+    cache.toJson(KEY, 2L, details(400), StoreDetailsSection.ALL);
+
+    assertEquals(2, cache.size());
+    assertTrue(cache.getCacheInfo().endsWith("hits: 0, misses: 2"));
+  }
+
+  @Test
+  void testProjectionsAreMemoizedSeparately() {
+    StoreDetailsJsonCache cache = new StoreDetailsJsonCache();
+    StoreDetails details = details(400);
+    Set<StoreDetailsSection> fields = StoreDetailsSection.forKeys(List.of("name", "genres"));
+
+    JSONObject projected = new JSONObject(cache.toJson(KEY, 1L, details, fields).toJSONString());
+    cache.toJson(KEY, 1L, details, StoreDetailsSection.ALL);
+
+    assertEquals(Set.of("app_id", "success", "name", "genres"), projected.keySet());
+    assertEquals("Portal \"Still Alive\"", projected.getString("name"));
+    assertEquals("Action", projected.getJSONArray("genres").getJSONObject(0).get("description"));
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  void testEvictsLeastRecentlyUsedFragmentsOverBudget() {
+    StoreDetails first = details(1);
+    StoreDetails second = details(2);
+    long length = first.toJson().toString().length();
+    StoreDetailsJsonCache cache = new StoreDetailsJsonCache(length * 3 / 2);
+
+    cache.toJson(key(1), 1L, first, StoreDetailsSection.ALL);
+    cache.toJson(key(2), 1L, second, StoreDetailsSection.ALL);
+
+    assertEquals(1, cache.size());
+    cache.toJson(key(2), 1L, second, StoreDetailsSection.ALL);
+    assertTrue(cache.getCacheInfo().endsWith("hits: 1, misses: 2"));
+  }
+
+  @Test
+  void testSerializesFailedDetails() {
+    StoreDetails failed = failed(7);
+
+    assertEquals(
+        failed.toJson().toString(),
+        StoreDetailsJsonCache.serialize(failed, StoreDetailsSection.ALL).json());
+  }
+
+  @Test
+  void testRejectsUnknownFields() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> StoreDetailsSection.forKeys(List.of("name", "price")));
+
+    assertEquals("Unknown store details field: price", e.getMessage());
+  }
+
+  private static StoreDetailsCache.Key key(int appId) {
+    return StoreDetailsCache.Key.of(appId, Optional.empty(), Optional.empty());
+  }
+
+  private static StoreDetails failed(int appId) {
+    return new StoreDetails(
+        appId,
+        "error",
+        "Failed to fetch details: HTTP 500",
+        0,
+        false,
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        new StoreDetails.Platforms(false, false, false),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        Optional.empty(),
+        new StoreDetails.ReleaseDate(false, ""),
+        Optional.empty(),
+        Optional.empty(),
+        false);
+  }
+
+  private static StoreDetails details(int appId) {
+    return new LazyStoreDetails(appId, DATA.getBytes(StandardCharsets.UTF_8));
+  }
+}
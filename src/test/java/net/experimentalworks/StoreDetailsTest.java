@@ -0,0 +1,343 @@
+package net.experimentalworks;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+class StoreDetailsTest {
+  private static final String CDN =
+      "https://shared.akamai.steamstatic.com/store_item_assets/steam/apps/";
+
+  /** Builds an appdetails data object shaped like a typical, well-populated store page. */
+  private static JSONObject data() {
+    JSONObject data = new JSONObject();
+    data.put("type", "game");
+    data.put("name", "Portal 2");
+    data.put("required_age", 0);
+    data.put("is_free", false);
+    data.put("controller_support", "full");
+    JSONArray dlc = new JSONArray();
+    for (int i = 0; i < 40; i++) {
+      dlc.put(323_180 + i);
+    }
+    data.put("dlc", dlc);
+    data.put("detailed_description", "<p>Portal 2 draws from the award-winning formula.</p>");
+    data.put("short_description", "The sequel to the game of the year.");
+    data.put("header_image", "https://cdn.akamai.steamstatic.com/steam/apps/620/header.jpg");
+    JSONArray screenshots = new JSONArray();
+    for (int i = 0; i < 16; i++) {
+      screenshots.put(
+          new JSONObject()
+              .put("id", i)
+              .put("path_thumbnail", CDN + "620/ss_" + i + ".600x338.jpg?t=1745363004")
+              .put("path_full", CDN + "620/ss_" + i + ".1920x1080.jpg?t=1745363004"));
+    }
+    data.put("screenshots", screenshots);
+    JSONArray categories = new JSONArray();
+    for (int i = 0; i < 12; i++) {
+      categories.put(new JSONObject().put("id", i).put("description", "Category " + i));
+    }
+    data.put("categories", categories);
+    data.put(
+        "genres",
+        new JSONArray().put(new JSONObject().put("id", "1").put("description", "Action")));
+    data.put("developers", new JSONArray().put("Valve"));
+    data.put("publishers", new JSONArray().put("Valve"));
+    data.put(
+        "platforms", new JSONObject().put("windows", true).put("mac", true).put("linux", true));
+    data.put(
+        "pc_requirements", new JSONObject().put("minimum", "<ul><li>OS: Windows 7</li></ul>"));
+    data.put("metacritic", new JSONObject().put("score", 95).put("url", "https://mc/portal-2"));
+    data.put(
+        "release_date", new JSONObject().put("coming_soon", false).put("date", "18 Apr, 2011"));
+    return data;
+  }
+
+  @Test
+  void testGettersExposeCompactFields() {
+    StoreDetails details = StoreDetailsParser.parse(620, data());
+
+    assertTrue(details.isSuccess());
+    assertFalse(details.isFree());
+    assertEquals(40, details.getDlc().get().size());
+    assertEquals(323_180, (int) details.getDlc().get().get(0));
+    assertEquals(16, details.getScreenshots().get().size());
+    assertEquals("Category 11", details.getCategories().get().get(11).getDescription());
+    assertTrue(details.getAboutTheGame().isEmpty());
+    assertTrue(details.getMovies().isEmpty());
+    assertTrue(details.getMacRequirements().isEmpty());
+    assertTrue(details.getPlatforms().isWindows());
+    assertTrue(details.getPlatforms().isLinux());
+    assertThrows(
+        UnsupportedOperationException.class, () -> details.getScreenshots().get().remove(0));
+  }
+
+  @Test
+  void testPlatformsAreShared() {
+    StoreDetails first = StoreDetailsParser.parse(620, data());
+    StoreDetails second = StoreDetailsParser.parse(400, data());
+
+    assertSame(first.getPlatforms(), second.getPlatforms());
+  }
+
+  @Test
+  void testToJsonRoundTripsThroughParser() {
+    StoreDetails details = StoreDetailsParser.parse(620, data());
+    JSONObject json = details.toJson();
+
+    StoreDetails reparsed = StoreDetailsParser.parse(620, json);
+
+    assertTrue(json.similar(reparsed.toJson()));
+    assertEquals(40, json.getJSONArray("dlc").length());
+    assertFalse(json.has("about_the_game"));
+  }
+
+  @Test
+  void testSerializedFormHoldsDecodedValues() throws Exception {
+    JSONObject data =
+        data()
+            .put(
+                "price_overview",
+                new JSONObject()
+                    .put("currency", "EUR")
+                    .put("initial", 999)
+                    .put("final", 999)
+                    .put("discount_percent", 0))
+            .put(
+                "movies",
+                new JSONArray()
+                    .put(
+                        new JSONObject()
+                            .put("id", 1)
+                            .put("name", "Trailer")
+                            .put("thumbnail", CDN + "620/movie.jpg")
+                            .put(
+                                "webm",
+                                new JSONObject()
+                                    .put("480", CDN + "620/movie480.webm")
+                                    .put("max", CDN + "620/movie_max.webm"))));
+    StoreDetails details = StoreDetailsParser.parse(620, data);
+    LazyStoreDetails lazy = new LazyStoreDetails(620, data.toString().getBytes(UTF_8));
+    lazy.getScreenshots();
+    FailedStoreDetails failed = new FailedStoreDetails(7, FetchFailure.TIMED_OUT, "Timed out");
+
+    byte[] bytes = serialize(details);
+    StoreDetails copy = (StoreDetails) deserialize(bytes);
+    StoreDetails lazyCopy = (StoreDetails) deserialize(serialize(lazy));
+    FailedStoreDetails failedCopy = (FailedStoreDetails) deserialize(serialize(failed));
+
+    // Dictionary codes are process-local, so the stream carries the strings themselves
+    String stream = new String(bytes, ISO_8859_1);
+    assertTrue(stream.contains("Valve"));
+    assertTrue(stream.contains("EUR"));
+    assertTrue(stream.contains("620/movie_max.webm"));
+    assertTrue(details.toJson().similar(copy.toJson()));
+    // Unread lazy sections are spliced as raw JSON, so compare the parsed output
+    assertTrue(
+        new JSONObject(lazy.toJson().toString())
+            .similar(new JSONObject(lazyCopy.toJson().toString())));
+    assertEquals(FetchFailure.TIMED_OUT, failedCopy.getFailure());
+    assertTrue(failed.toJson().similar(failedCopy.toJson()));
+  }
+
+  private static byte[] serialize(Object value) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(value);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Object deserialize(byte[] bytes) throws Exception {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return in.readObject();
+    }
+  }
+
+  @Test
+  void testCompactFormIsSmallerThanOptionalLayout() {
+    StoreDetails details = StoreDetailsParser.parse(620, data());
+
+    long compact = Footprint.of(details);
+    long optionalLayout = Footprint.of(optionalLayout(details));
+
+    // Strings are shared by both layouts; the savings come from dropping every Optional wrapper,
+    // list object and boxed DLC id
+    long saved = optionalLayout - compact;
+    String message = "compact " + compact + " bytes vs optional layout " + optionalLayout;
+    assertTrue(saved > 40 * 16, message);
+    assertTrue(compact * 10 < optionalLayout * 9, message);
+  }
+
+  /**
+   * Rebuilds the field values the Optional-based layout held for the same details: one Optional
+   * per section, ArrayLists for lists and boxed DLC ids.
+   */
+  private static Object[] optionalLayout(StoreDetails d) {
+    return new Object[] {
+      d.getType(),
+      d.getName(),
+      d.getControllerSupport(),
+      d.getDlc().map(ArrayList::new),
+      d.getDetailedDescription(),
+      d.getAboutTheGame(),
+      d.getShortDescription(),
+      d.getPriceOverview(),
+      d.getHeaderImage(),
+      d.getScreenshots().map(ArrayList::new),
+      d.getMovies().map(ArrayList::new),
+      d.getCategories().map(ArrayList::new),
+      d.getGenres().map(ArrayList::new),
+      d.getDevelopers().map(ArrayList::new),
+      d.getPublishers().map(ArrayList::new),
+      d.getSupportedLanguages(),
+      new StoreDetails.Platforms(true, true, true),
+      d.getPcRequirements(),
+      d.getMacRequirements(),
+      d.getLinuxRequirements(),
+      d.getMetacritic(),
+      d.getRecommendations(),
+      d.getAchievements(),
+      d.getReleaseDate(),
+      d.getWebsite(),
+      d.getLegalNotice(),
+      Optional.empty()
+    };
+  }
+
+  @Test
+  void testFailedDetailsHaveNoSections() {
+    StoreDetails failed =
+        new StoreDetails(
+            1,
+            "error",
+            "Failed",
+            0,
+            false,
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            new StoreDetails.Platforms(false, false, false),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            Optional.empty(),
+            new StoreDetails.ReleaseDate(false, "Unknown"),
+            Optional.empty(),
+            Optional.empty(),
+            false);
+
+    assertFalse(failed.isSuccess());
+    assertTrue(failed.getDlc().isEmpty());
+    assertEquals(
+        List.of(
+            "app_id",
+            "is_free",
+            "name",
+            "platforms",
+            "release_date",
+            "required_age",
+            "success",
+            "type"),
+        failed.toJson().keySet().stream().sorted().toList());
+  }
+
+  @Test
+  void testRepeatedStringsAreSharedAcrossSeparatelyParsedEntries() {
+    StoreDetails first = StoreDetailsParser.parse(620, new JSONObject(data().toString()));
+    StoreDetails second = StoreDetailsParser.parse(400, new JSONObject(data().toString()));
+
+    assertSame(
+        first.getGenres().get().get(0).getDescription(),
+        second.getGenres().get().get(0).getDescription());
+    assertSame(
+        first.getCategories().get().get(3).getDescription(),
+        second.getCategories().get().get(3).getDescription());
+    assertSame(first.getDevelopers().get().get(0), second.getPublishers().get().get(0));
+    assertEquals(
+        CDN + "620/ss_2.1920x1080.jpg?t=1745363004",
+        first.getScreenshots().get().get(2).getPathFull());
+    assertEquals(
+        "https://cdn.akamai.steamstatic.com/steam/apps/620/header.jpg",
+        first.getHeaderImage().get());
+  }
+
+  @Test
+  void testUrlPrefixEndsBeforeFirstNumericSegment() {
+    assertEquals(
+        "https://cdn.akamai.steamstatic.com/steam/apps/",
+        prefix("https://cdn.akamai.steamstatic.com/steam/apps/620/header.jpg?t=1"));
+    assertEquals(
+        "https://video.akamai.steamstatic.com/store_trailers/",
+        prefix("https://video.akamai.steamstatic.com/store_trailers/2028055/movie480.webm"));
+    assertEquals("https://example.com/a/", prefix("https://example.com/a/b.jpg"));
+    assertEquals("", prefix(""));
+  }
+
+  private static String prefix(String url) {
+    return url.substring(0, StoreSymbols.prefixLength(url));
+  }
+
+  @Test
+  void testDictionaryEncodingShrinksManyCachedEntries() {
+    List<StoreDetails> entries = new ArrayList<>();
+    List<String> dictionaryValues = new ArrayList<>();
+    List<String> urls = new ArrayList<>();
+    List<String> urlSuffixes = new ArrayList<>();
+    for (int appId = 0; appId < 200; appId++) {
+      StoreDetails details = StoreDetailsParser.parse(appId, new JSONObject(data().toString()));
+      entries.add(details);
+      details.getGenres().get().forEach(g -> dictionaryValues.add(g.getDescription()));
+      details.getCategories().get().forEach(c -> dictionaryValues.add(c.getDescription()));
+      dictionaryValues.addAll(details.getDevelopers().get());
+      dictionaryValues.addAll(details.getPublishers().get());
+      for (StoreDetails.Screenshot ss : details.getScreenshots().get()) {
+        urls.add(ss.getPathFull());
+        urls.add(ss.getPathThumbnail());
+      }
+    }
+    for (String url : urls) {
+      urlSuffixes.add(StoreSymbols.urlSuffix(url, StoreSymbols.urlPrefix(url)));
+    }
+
+    // Without dictionaries every entry would hold its own copy of each value and full URLs
+    // instead of suffixes; codes take the same four bytes as the references they replace
+    long encoded = Footprint.of(entries);
+    long plain =
+        encoded
+            + Footprint.of(copies(dictionaryValues))
+            + Footprint.of(copies(urls))
+            - Footprint.of(copies(urlSuffixes));
+
+    assertTrue(encoded * 4 < plain * 3, "encoded " + encoded + " bytes vs plain " + plain);
+  }
+
+  private static List<String> copies(List<String> values) {
+    return values.stream().map(String::new).toList();
+  }
+}
@@ -0,0 +1,63 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class StoreRateBudgetTest {
+
+  @Test
+  void testHedgesAreCappedAtShareOfLimit() {
+    StoreRateBudget budget = new StoreRateBudget(50, Duration.ofMinutes(5), new MutableClock());
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(budget.tryAcquireHedge());
+    }
+    assertFalse(budget.tryAcquireHedge());
+    assertEquals(5, budget.getUsed());
+  }
+
+  @Test
+  void testNoHedgesWhenWindowIsFull() {
+    StoreRateBudget budget = new StoreRateBudget(20, Duration.ofMinutes(5), new MutableClock());
+
+    for (int i = 0; i < 20; i++) {
+      budget.recordRequest();
+    }
+
+    assertFalse(budget.tryAcquireHedge());
+    assertEquals(0, budget.getHedgesUsed());
+  }
+
+  @Test
+  void testRefreshesStopAtCeiling() {
+    StoreRateBudget budget = new StoreRateBudget(20, Duration.ofMinutes(5), new MutableClock());
+
+    for (int i = 0; i < 9; i++) {
+      budget.recordRequest();
+    }
+
+    assertTrue(budget.tryAcquireRefresh());
+    assertFalse(budget.tryAcquireRefresh());
+    assertEquals(10, budget.getUsed());
+  }
+
+  @Test
+  void testRequestsAgeOutOfWindow() {
+    MutableClock clock = new MutableClock();
+    StoreRateBudget budget = new StoreRateBudget(20, Duration.ofMinutes(5), clock);
+    budget.recordRequest();
+    assertTrue(budget.tryAcquireHedge());
+    assertTrue(budget.tryAcquireHedge());
+    assertFalse(budget.tryAcquireHedge());
+
+    clock.advance(Duration.ofMinutes(5));
+
+    assertEquals(0, budget.getUsed());
+    assertTrue(budget.tryAcquireHedge());
+    assertEquals(
+        "Store rate budget: 1 of 20 requests in last 300 s, hedges 1 of 2", budget.getInfo());
+  }
+}
@@ -0,0 +1,80 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+class StoreTtlPolicyTest {
+
+  private final StoreTtlPolicy policy = StoreTtlPolicy.adaptive(new MutableClock());
+
+  @Test
+  void testDiscountedAndUpcomingAppsAreVolatile() {
+    StoreDetails discounted = app(false, "1 Nov, 2000", price(50));
+    StoreDetails upcoming = app(true, "Q3 2025", price(0));
+
+    assertEquals(StoreTtlPolicy.VOLATILE_TTL, policy.ttlFor(discounted, 0, 0));
+    assertEquals(StoreTtlPolicy.VOLATILE_TTL, policy.ttlFor(discounted, 0, 3));
+    assertEquals(StoreTtlPolicy.VOLATILE_TTL, policy.ttlFor(upcoming, 0, 0));
+  }
+
+  @Test
+  void testPaidAppsStayCappedToKeepPricesFresh() {
+    StoreDetails paid = app(false, "1 Nov, 2000", price(0));
+
+    assertEquals(StoreTtlPolicy.PAID_TTL, policy.ttlFor(paid, 0, 0));
+    assertEquals(StoreTtlPolicy.PAID_MAX_TTL, policy.ttlFor(paid, 0, 1));
+    assertEquals(StoreTtlPolicy.PAID_MAX_TTL, policy.ttlFor(paid, 0, 10));
+  }
+
+  @Test
+  void testFreeAppsLiveLongerOnceSettled() {
+    StoreDetails settled = app(false, "1 Nov, 2000", null);
+    StoreDetails recent = app(false, "12 Mar, 2024", null);
+
+    assertEquals(StoreTtlPolicy.MAX_TTL, policy.ttlFor(settled, 0, 0));
+    assertEquals(StoreTtlPolicy.FREE_TTL, policy.ttlFor(recent, 0, 0));
+    assertEquals(StoreTtlPolicy.FREE_TTL.multipliedBy(2), policy.ttlFor(recent, 0, 1));
+    assertEquals(StoreTtlPolicy.MAX_TTL, policy.ttlFor(recent, 0, 10));
+  }
+
+  @Test
+  void testRepeatedChangesHalveTheLifetime() {
+    StoreDetails paid = app(false, "1 Nov, 2000", price(0));
+
+    assertEquals(StoreTtlPolicy.PAID_TTL, policy.ttlFor(paid, 1, 0));
+    assertEquals(StoreTtlPolicy.PAID_TTL.dividedBy(2), policy.ttlFor(paid, 2, 0));
+  }
+
+  @Test
+  void testFixedPolicyIgnoresContent() {
+    StoreTtlPolicy fixed = StoreTtlPolicy.fixed(Duration.ofMinutes(30));
+
+    assertEquals(Duration.ofMinutes(30), fixed.ttlFor(app(true, "Coming soon", price(90)), 3, 0));
+    assertEquals("ttl: PT30M", fixed.getInfo());
+  }
+
+  private static StoreDetails app(boolean comingSoon, String date, JSONObject price) {
+    JSONObject data =
+        new JSONObject()
+            .put("type", "game")
+            .put("name", "Test")
+            .put("is_free", price == null)
+            .put("release_date", new JSONObject().put("coming_soon", comingSoon).put("date", date));
+    if (price != null) {
+      data.put("price_overview", price);
+    }
+    return StoreDetailsParser.parse(10, data);
+  }
+
+  private static JSONObject price(int discountPercent) {
+    return new JSONObject()
+        .put("currency", "USD")
+        .put("initial", 1999)
+        .put("final", 1999 * (100 - discountPercent) / 100)
+        .put("discount_percent", discountPercent);
+  }
+}
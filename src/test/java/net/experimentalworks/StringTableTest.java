@@ -0,0 +1,97 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class StringTableTest {
+
+  @Test
+  void testEqualStringsShareOneCode() {
+    StringTable table = new StringTable();
+
+    int action = table.encode("Action");
+    int indie = table.encode("Indie");
+
+    assertEquals(action, table.encode(new String("Action")));
+    assertNotEquals(action, indie);
+    assertEquals("Indie", table.decode(indie));
+    assertEquals(2, table.size());
+  }
+
+  @Test
+  void testDecodeReturnsFirstInstance() {
+    StringTable table = new StringTable();
+    String first = new String("Valve");
+
+    int code = table.encode(first);
+    table.encode(new String("Valve"));
+
+    assertSame(first, table.decode(code));
+  }
+
+  @Test
+  void testGrowsBeyondInitialCapacity() {
+    StringTable table = new StringTable();
+    String[] values = new String[100];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = "value-" + i;
+    }
+
+    int[] codes = table.encodeAll(values);
+
+    assertArrayEquals(values, table.decodeAll(codes));
+    assertEquals(100, table.size());
+  }
+
+  @Test
+  void testFullTableAddsNoNewStrings() {
+    StringTable table = new StringTable(2);
+    table.encode("Valve");
+    table.encode("Bethesda");
+    String shared = table.decode(0);
+    String extra = new String("Ubisoft");
+
+    assertEquals(-1, table.tryEncode("Ubisoft"));
+    assertSame(extra, table.intern(extra));
+    assertSame(shared, table.intern(new String("Valve")));
+    assertThrows(IllegalStateException.class, () -> table.encode("Ubisoft"));
+    assertEquals(2, table.size());
+  }
+
+  @Test
+  void testConcurrentEncodingAssignsUniqueCodes() throws Exception {
+    StringTable table = new StringTable();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<int[]>> results = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  int[] codes = new int[500];
+                  for (int i = 0; i < codes.length; i++) {
+                    codes[i] = table.encode("company-" + i);
+                  }
+                  return codes;
+                }));
+      }
+      int[] expected = results.get(0).get();
+      for (Future<int[]> result : results) {
+        assertArrayEquals(expected, result.get());
+      }
+      for (int i = 0; i < expected.length; i++) {
+        assertEquals("company-" + i, table.decode(expected[i]));
+      }
+      assertEquals(500, table.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
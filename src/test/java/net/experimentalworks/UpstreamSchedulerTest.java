@@ -0,0 +1,117 @@
+package net.experimentalworks;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UpstreamSchedulerTest {
+
+  private List<String> sent;
+
+  @BeforeEach
+  void setUp() {
+    sent = new ArrayList<>();
+  }
+
+  @Test
+  void testInteractiveRequestsGoFirst() {
+    UpstreamScheduler scheduler = new UpstreamScheduler(1, 0, Duration.ofHours(1));
+    CompletableFuture<String> first = new CompletableFuture<>();
+    CompletableFuture<String> second = new CompletableFuture<>();
+
+    scheduler.submit(UpstreamScheduler.Priority.INTERACTIVE, request("first", first));
+    CompletableFuture<String> background =
+        scheduler.submit(
+            UpstreamScheduler.Priority.BACKGROUND, request("background", completed()));
+    scheduler.submit(UpstreamScheduler.Priority.INTERACTIVE, request("second", second));
+    assertEquals(List.of("first"), sent);
+
+    first.complete("ok");
+    assertEquals(List.of("first", "second"), sent);
+    assertEquals(1, scheduler.getQueued(UpstreamScheduler.Priority.BACKGROUND));
+
+    second.complete("ok");
+    assertEquals(List.of("first", "second", "background"), sent);
+    assertEquals("ok", background.join());
+  }
+
+  @Test
+  void testBackgroundRequestsLeaveReservedSlotsFree() {
+    UpstreamScheduler scheduler = new UpstreamScheduler(2, 1, Duration.ofHours(1));
+
+    scheduler.submit(
+        UpstreamScheduler.Priority.BACKGROUND, request("background 1", new CompletableFuture<>()));
+    scheduler.submit(
+        UpstreamScheduler.Priority.PREFETCH, request("prefetch", new CompletableFuture<>()));
+    scheduler.submit(
+        UpstreamScheduler.Priority.INTERACTIVE, request("interactive", new CompletableFuture<>()));
+
+    assertEquals(List.of("background 1", "interactive"), sent);
+    assertEquals(2, scheduler.getInFlight());
+    assertEquals(1, scheduler.getQueued(UpstreamScheduler.Priority.PREFETCH));
+  }
+
+  @Test
+  void testLongWaitingRequestIsNotStarved() {
+    UpstreamScheduler scheduler = new UpstreamScheduler(1, 0, Duration.ZERO);
+    CompletableFuture<String> first = new CompletableFuture<>();
+
+    scheduler.submit(UpstreamScheduler.Priority.INTERACTIVE, request("first", first));
+    scheduler.submit(
+        UpstreamScheduler.Priority.BACKGROUND, request("background", new CompletableFuture<>()));
+    scheduler.submit(
+        UpstreamScheduler.Priority.INTERACTIVE, request("second", new CompletableFuture<>()));
+    first.complete("ok");
+
+    assertEquals(List.of("first", "background"), sent);
+    assertTrue(scheduler.getInfo().endsWith("aged 1"), scheduler.getInfo());
+  }
+
+  @Test
+  void testCancelledQueuedRequestIsNotSent() {
+    UpstreamScheduler scheduler = new UpstreamScheduler(1, 0, Duration.ofHours(1));
+    CompletableFuture<String> first = new CompletableFuture<>();
+
+    scheduler.submit(UpstreamScheduler.Priority.INTERACTIVE, request("first", first));
+    CompletableFuture<String> queued =
+        scheduler.submit(UpstreamScheduler.Priority.INTERACTIVE, request("queued", completed()));
+    queued.cancel(true);
+    first.complete("ok");
+
+    assertEquals(List.of("first"), sent);
+    assertEquals(0, scheduler.getInFlight());
+    assertEquals(1, scheduler.getDispatched(UpstreamScheduler.Priority.INTERACTIVE));
+  }
+
+  @Test
+  void testCancellingResultCancelsSentRequest() {
+    UpstreamScheduler scheduler = new UpstreamScheduler(1, 0, Duration.ofHours(1));
+    CompletableFuture<String> response = new CompletableFuture<>();
+
+    scheduler
+        .submit(UpstreamScheduler.Priority.INTERACTIVE, request("first", response))
+        .cancel(true);
+
+    assertTrue(response.isCancelled());
+    assertEquals(0, scheduler.getInFlight());
+  }
+
+  private Supplier<CompletableFuture<String>> request(
+      String name, CompletableFuture<String> response) {
+    return () -> {
+      sent.add(name);
+      return response;
+    };
+  }
+
+  private static CompletableFuture<String> completed() {
+    return CompletableFuture.completedFuture("ok");
+  }
+}